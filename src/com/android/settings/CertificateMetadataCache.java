@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import android.net.http.SslCertificate;
+import android.security.KeyChain;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.internal.util.HexDump;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Process wide cache of what the trusted credentials list shows for a CA certificate, keyed by
+ * alias and by the digest of the encoded certificate, so reopening the list does not parse the
+ * certificates again unless they changed.
+ */
+public class CertificateMetadataCache {
+
+    // Comfortably above the number of system CAs of a single profile.
+    private static final int MAX_ENTRIES = 512;
+
+    private static CertificateMetadataCache sInstance;
+
+    /** What the list shows for a certificate. */
+    public static class Metadata {
+        public final String subjectPrimary;
+        public final String subjectSecondary;
+        /** Upper case hex SHA-256 digest of the encoded certificate. */
+        public final String fingerprint;
+
+        @VisibleForTesting
+        Metadata(String subjectPrimary, String subjectSecondary, String fingerprint) {
+            this.subjectPrimary = subjectPrimary;
+            this.subjectSecondary = subjectSecondary;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final LruCache<String, Metadata> mCache = new LruCache<>(MAX_ENTRIES);
+
+    /** Returns the process wide cache. */
+    public static synchronized CertificateMetadataCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new CertificateMetadataCache();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    CertificateMetadataCache() {
+    }
+
+    /**
+     * Returns the metadata of the given encoded certificate, parsing it only if it was not seen
+     * under this alias before. Safe to call from several threads.
+     */
+    @Nullable
+    public Metadata get(String alias, byte[] encodedCertificate) {
+        final String fingerprint = fingerprint(encodedCertificate);
+        final String key = alias + ':' + fingerprint;
+        Metadata metadata = mCache.get(key);
+        if (metadata == null) {
+            metadata = parse(encodedCertificate, fingerprint);
+            if (metadata != null) {
+                mCache.put(key, metadata);
+            }
+        }
+        return metadata;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    Metadata parse(byte[] encodedCertificate, String fingerprint) {
+        final X509Certificate cert = KeyChain.toCertificate(encodedCertificate);
+        if (cert == null) {
+            return null;
+        }
+        final SslCertificate sslCert = new SslCertificate(cert);
+        String cn = sslCert.getIssuedTo().getCName();
+        String o = sslCert.getIssuedTo().getOName();
+        String ou = sslCert.getIssuedTo().getUName();
+        // if we have a O, use O as primary subject, secondary prefer CN over OU
+        // if we don't have an O, use CN as primary, empty secondary
+        // if we don't have O or CN, use DName as primary, empty secondary
+        if (!o.isEmpty()) {
+            return new Metadata(o, !cn.isEmpty() ? cn : ou, fingerprint);
+        } else if (!cn.isEmpty()) {
+            return new Metadata(cn, "", fingerprint);
+        } else {
+            return new Metadata(sslCert.getIssuedTo().getDName(), "", fingerprint);
+        }
+    }
+
+    private static String fingerprint(byte[] encodedCertificate) {
+        try {
+            return HexDump.toHexString(
+                    MessageDigest.getInstance("SHA-256").digest(encodedCertificate));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
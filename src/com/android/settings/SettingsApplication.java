@@ -16,26 +16,35 @@
 
 package com.android.settings;
 
+import android.app.Activity;
+import android.app.ActivityManager;
 import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.database.ContentObserver;
 import android.net.Uri;
+import android.os.Bundle;
 import android.provider.Settings;
 import android.util.FeatureFlagUtils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
+import com.android.settings.core.StartupWarmUpScheduler;
 import com.android.settings.core.instrumentation.ElapsedTimeUtils;
 import com.android.settings.fuelgauge.BatterySettingsStorage;
 import com.android.settings.homepage.SettingsHomepageActivity;
+import com.android.settings.network.CarrierConfigCache;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.overlay.FeatureFactoryImpl;
 import com.android.settings.spa.SettingsSpaEnvironment;
 import com.android.settingslib.applications.AppIconCacheManager;
+import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.datastore.BackupRestoreStorageManager;
 import com.android.settingslib.spa.framework.common.SpaEnvironmentFactory;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
@@ -44,7 +53,14 @@ import java.lang.ref.WeakReference;
 /** Settings application which sets up activity embedding rules for the large screen device. */
 public class SettingsApplication extends Application {
 
+    private static final String WARM_UP_FEATURE_PROVIDERS = "feature_providers";
+    private static final String WARM_UP_SEARCH_INDEXABLES = "search_indexables";
+    private static final String WARM_UP_APPLICATIONS_STATE = "applications_state";
+    private static final String WARM_UP_CARRIER_CONFIG = "carrier_config";
+
     private WeakReference<SettingsHomepageActivity> mHomeActivity = new WeakReference<>(null);
+    @Nullable
+    private StartupWarmUpScheduler mWarmUpScheduler;
 
     @Override
     protected void attachBaseContext(Context base) {
@@ -75,6 +91,10 @@ public class SettingsApplication extends Application {
                 new DeviceProvisionedObserver().registerContentObserver();
             }
         }
+
+        if (!ActivityManager.isLowRamDeviceStatic()) {
+            registerActivityLifecycleCallbacks(new WarmUpOnFirstActivity());
+        }
     }
 
     @Override
@@ -104,10 +124,80 @@ public class SettingsApplication extends Application {
         return mHomeActivity.get();
     }
 
+    /** Returns the scheduler warming up subsystems after the first activity, if started. */
+    @Nullable
+    public StartupWarmUpScheduler getWarmUpScheduler() {
+        return mWarmUpScheduler;
+    }
+
     @Override
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
         AppIconCacheManager.getInstance().trimMemory(level);
+        if (mWarmUpScheduler != null
+                && level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            mWarmUpScheduler.cancel();
+        }
+    }
+
+    /**
+     * Creates the warm-up tasks for singletons that are otherwise created on the main thread by
+     * the first screen using them.
+     * Override this function to warm up different subsystems for different Settings app.
+     */
+    @NonNull
+    protected StartupWarmUpScheduler createWarmUpScheduler() {
+        final Context context = this;
+        return new StartupWarmUpScheduler(ThreadUtils::postOnBackgroundThread)
+                .addTask(WARM_UP_FEATURE_PROVIDERS, StartupWarmUpScheduler.PRIORITY_HIGH, () -> {
+                    final FeatureFactory factory = FeatureFactory.getFeatureFactory();
+                    factory.getDashboardFeatureProvider();
+                    factory.getSearchFeatureProvider();
+                })
+                .addTask(WARM_UP_APPLICATIONS_STATE, StartupWarmUpScheduler.PRIORITY_NORMAL,
+                        () -> ApplicationsState.getInstance(this))
+                .addTask(WARM_UP_SEARCH_INDEXABLES, StartupWarmUpScheduler.PRIORITY_LOW,
+                        () -> FeatureFactory.getFeatureFactory().getSearchFeatureProvider()
+                                .getSearchIndexableResources().getProviderValues(),
+                        WARM_UP_FEATURE_PROVIDERS)
+                .addTask(WARM_UP_CARRIER_CONFIG, StartupWarmUpScheduler.PRIORITY_LOW,
+                        () -> CarrierConfigCache.getInstance(context));
+    }
+
+    /** Starts the warm-up once the first activity has been resumed and the main thread idles. */
+    private class WarmUpOnFirstActivity implements ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {
+            unregisterActivityLifecycleCallbacks(this);
+            mWarmUpScheduler = createWarmUpScheduler();
+            mWarmUpScheduler.start();
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity,
+                @Nullable Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity,
+                @NonNull Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {
+        }
     }
 
     private class DeviceProvisionedObserver extends ContentObserver {
@@ -37,6 +37,8 @@ import android.util.Log;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.applications.ProcStatsData;
+import com.android.settings.core.StartupWarmUpScheduler;
+import com.android.settings.core.instrumentation.PageLoadHistory;
 import com.android.settings.datausage.lib.DataUsageLib;
 import com.android.settings.network.MobileNetworkRepository;
 import com.android.settingslib.net.DataUsageController;
@@ -67,6 +69,10 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_PAGE_LOAD = "page_load";
+    @VisibleForTesting
+    static final String KEY_STARTUP_WARM_UP = "startup_warm_up";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -98,6 +104,8 @@ public class SettingsDumpService extends Service {
                 dump.put(KEY_DATAUSAGE, dumpDataUsage());
                 dump.put(KEY_MEMORY, dumpMemory());
                 dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
+                dump.put(KEY_PAGE_LOAD, PageLoadHistory.getInstance().toJson());
+                dump.put(KEY_STARTUP_WARM_UP, dumpStartupWarmUp());
             } catch (Exception e) {
                 Log.w(TAG, "exception in dump: ", e);
             }
@@ -183,6 +191,17 @@ public class SettingsDumpService extends Service {
         return obj;
     }
 
+    private JSONObject dumpStartupWarmUp() throws JSONException {
+        if (getApplication() instanceof SettingsApplication) {
+            final StartupWarmUpScheduler scheduler =
+                    ((SettingsApplication) getApplication()).getWarmUpScheduler();
+            if (scheduler != null) {
+                return scheduler.toJson();
+            }
+        }
+        return new JSONObject();
+    }
+
     @VisibleForTesting
     String dumpDefaultBrowser() {
         final ResolveInfo resolveInfo = getPackageManager().resolveActivity(
@@ -33,7 +33,6 @@ import android.content.pm.UserInfo;
 import android.content.res.TypedArray;
 import android.database.DataSetObserver;
 import android.graphics.drawable.Drawable;
-import android.net.http.SslCertificate;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Parcelable;
@@ -68,13 +67,16 @@ import com.android.internal.app.UnlaunchableAppActivity;
 import com.android.internal.widget.LockPatternUtils;
 import com.android.settings.TrustedCredentialsSettings.Tab;
 import com.android.settingslib.core.lifecycle.ObservableFragment;
+import com.android.settingslib.utils.ThreadUtils;
 
-import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.IntConsumer;
 
 /**
@@ -687,7 +689,6 @@ public class TrustedCredentialsFragment extends ObservableFragment
                         SparseArray<List<String>> aliasesByProfileId =
                                 new SparseArray<>(profiles.size());
                         int max = 0;
-                        int progress = 0;
                         for (UserHandle profile : profiles) {
                             int profileId = profile.getIdentifier();
                             if (shouldSkipProfile(profile)) {
@@ -705,12 +706,13 @@ public class TrustedCredentialsFragment extends ObservableFragment
                             max += aliases.size();
                             aliasesByProfileId.put(profileId, aliases);
                         }
+                        // Each profile has its own KeyChain service, load them in parallel.
+                        final AtomicInteger progress = new AtomicInteger();
+                        final int total = max;
+                        final List<Future<?>> loads = new ArrayList<>(profiles.size());
                         for (UserHandle profile : profiles) {
                             int profileId = profile.getIdentifier();
                             List<String> aliases = aliasesByProfileId.get(profileId);
-                            if (isCancelled()) {
-                                return new SparseArray<>();
-                            }
                             KeyChainConnection keyChainConnection =
                                     mKeyChainConnectionByProfileId.get(
                                             profileId);
@@ -720,17 +722,23 @@ public class TrustedCredentialsFragment extends ObservableFragment
                                 continue;
                             }
                             IKeyChainService service = keyChainConnection.getService();
-                            List<CertHolder> certHolders = new ArrayList<>(max);
-                            for (String alias : aliases) {
-                                byte[] encodedCertificate = service.getEncodedCaCertificate(alias,
-                                        true);
-                                X509Certificate cert = KeyChain.toCertificate(encodedCertificate);
-                                certHolders.add(new CertHolder(service, mAdapter,
-                                        mTab, alias, cert, profileId));
-                                publishProgress(++progress, max);
-                            }
-                            Collections.sort(certHolders);
+                            List<CertHolder> certHolders = new ArrayList<>(aliases.size());
                             certHoldersByProfile.put(profileId, certHolders);
+                            loads.add(ThreadUtils.postOnBackgroundThread(() -> {
+                                try {
+                                    loadCertHolders(service, profileId, aliases, certHolders,
+                                            () -> publishProgress(progress.incrementAndGet(),
+                                                    total));
+                                } catch (RemoteException e) {
+                                    throw new IllegalStateException(e);
+                                }
+                            }));
+                        }
+                        for (Future<?> load : loads) {
+                            load.get();
+                        }
+                        if (isCancelled()) {
+                            return new SparseArray<>();
                         }
                         return certHoldersByProfile;
                     }
@@ -740,7 +748,30 @@ public class TrustedCredentialsFragment extends ObservableFragment
                 } catch (InterruptedException e) {
                     Log.e(TAG, "InterruptedException while loading aliases.", e);
                     return new SparseArray<>();
+                } catch (ExecutionException e) {
+                    Log.e(TAG, "Exception while loading aliases.", e.getCause());
+                    return new SparseArray<>();
+                }
+            }
+
+            private void loadCertHolders(IKeyChainService service, int profileId,
+                    List<String> aliases, List<CertHolder> certHolders, Runnable onProgress)
+                    throws RemoteException {
+                final CertificateMetadataCache cache = CertificateMetadataCache.getInstance();
+                for (String alias : aliases) {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    byte[] encodedCertificate = service.getEncodedCaCertificate(alias, true);
+                    CertificateMetadataCache.Metadata metadata = encodedCertificate == null
+                            ? null : cache.get(alias, encodedCertificate);
+                    if (metadata != null) {
+                        certHolders.add(new CertHolder(service, mAdapter, mTab, alias,
+                                encodedCertificate, metadata, profileId));
+                    }
+                    onProgress.run();
                 }
+                Collections.sort(certHolders);
             }
 
             @Override
@@ -814,9 +845,9 @@ public class TrustedCredentialsFragment extends ObservableFragment
         private final GroupAdapter mAdapter;
         private final Tab mTab;
         private final String mAlias;
-        private final X509Certificate mX509Cert;
+        // The certificate itself is only decoded when its details are shown.
+        private final byte[] mEncodedCert;
 
-        private final SslCertificate mSslCert;
         private final String mSubjectPrimary;
         private final String mSubjectSecondary;
         private boolean mDeleted;
@@ -825,40 +856,17 @@ public class TrustedCredentialsFragment extends ObservableFragment
                 GroupAdapter adapter,
                 Tab tab,
                 String alias,
-                X509Certificate x509Cert,
+                byte[] encodedCert,
+                CertificateMetadataCache.Metadata metadata,
                 int profileId) {
             mProfileId = profileId;
             mService = service;
             mAdapter = adapter;
             mTab = tab;
             mAlias = alias;
-            mX509Cert = x509Cert;
-
-            mSslCert = new SslCertificate(x509Cert);
-
-            String cn = mSslCert.getIssuedTo().getCName();
-            String o = mSslCert.getIssuedTo().getOName();
-            String ou = mSslCert.getIssuedTo().getUName();
-            // if we have a O, use O as primary subject, secondary prefer CN over OU
-            // if we don't have an O, use CN as primary, empty secondary
-            // if we don't have O or CN, use DName as primary, empty secondary
-            if (!o.isEmpty()) {
-                if (!cn.isEmpty()) {
-                    mSubjectPrimary = o;
-                    mSubjectSecondary = cn;
-                } else {
-                    mSubjectPrimary = o;
-                    mSubjectSecondary = ou;
-                }
-            } else {
-                if (!cn.isEmpty()) {
-                    mSubjectPrimary = cn;
-                    mSubjectSecondary = "";
-                } else {
-                    mSubjectPrimary = mSslCert.getIssuedTo().getDName();
-                    mSubjectSecondary = "";
-                }
-            }
+            mEncodedCert = encodedCert;
+            mSubjectPrimary = metadata.subjectPrimary;
+            mSubjectSecondary = metadata.subjectSecondary;
             try {
                 mDeleted = mTab.deleted(mService, mAlias);
             } catch (RemoteException e) {
@@ -991,15 +999,13 @@ public class TrustedCredentialsFragment extends ObservableFragment
                             mCertHolder.mProfileId);
                     IKeyChainService service = keyChainConnection.getService();
                     if (mCertHolder.mDeleted) {
-                        byte[] bytes = mCertHolder.mX509Cert.getEncoded();
-                        service.installCaCertificate(bytes);
+                        service.installCaCertificate(mCertHolder.mEncodedCert);
                         return true;
                     } else {
                         return service.deleteCaCertificate(mCertHolder.mAlias);
                     }
                 }
-            } catch (CertificateEncodingException | SecurityException | IllegalStateException
-                    | RemoteException e) {
+            } catch (SecurityException | IllegalStateException | RemoteException e) {
                 Log.w(TAG, "Error while toggling alias " + mCertHolder.mAlias, e);
                 return false;
             }
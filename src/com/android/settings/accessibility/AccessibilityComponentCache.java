@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import android.accessibilityservice.AccessibilityServiceInfo;
+import android.accessibilityservice.AccessibilityShortcutInfo;
+import android.content.ComponentName;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+import android.util.ArrayMap;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the labels and icons of accessibility services and shortcuts per component, so they
+ * are only loaded from {@link PackageManager} again after their package changed.
+ *
+ * <p>Safe to use from any thread.</p>
+ */
+public class AccessibilityComponentCache {
+
+    // Services and shortcuts are kept apart, as a service and an activity may share a name.
+    private final Map<ComponentName, CharSequence> mServiceLabels = new ConcurrentHashMap<>();
+    private final Map<ComponentName, Drawable> mServiceIcons = new ConcurrentHashMap<>();
+    private final Map<ComponentName, CharSequence> mShortcutLabels = new ConcurrentHashMap<>();
+    private final Map<ComponentName, Drawable> mShortcutIcons = new ConcurrentHashMap<>();
+    // Bumped by invalidate(), so a preload started before does not store what it loaded.
+    // Guarded by itself.
+    private final Map<String, Integer> mGenerations = new ArrayMap<>();
+
+    /** Returns the label of the given accessibility service. */
+    public CharSequence getLabel(AccessibilityServiceInfo info, PackageManager pm) {
+        return get(mServiceLabels, info.getComponentName(),
+                () -> info.getResolveInfo().loadLabel(pm));
+    }
+
+    /** Returns the label of the given accessibility shortcut. */
+    public CharSequence getLabel(AccessibilityShortcutInfo info, PackageManager pm) {
+        return get(mShortcutLabels, info.getComponentName(),
+                () -> info.getActivityInfo().loadLabel(pm));
+    }
+
+    /** Returns a new instance of the icon of the given accessibility service. */
+    public Drawable getIcon(AccessibilityServiceInfo info, PackageManager pm) {
+        return newInstance(
+                get(mServiceIcons, info.getComponentName(),
+                        () -> info.getResolveInfo().loadIcon(pm)));
+    }
+
+    /** Returns a new instance of the icon of the given accessibility shortcut. */
+    public Drawable getIcon(AccessibilityShortcutInfo info, PackageManager pm) {
+        return newInstance(
+                get(mShortcutIcons, info.getComponentName(),
+                        () -> info.getActivityInfo().loadIcon(pm)));
+    }
+
+    /**
+     * Loads the labels and icons of the services and shortcuts belonging to the given packages,
+     * so a following list refresh finds them ready. Meant to be called off the main thread.
+     */
+    public void preload(List<AccessibilityServiceInfo> services,
+            List<AccessibilityShortcutInfo> shortcuts, Set<String> packageNames,
+            PackageManager pm) {
+        final Map<String, Integer> generations = new ArrayMap<>();
+        synchronized (mGenerations) {
+            for (String packageName : packageNames) {
+                generations.put(packageName, mGenerations.getOrDefault(packageName, 0));
+            }
+        }
+        for (AccessibilityServiceInfo info : services) {
+            final ComponentName component = info.getComponentName();
+            if (packageNames.contains(component.getPackageName())) {
+                preload(mServiceLabels, component, generations,
+                        () -> info.getResolveInfo().loadLabel(pm));
+                if (info.getResolveInfo().getIconResource() != 0) {
+                    preload(mServiceIcons, component, generations,
+                            () -> info.getResolveInfo().loadIcon(pm));
+                }
+            }
+        }
+        for (AccessibilityShortcutInfo info : shortcuts) {
+            final ComponentName component = info.getComponentName();
+            if (packageNames.contains(component.getPackageName())) {
+                preload(mShortcutLabels, component, generations,
+                        () -> info.getActivityInfo().loadLabel(pm));
+                if (info.getActivityInfo().getIconResource() != 0) {
+                    preload(mShortcutIcons, component, generations,
+                            () -> info.getActivityInfo().loadIcon(pm));
+                }
+            }
+        }
+    }
+
+    /** Forgets everything remembered about the components of the given package. */
+    public void invalidate(String packageName) {
+        synchronized (mGenerations) {
+            mGenerations.put(packageName, mGenerations.getOrDefault(packageName, 0) + 1);
+            for (Map<ComponentName, ?> cache : List.of(
+                    mServiceLabels, mServiceIcons, mShortcutLabels, mShortcutIcons)) {
+                cache.keySet().removeIf(
+                        component -> packageName.equals(component.getPackageName()));
+            }
+        }
+    }
+
+    private <T> void preload(Map<ComponentName, T> cache, ComponentName component,
+            Map<String, Integer> generations, Supplier<T> loader) {
+        if (cache.containsKey(component)) {
+            return;
+        }
+        final T value = loader.get();
+        if (value == null) {
+            return;
+        }
+        final String packageName = component.getPackageName();
+        synchronized (mGenerations) {
+            // Dropped if the package changed while it was loading.
+            if (generations.get(packageName).equals(
+                    mGenerations.getOrDefault(packageName, 0))) {
+                cache.putIfAbsent(component, value);
+            }
+        }
+    }
+
+    private static <T> T get(Map<ComponentName, T> cache, ComponentName component,
+            Supplier<T> loader) {
+        if (component == null) {
+            return loader.get();
+        }
+        T value = cache.get(component);
+        if (value == null) {
+            value = loader.get();
+            if (value != null) {
+                cache.put(component, value);
+            }
+        }
+        return value;
+    }
+
+    private static Drawable newInstance(Drawable icon) {
+        // Drawables keep per-view state, each preference needs its own instance.
+        if (icon == null || icon.getConstantState() == null) {
+            return icon;
+        }
+        return icon.getConstantState().newDrawable();
+    }
+}
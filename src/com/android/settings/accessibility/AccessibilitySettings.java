@@ -21,8 +21,6 @@ import android.accessibilityservice.AccessibilityShortcutInfo;
 import android.app.settings.SettingsEnums;
 import android.content.ComponentName;
 import android.content.Context;
-import android.content.pm.ActivityInfo;
-import android.content.pm.ServiceInfo;
 import android.hardware.input.InputManager;
 import android.os.Bundle;
 import android.os.Handler;
@@ -30,6 +28,8 @@ import android.os.UserHandle;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Pair;
 import android.view.InputDevice;
 import android.view.accessibility.AccessibilityManager;
 
@@ -51,11 +51,13 @@ import com.android.settingslib.RestrictedPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.search.SearchIndexable;
 import com.android.settingslib.search.SearchIndexableRaw;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /** Activity with the accessibility settings. */
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
@@ -106,42 +108,73 @@ public class AccessibilitySettings extends DashboardFragment implements
 
     private final Handler mHandler = new Handler();
 
+    // Labels and icons of the listed services, only reloaded for the packages that changed.
+    private final AccessibilityComponentCache mComponentCache = new AccessibilityComponentCache();
+
+    // Packages changed since the last update, only accessed on the main thread.
+    private final Set<String> mChangedPackages = new ArraySet<>();
+
     private final Runnable mUpdateRunnable = new Runnable() {
         @Override
         public void run() {
-            if (getActivity() != null) {
+            if (getActivity() == null) {
+                return;
+            }
+            if (mChangedPackages.isEmpty()) {
                 onContentChanged();
+                return;
             }
+            // Resolve the changed packages in the background, so the update on the main thread
+            // finds every label and icon in the cache.
+            final Set<String> changedPackages = new ArraySet<>(mChangedPackages);
+            mChangedPackages.clear();
+            final Context context = getPrefContext();
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
+                mComponentCache.preload(a11yManager.getInstalledAccessibilityServiceList(),
+                        a11yManager.getInstalledAccessibilityShortcutListAsUser(context,
+                                UserHandle.myUserId()),
+                        changedPackages, context.getPackageManager());
+                ThreadUtils.postOnMainThread(() -> {
+                    if (getActivity() != null) {
+                        onContentChanged();
+                    }
+                });
+            });
         }
     };
 
     private final PackageMonitor mSettingsPackageMonitor = new PackageMonitor() {
         @Override
         public void onPackageAdded(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageModified(@NonNull String packageName) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageAppeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageDisappeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageRemoved(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
-        private void sendUpdate() {
+        private void sendUpdate(String packageName) {
+            mComponentCache.invalidate(packageName);
+            mChangedPackages.add(packageName);
+            // Merge the callbacks of a single package operation into one update.
+            mHandler.removeCallbacks(mUpdateRunnable);
             mHandler.postDelayed(mUpdateRunnable, DELAY_UPDATE_SERVICES_MILLIS);
         }
     };
@@ -437,7 +470,8 @@ public class AccessibilitySettings extends DashboardFragment implements
 
     private List<RestrictedPreference> getInstalledAccessibilityList(Context context) {
         final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
-        final RestrictedPreferenceHelper preferenceHelper = new RestrictedPreferenceHelper(context);
+        final RestrictedPreferenceHelper preferenceHelper =
+                new RestrictedPreferenceHelper(context, mComponentCache);
 
         final List<AccessibilityShortcutInfo> installedShortcutList =
                 a11yManager.getInstalledAccessibilityShortcutListAsUser(context,
@@ -447,8 +481,10 @@ public class AccessibilitySettings extends DashboardFragment implements
         // (getInstalledAccessibilityServiceList).
         final List<AccessibilityServiceInfo> installedServiceList = new ArrayList<>(
                 a11yManager.getInstalledAccessibilityServiceList());
-        installedServiceList.removeIf(
-                target -> containsTargetNameInList(installedShortcutList, target));
+        final Set<Pair<String, String>> shortcutNames = getShortcutNames(installedShortcutList);
+        installedServiceList.removeIf(target -> shortcutNames.contains(Pair.create(
+                target.getResolveInfo().serviceInfo.packageName,
+                mComponentCache.getLabel(target, getPackageManager()).toString())));
 
         final List<RestrictedPreference> activityList =
                 preferenceHelper.createAccessibilityActivityPreferenceList(installedShortcutList);
@@ -463,22 +499,16 @@ public class AccessibilitySettings extends DashboardFragment implements
         return preferenceList;
     }
 
-    private boolean containsTargetNameInList(List<AccessibilityShortcutInfo> shortcutInfos,
-            AccessibilityServiceInfo targetServiceInfo) {
-        final ServiceInfo serviceInfo = targetServiceInfo.getResolveInfo().serviceInfo;
-        final String servicePackageName = serviceInfo.packageName;
-        final CharSequence serviceLabel = serviceInfo.loadLabel(getPackageManager());
-
+    /** Indexes the shortcuts by package and label, to find the services they duplicate. */
+    private Set<Pair<String, String>> getShortcutNames(
+            List<AccessibilityShortcutInfo> shortcutInfos) {
+        final Set<Pair<String, String>> names = new ArraySet<>(shortcutInfos.size());
         for (int i = 0, count = shortcutInfos.size(); i < count; ++i) {
-            final ActivityInfo activityInfo = shortcutInfos.get(i).getActivityInfo();
-            final String activityPackageName = activityInfo.packageName;
-            final CharSequence activityLabel = activityInfo.loadLabel(getPackageManager());
-            if (servicePackageName.equals(activityPackageName)
-                    && serviceLabel.equals(activityLabel)) {
-                return true;
-            }
+            final AccessibilityShortcutInfo shortcutInfo = shortcutInfos.get(i);
+            names.add(Pair.create(shortcutInfo.getActivityInfo().packageName,
+                    mComponentCache.getLabel(shortcutInfo, getPackageManager()).toString()));
         }
-        return false;
+        return names;
     }
 
     private void initializePreBundledServicesMapFromArray(String categoryKey, int key) {
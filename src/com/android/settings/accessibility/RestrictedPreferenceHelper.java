@@ -58,12 +58,22 @@ public class RestrictedPreferenceHelper {
     private final DevicePolicyManager mDpm;
     private final PackageManager mPm;
     private final AppOpsManager mAppOps;
+    private final AccessibilityComponentCache mComponentCache;
 
     public RestrictedPreferenceHelper(Context context) {
+        this(context, new AccessibilityComponentCache());
+    }
+
+    /**
+     * Creates a helper reading labels and icons through the given cache, so they can be reused
+     * across list refreshes.
+     */
+    public RestrictedPreferenceHelper(Context context, AccessibilityComponentCache componentCache) {
         mContext = context;
         mDpm = context.getSystemService(DevicePolicyManager.class);
         mPm = context.getPackageManager();
         mAppOps = context.getSystemService(AppOpsManager.class);
+        mComponentCache = componentCache;
     }
 
     /**
@@ -93,16 +103,18 @@ public class RestrictedPreferenceHelper {
                     resolveInfo.serviceInfo.name);
 
             final String key = componentName.flattenToString();
-            final CharSequence title = resolveInfo.loadLabel(mPm);
+            final CharSequence title = mComponentCache.getLabel(info, mPm);
             final boolean serviceEnabled = enabledServices.contains(componentName);
             final CharSequence summary = AccessibilitySettings.getServiceSummary(
                     mContext, info, serviceEnabled);
             final String fragment = getAccessibilityServiceFragmentTypeName(info);
 
-            Drawable icon = resolveInfo.loadIcon(mPm);
+            final Drawable icon;
             if (resolveInfo.getIconResource() == 0) {
                 icon = ContextCompat.getDrawable(mContext,
                         R.drawable.ic_accessibility_generic);
+            } else {
+                icon = mComponentCache.getIcon(info, mPm);
             }
 
             final RestrictedPreference preference = createRestrictedPreference(key, title,
@@ -158,14 +170,16 @@ public class RestrictedPreferenceHelper {
             final ComponentName componentName = info.getComponentName();
 
             final String key = componentName.flattenToString();
-            final CharSequence title = activityInfo.loadLabel(mPm);
+            final CharSequence title = mComponentCache.getLabel(info, mPm);
             final String summary = info.loadSummary(mPm);
             final String fragment =
                     LaunchAccessibilityActivityPreferenceFragment.class.getName();
 
-            Drawable icon = activityInfo.loadIcon(mPm);
+            final Drawable icon;
             if (activityInfo.getIconResource() == 0) {
                 icon = ContextCompat.getDrawable(mContext, R.drawable.ic_accessibility_generic);
+            } else {
+                icon = mComponentCache.getIcon(info, mPm);
             }
 
             final RestrictedPreference preference = createRestrictedPreference(key, title,
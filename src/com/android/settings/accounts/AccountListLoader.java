@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accounts;
+
+import android.accounts.Account;
+import android.accounts.AccountManager;
+import android.accounts.AuthenticatorDescription;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.UserHandle;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.accounts.AuthenticatorHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the accounts of a profile shown by {@link AccountPreferenceController}, meant to be called
+ * off the main thread with a {@link #snapshot} of the {@link AuthenticatorHelper} taken on the main
+ * thread, where the helper is updated.
+ *
+ * <p>What the list shows for an account type is kept until {@link #invalidate} is called for the
+ * profile or the authenticator package is updated, so reloading the list after the accounts
+ * changed only queries the accounts.</p>
+ */
+class AccountListLoader {
+
+    private static final String TAG = "AccountListLoader";
+
+    /** What the {@link AuthenticatorHelper} knows about an account type. */
+    static class AccountTypeSnapshot {
+        final String accountType;
+        @Nullable
+        final AuthenticatorDescription description;
+        @Nullable
+        final List<String> authorities;
+
+        AccountTypeSnapshot(String accountType, @Nullable AuthenticatorDescription description,
+                @Nullable List<String> authorities) {
+            this.accountType = accountType;
+            this.description = description;
+            this.authorities = authorities == null ? null : new ArrayList<>(authorities);
+        }
+    }
+
+    /** What the list shows for an account type. */
+    @VisibleForTesting
+    static class AccountTypeInfo {
+        /** Null if the type isn't shown. */
+        @Nullable
+        final CharSequence label;
+        final String titleResPackageName;
+        final int titleResId;
+        final Drawable icon;
+        @Nullable
+        final List<String> authorities;
+        /** When the authenticator package was last updated, to know when to look it up again. */
+        final long packageUpdateTime;
+
+        AccountTypeInfo(@Nullable CharSequence label, String titleResPackageName, int titleResId,
+                Drawable icon, @Nullable List<String> authorities, long packageUpdateTime) {
+            this.label = label;
+            this.titleResPackageName = titleResPackageName;
+            this.titleResId = titleResId;
+            this.icon = icon;
+            this.authorities = authorities;
+            this.packageUpdateTime = packageUpdateTime;
+        }
+    }
+
+    /** An account to show, with what the list shows for its type. */
+    static class AccountEntry {
+        final Account account;
+        final String key;
+        final AccountTypeInfo typeInfo;
+
+        AccountEntry(Account account, AccountTypeInfo typeInfo) {
+            this.account = account;
+            this.key = AccountTypePreference.buildKey(account);
+            this.typeInfo = typeInfo;
+        }
+    }
+
+    /** The changes to apply to the accounts shown for a profile. */
+    static class AccountListDiff {
+        /** Every account to show, in the order to show them. */
+        final List<AccountEntry> accounts;
+        /** Keys of the shown accounts to remove. */
+        final List<String> removedKeys;
+
+        AccountListDiff(List<AccountEntry> accounts, List<String> removedKeys) {
+            this.accounts = accounts;
+            this.removedKeys = removedKeys;
+        }
+    }
+
+    private static final Comparator<AccountEntry> ENTRY_COMPARATOR = (e1, e2) -> {
+        // Same order as the preferences: by summary, then by title.
+        final int result = e1.typeInfo.label.toString().compareTo(e2.typeInfo.label.toString());
+        return result != 0 ? result : e1.account.name.compareTo(e2.account.name);
+    };
+
+    private final Context mContext;
+    private final String[] mAuthorities;
+    // "userId:accountType" -> info. Guarded by itself.
+    private final Map<String, AccountTypeInfo> mTypeInfos = new ArrayMap<>();
+
+    AccountListLoader(Context context, @Nullable String[] authorities) {
+        mContext = context;
+        mAuthorities = authorities;
+    }
+
+    /**
+     * Reads what {@link #load} needs from the helper, which its receiver updates on the main
+     * thread.
+     */
+    @UiThread
+    static List<AccountTypeSnapshot> snapshot(AuthenticatorHelper helper) {
+        final List<AccountTypeSnapshot> types = new ArrayList<>();
+        for (String accountType : helper.getEnabledAccountTypes()) {
+            types.add(new AccountTypeSnapshot(accountType,
+                    helper.getAccountTypeDescription(accountType),
+                    helper.getAuthoritiesForAccountType(accountType)));
+        }
+        return types;
+    }
+
+    /**
+     * Loads the accounts of the given profile and compares them with the shown ones.
+     *
+     * @param types the {@link #snapshot} of the helper of the profile.
+     * @param shownKeys the keys of the accounts currently shown for the profile.
+     */
+    AccountListDiff load(List<AccountTypeSnapshot> types, UserHandle userHandle,
+            Collection<String> shownKeys) {
+        final List<AccountEntry> entries = new ArrayList<>();
+        for (AccountTypeSnapshot type : types) {
+            final String accountType = type.accountType;
+            final AccountTypeInfo typeInfo = getTypeInfo(type, userHandle);
+            // Skip showing any account that does not have any of the requested authorities
+            if (typeInfo.label == null || !hasAnyRequestedAuthorities(typeInfo.authorities)) {
+                continue;
+            }
+            final Account[] accounts = getAccounts(accountType, userHandle);
+            for (Account account : accounts) {
+                final AccountEntry entry = new AccountEntry(account, typeInfo);
+                if (shownKeys.contains(entry.key)
+                        || AccountRestrictionHelper.showAccount(mAuthorities,
+                                typeInfo.authorities)) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort(ENTRY_COMPARATOR);
+
+        final List<String> removedKeys = new ArrayList<>(shownKeys);
+        for (AccountEntry entry : entries) {
+            removedKeys.remove(entry.key);
+        }
+        return new AccountListDiff(entries, removedKeys);
+    }
+
+    /** Forgets what is known about the account types of the given profile. */
+    void invalidate(int userId) {
+        final String prefix = userId + ":";
+        synchronized (mTypeInfos) {
+            mTypeInfos.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    @VisibleForTesting
+    Account[] getAccounts(String accountType, UserHandle userHandle) {
+        return AccountManager.get(mContext).getAccountsByTypeAsUser(accountType, userHandle);
+    }
+
+    @VisibleForTesting
+    long getPackageUpdateTime(String packageName, UserHandle userHandle) {
+        try {
+            return mContext.getPackageManager().getPackageInfoAsUser(packageName, 0 /* flags */,
+                    userHandle.getIdentifier()).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            return 0;
+        }
+    }
+
+    /** Returns the label of the account type, as {@link AuthenticatorHelper} does. */
+    @VisibleForTesting
+    @Nullable
+    CharSequence loadLabel(AuthenticatorDescription description, UserHandle userHandle) {
+        try {
+            return mContext.createPackageContextAsUser(description.packageName, 0 /* flags */,
+                    userHandle).getResources().getText(description.labelId);
+        } catch (PackageManager.NameNotFoundException | Resources.NotFoundException e) {
+            Log.w(TAG, "No label for account type " + description.type);
+            return null;
+        }
+    }
+
+    /** Returns the badged icon of the account type, as {@link AuthenticatorHelper} does. */
+    @VisibleForTesting
+    Drawable loadIcon(AuthenticatorDescription description, UserHandle userHandle) {
+        final PackageManager pm = mContext.getPackageManager();
+        try {
+            final Context authContext = mContext.createPackageContextAsUser(
+                    description.packageName, 0 /* flags */, userHandle);
+            return pm.getUserBadgedIcon(authContext.getDrawable(description.iconId),
+                    userHandle);
+        } catch (PackageManager.NameNotFoundException | Resources.NotFoundException e) {
+            return pm.getDefaultActivityIcon();
+        }
+    }
+
+    private AccountTypeInfo getTypeInfo(AccountTypeSnapshot type, UserHandle userHandle) {
+        final String key = userHandle.getIdentifier() + ":" + type.accountType;
+        final AuthenticatorDescription description = type.description;
+        final String packageName = description != null ? description.packageName : null;
+        final long packageUpdateTime =
+                packageName != null ? getPackageUpdateTime(packageName, userHandle) : 0;
+        synchronized (mTypeInfos) {
+            final AccountTypeInfo typeInfo = mTypeInfos.get(key);
+            // Another package may have taken over the type, or the package may have been
+            // updated, while no broadcast was received.
+            if (typeInfo != null
+                    && TextUtils.equals(typeInfo.titleResPackageName, packageName)
+                    && typeInfo.packageUpdateTime == packageUpdateTime) {
+                return typeInfo;
+            }
+        }
+        final CharSequence label =
+                description != null ? loadLabel(description, userHandle) : null;
+        final AccountTypeInfo typeInfo;
+        if (label == null) {
+            typeInfo = new AccountTypeInfo(null, packageName, 0, null, null, packageUpdateTime);
+        } else {
+            typeInfo = new AccountTypeInfo(label, packageName, description.labelId,
+                    loadIcon(description, userHandle), type.authorities, packageUpdateTime);
+            if (typeInfo.authorities == null) {
+                Log.d(TAG, "No sync authorities for account type: " + type.accountType);
+            }
+        }
+        synchronized (mTypeInfos) {
+            mTypeInfos.put(key, typeInfo);
+        }
+        return typeInfo;
+    }
+
+    private boolean hasAnyRequestedAuthorities(@Nullable List<String> authoritiesForType) {
+        if (mAuthorities == null || mAuthorities.length == 0) {
+            // No authorities required
+            return true;
+        }
+        if (authoritiesForType == null) {
+            return false;
+        }
+        for (String authority : mAuthorities) {
+            if (authoritiesForType.contains(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
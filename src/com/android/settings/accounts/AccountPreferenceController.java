@@ -33,7 +33,6 @@ import static android.provider.Settings.ACTION_ADD_ACCOUNT;
 import static android.provider.Settings.EXTRA_AUTHORITIES;
 
 import android.accounts.Account;
-import android.accounts.AccountManager;
 import android.app.admin.DevicePolicyManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
@@ -44,7 +43,6 @@ import android.content.pm.PackageManager;
 import android.content.pm.UserInfo;
 import android.content.pm.UserProperties;
 import android.content.res.Resources;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Flags;
 import android.os.UserHandle;
@@ -76,11 +74,11 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnPause;
 import com.android.settingslib.core.lifecycle.events.OnResume;
 import com.android.settingslib.search.SearchIndexableRaw;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class AccountPreferenceController extends AbstractPreferenceController
         implements PreferenceControllerMixin, AuthenticatorHelper.OnAccountsUpdateListener,
@@ -103,12 +101,14 @@ public class AccountPreferenceController extends AbstractPreferenceController
     private ManagedProfileBroadcastReceiver mManagedProfileBroadcastReceiver =
             new ManagedProfileBroadcastReceiver();
     private String[] mAuthorities;
-    private int mAuthoritiesCount = 0;
     private DashboardFragment mFragment;
     private int mAccountProfileOrder = ORDER_ACCOUNT_PROFILES;
     private AccountRestrictionHelper mHelper;
     private MetricsFeatureProvider mMetricsFeatureProvider;
     private @ProfileSelectFragment.ProfileType int mType;
+    private final AccountListLoader mAccountListLoader;
+    private Executor mBackgroundExecutor = ThreadUtils::postOnBackgroundThread;
+    private Executor mMainExecutor = ThreadUtils::postOnMainThread;
 
     /**
      * Holds data related to the accounts belonging to one profile.
@@ -146,6 +146,10 @@ public class AccountPreferenceController extends AbstractPreferenceController
          * The map from account key to account preference
          */
         public ArrayMap<String, AccountTypePreference> accountPreferences = new ArrayMap<>();
+        /**
+         * Bumped for every load of the accounts, so only the latest one is applied.
+         */
+        int loadGeneration;
     }
 
     public AccountPreferenceController(Context context, DashboardFragment parent,
@@ -162,13 +166,17 @@ public class AccountPreferenceController extends AbstractPreferenceController
         mDpm = context.getSystemService(DevicePolicyManager.class);
         mAuthorities = authorities;
         mFragment = parent;
-        if (mAuthorities != null) {
-            mAuthoritiesCount = mAuthorities.length;
-        }
         final FeatureFactory featureFactory = FeatureFactory.getFeatureFactory();
         mMetricsFeatureProvider = featureFactory.getMetricsFeatureProvider();
         mHelper = helper;
         mType = type;
+        mAccountListLoader = new AccountListLoader(context, authorities);
+    }
+
+    @VisibleForTesting
+    void setExecutors(Executor backgroundExecutor, Executor mainExecutor) {
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
     }
 
     @Override
@@ -240,6 +248,8 @@ public class AccountPreferenceController extends AbstractPreferenceController
     public void onAccountsUpdate(UserHandle userHandle) {
         final ProfileData profileData = mProfiles.get(userHandle.getIdentifier());
         if (profileData != null) {
+            // Authenticators may have been added, removed or updated as well.
+            mAccountListLoader.invalidate(userHandle.getIdentifier());
             updateAccountTypes(profileData);
         } else {
             Log.w(TAG, "Missing Settings screen for: " + userHandle.getIdentifier());
@@ -533,31 +543,15 @@ public class AccountPreferenceController extends AbstractPreferenceController
             return;
         }
         if (profileData.userInfo.isEnabled()) {
-            final ArrayMap<String, AccountTypePreference> preferenceToRemove =
-                    new ArrayMap<>(profileData.accountPreferences);
-            final ArrayList<AccountTypePreference> preferences = getAccountTypePreferences(
-                    profileData.authenticatorHelper, profileData.userInfo.getUserHandle(),
-                    preferenceToRemove);
-            final int count = preferences.size();
-            for (int i = 0; i < count; i++) {
-                final AccountTypePreference preference = preferences.get(i);
-                preference.setOrder(i);
-                final String key = preference.getKey();
-                if (!profileData.accountPreferences.containsKey(key)) {
-                    profileData.preferenceGroup.addPreference(preference);
-                    profileData.accountPreferences.put(key, preference);
-                }
-            }
+            loadAccounts(profileData);
             if (profileData.addAccountPreference != null) {
                 profileData.preferenceGroup.addPreference(profileData.addAccountPreference);
             }
-            for (String key : preferenceToRemove.keySet()) {
-                profileData.preferenceGroup.removePreference(
-                        profileData.accountPreferences.get(key));
-                profileData.accountPreferences.remove(key);
-            }
         } else {
+            // Drop any list still loading for the profile.
+            profileData.loadGeneration++;
             profileData.preferenceGroup.removeAll();
+            profileData.accountPreferences.clear();
             // Put a label instead of the accounts list
             final Preference profileNotAvailablePreference =
                     new Preference(mFragment.getPreferenceManager().getContext());
@@ -581,92 +575,76 @@ public class AccountPreferenceController extends AbstractPreferenceController
         }
     }
 
-    private ArrayList<AccountTypePreference> getAccountTypePreferences(AuthenticatorHelper helper,
-            UserHandle userHandle, ArrayMap<String, AccountTypePreference> preferenceToRemove) {
-        final String[] accountTypes = helper.getEnabledAccountTypes();
-        final ArrayList<AccountTypePreference> accountTypePreferences =
-                new ArrayList<>(accountTypes.length);
-
-        for (int i = 0; i < accountTypes.length; i++) {
-            final String accountType = accountTypes[i];
-            // Skip showing any account that does not have any of the requested authorities
-            if (!accountTypeHasAnyRequestedAuthorities(helper, accountType)) {
-                continue;
-            }
-            final CharSequence label = helper.getLabelForType(mContext, accountType);
-            if (label == null) {
-                continue;
-            }
-            final String titleResPackageName = helper.getPackageForType(accountType);
-            final int titleResId = helper.getLabelIdForType(accountType);
-
-            final Account[] accounts = AccountManager.get(mContext)
-                    .getAccountsByTypeAsUser(accountType, userHandle);
-            final Drawable icon = helper.getDrawableForType(mContext, accountType);
-            final Context prefContext = mFragment.getPreferenceManager().getContext();
-
-            // Add a preference row for each individual account
-            for (Account account : accounts) {
-                final AccountTypePreference preference =
-                        preferenceToRemove.remove(AccountTypePreference.buildKey(account));
-                if (preference != null) {
-                    accountTypePreferences.add(preference);
-                    continue;
-                }
-                final ArrayList<String> auths =
-                        helper.getAuthoritiesForAccountType(account.type);
-                if (!AccountRestrictionHelper.showAccount(mAuthorities, auths)) {
-                    continue;
+    /**
+     * Loads the accounts of the profile in the background, each profile on its own thread, and
+     * applies the changes to its list on the main thread.
+     */
+    private void loadAccounts(ProfileData profileData) {
+        final int generation = ++profileData.loadGeneration;
+        // The helper is updated on the main thread, only its snapshot goes to the background.
+        final List<AccountListLoader.AccountTypeSnapshot> types =
+                AccountListLoader.snapshot(profileData.authenticatorHelper);
+        final UserHandle userHandle = profileData.userInfo.getUserHandle();
+        final List<String> shownKeys = new ArrayList<>(profileData.accountPreferences.keySet());
+        mBackgroundExecutor.execute(() -> {
+            final AccountListLoader.AccountListDiff diff =
+                    mAccountListLoader.load(types, userHandle, shownKeys);
+            mMainExecutor.execute(() -> {
+                if (generation != profileData.loadGeneration
+                        || mProfiles.get(userHandle.getIdentifier()) != profileData
+                        || mFragment.getPreferenceManager() == null) {
+                    // Outdated, or the screen went away meanwhile.
+                    return;
                 }
-                final Bundle fragmentArguments = new Bundle();
-                fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_ACCOUNT,
-                        account);
-                fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_USER_HANDLE,
-                        userHandle);
-                fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_TYPE,
-                        accountType);
-                fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_LABEL,
-                        label.toString());
-                fragmentArguments.putInt(AccountDetailDashboardFragment.KEY_ACCOUNT_TITLE_RES,
-                        titleResId);
-                fragmentArguments.putParcelable(EXTRA_USER, userHandle);
-                accountTypePreferences.add(new AccountTypePreference(
-                        prefContext, mMetricsFeatureProvider.getMetricsCategory(mFragment),
-                        account, titleResPackageName, titleResId, label,
-                        AccountDetailDashboardFragment.class.getName(), fragmentArguments, icon));
-            }
-            helper.preloadDrawableForType(mContext, accountType);
-        }
-        // Sort by label
-        Collections.sort(accountTypePreferences, new Comparator<AccountTypePreference>() {
-            @Override
-            public int compare(AccountTypePreference t1, AccountTypePreference t2) {
-                int result = t1.getSummary().toString().compareTo(t2.getSummary().toString());
-                return result != 0
-                        ? result : t1.getTitle().toString().compareTo(t2.getTitle().toString());
-            }
+                applyAccounts(profileData, diff);
+            });
         });
-        return accountTypePreferences;
     }
 
-    private boolean accountTypeHasAnyRequestedAuthorities(AuthenticatorHelper helper,
-            String accountType) {
-        if (mAuthoritiesCount == 0) {
-            // No authorities required
-            return true;
-        }
-        final ArrayList<String> authoritiesForType = helper.getAuthoritiesForAccountType(
-                accountType);
-        if (authoritiesForType == null) {
-            Log.d(TAG, "No sync authorities for account type: " + accountType);
-            return false;
+    private void applyAccounts(ProfileData profileData, AccountListLoader.AccountListDiff diff) {
+        final Context prefContext = mFragment.getPreferenceManager().getContext();
+        final UserHandle userHandle = profileData.userInfo.getUserHandle();
+        final int count = diff.accounts.size();
+        for (int i = 0; i < count; i++) {
+            final AccountListLoader.AccountEntry entry = diff.accounts.get(i);
+            AccountTypePreference preference = profileData.accountPreferences.get(entry.key);
+            if (preference == null) {
+                preference = newAccountTypePreference(prefContext, entry, userHandle);
+                profileData.accountPreferences.put(entry.key, preference);
+                preference.setOrder(i);
+                profileData.preferenceGroup.addPreference(preference);
+            } else {
+                preference.setOrder(i);
+            }
         }
-        for (int j = 0; j < mAuthoritiesCount; j++) {
-            if (authoritiesForType.contains(mAuthorities[j])) {
-                return true;
+        for (String key : diff.removedKeys) {
+            final AccountTypePreference preference = profileData.accountPreferences.remove(key);
+            if (preference != null) {
+                profileData.preferenceGroup.removePreference(preference);
             }
         }
-        return false;
+    }
+
+    private AccountTypePreference newAccountTypePreference(Context prefContext,
+            AccountListLoader.AccountEntry entry, UserHandle userHandle) {
+        final Account account = entry.account;
+        final AccountListLoader.AccountTypeInfo typeInfo = entry.typeInfo;
+        final Bundle fragmentArguments = new Bundle();
+        fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_ACCOUNT, account);
+        fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_USER_HANDLE,
+                userHandle);
+        fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_TYPE,
+                account.type);
+        fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_LABEL,
+                typeInfo.label.toString());
+        fragmentArguments.putInt(AccountDetailDashboardFragment.KEY_ACCOUNT_TITLE_RES,
+                typeInfo.titleResId);
+        fragmentArguments.putParcelable(EXTRA_USER, userHandle);
+        return new AccountTypePreference(
+                prefContext, mMetricsFeatureProvider.getMetricsCategory(mFragment),
+                account, typeInfo.titleResPackageName, typeInfo.titleResId, typeInfo.label,
+                AccountDetailDashboardFragment.class.getName(), fragmentArguments,
+                typeInfo.icon);
     }
 
     private boolean isSingleProfile() {
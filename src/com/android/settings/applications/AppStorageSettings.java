@@ -53,6 +53,7 @@ import androidx.preference.PreferenceCategory;
 import com.android.settings.R;
 import com.android.settings.Utils;
 import com.android.settings.deviceinfo.StorageWizardMoveConfirm;
+import com.android.settings.spa.app.storage.AppStorageSizeRepository;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.applications.ApplicationsState.Callbacks;
@@ -596,6 +597,8 @@ public class AppStorageSettings extends AppInfoWithHeader
                     break;
                 case MSG_CLEAR_CACHE:
                     mCacheCleared = true;
+                    AppStorageSizeRepository.getInstance(getContext())
+                            .invalidate(mPackageName, mUserId);
                     // Refresh size info
                     updateSize();
                     break;
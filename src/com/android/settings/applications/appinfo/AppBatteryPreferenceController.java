@@ -160,9 +160,10 @@ public class AppBatteryPreferenceController extends BasePreferenceController
 
     @Override
     public void onPause() {
+        // Releases the stats the loader holds.
         mParent.getLoaderManager().destroyLoader(
                 AppInfoDashboardFragment.LOADER_BATTERY_USAGE_STATS);
-        closeBatteryUsageStats();
+        mBatteryUsageStats = null;
     }
 
     private void loadBatteryDiffEntries() {
@@ -251,7 +252,6 @@ public class AppBatteryPreferenceController extends BasePreferenceController
         @Override
         public void onLoadFinished(Loader<BatteryUsageStats> loader,
                 BatteryUsageStats batteryUsageStats) {
-            closeBatteryUsageStats();
             mBatteryUsageStats = batteryUsageStats;
             AppBatteryPreferenceController.this.onLoadFinished();
         }
@@ -260,16 +260,4 @@ public class AppBatteryPreferenceController extends BasePreferenceController
         public void onLoaderReset(Loader<BatteryUsageStats> loader) {
         }
     }
-
-    private void closeBatteryUsageStats() {
-        if (mBatteryUsageStats != null) {
-            try {
-                mBatteryUsageStats.close();
-            } catch (Exception e) {
-                Log.e(TAG, "BatteryUsageStats.close() failed", e);
-            } finally {
-                mBatteryUsageStats = null;
-            }
-        }
-    }
 }
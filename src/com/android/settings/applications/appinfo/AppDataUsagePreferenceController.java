@@ -20,6 +20,7 @@ import android.content.Context;
 import android.net.NetworkTemplate;
 import android.os.Bundle;
 import android.os.Process;
+import android.os.UserHandle;
 import android.text.format.DateUtils;
 import android.text.format.Formatter;
 
@@ -116,6 +117,11 @@ public class AppDataUsagePreferenceController extends AppInfoPreferenceControlle
             List<NetworkCycleDataForUid> data) {
         mAppUsageData = data;
         updateState(mPreference);
+        if (mAppEntry != null && mAppEntry.info != null) {
+            AppInfoSummaryCache.getInstance(mContext).putSummary(mAppEntry.info.packageName,
+                    UserHandle.myUserId(), AppInfoSummaryCache.FIELD_DATA_USAGE,
+                    mPreference.getSummary());
+        }
     }
 
     @Override
@@ -147,6 +153,14 @@ public class AppDataUsagePreferenceController extends AppInfoPreferenceControlle
                     DateUtils.formatDateTime(mContext, startTime,
                             DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_ABBREV_MONTH));
         }
+        if (mAppEntry != null && mAppEntry.info != null) {
+            final CharSequence cachedSummary = AppInfoSummaryCache.getInstance(mContext)
+                    .getSummary(mAppEntry.info.packageName, UserHandle.myUserId(),
+                            AppInfoSummaryCache.FIELD_DATA_USAGE);
+            if (cachedSummary != null) {
+                return cachedSummary;
+            }
+        }
         return mContext.getString(R.string.computing_size);
     }
 
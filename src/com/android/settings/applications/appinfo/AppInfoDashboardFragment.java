@@ -247,6 +247,9 @@ public class AppInfoDashboardFragment extends DashboardFragment
             return;
         }
         startListeningToPackageRemove();
+        // Read the last summaries of the rows while the page is being built.
+        AppInfoSummaryCache.getInstance(activity).prefetch(getPackageName(),
+                UserHandle.myUserId());
 
         setHasOptionsMenu(true);
         replaceEnterpriseStringTitle("interact_across_profiles",
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.text.TextUtils;
+import android.text.format.DateUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.applications.appinfo.db.AppInfoSummaryDao;
+import com.android.settings.applications.appinfo.db.AppInfoSummaryDatabase;
+import com.android.settings.applications.appinfo.db.AppInfoSummaryEntity;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Process wide cache of the summaries shown on the app info page of the recently opened apps,
+ * so opening one of them again shows its rows right away while they are computed again.
+ *
+ * <p>The summaries of a package are read from disk together, in one background query, by
+ * {@link #prefetch}. Each summary expires on its own after {@link #getMaxAgeMillis}, and is
+ * dropped as soon as a broadcast tells the package or the locale changed.</p>
+ */
+public class AppInfoSummaryCache {
+
+    private static final String TAG = "AppInfoSummaryCache";
+
+    public static final String FIELD_STORAGE = "storage";
+    public static final String FIELD_DATA_USAGE = "data_usage";
+    public static final String FIELD_NOTIFICATIONS = "notifications";
+    public static final String FIELD_PERMISSIONS = "permissions";
+
+    private static final int MAX_PACKAGES = 16;
+    private static final long MAX_AGE_MILLIS = DateUtils.DAY_IN_MILLIS;
+
+    private static AppInfoSummaryCache sInstance;
+
+    private static class Summary {
+        final String mSummary;
+        final long mTimestamp;
+
+        Summary(String summary, long timestamp) {
+            mSummary = summary;
+            mTimestamp = timestamp;
+        }
+    }
+
+    private final AppInfoSummaryDao mDao;
+    private final Executor mExecutor;
+    // "userId/packageName" -> field -> summary. Guarded by itself.
+    private final LruCache<String, Map<String, Summary>> mSummaries =
+            new LruCache<>(MAX_PACKAGES);
+
+    @VisibleForTesting
+    final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+                invalidateAll();
+                return;
+            }
+            final Uri data = intent.getData();
+            if (data != null) {
+                invalidate(data.getSchemeSpecificPart());
+            }
+        }
+    };
+
+    /** Returns the process wide cache. */
+    public static synchronized AppInfoSummaryCache getInstance(Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            sInstance = new AppInfoSummaryCache(
+                    AppInfoSummaryDatabase.getInstance(appContext).appInfoSummaryDao(),
+                    Executors.newSingleThreadExecutor());
+            sInstance.registerReceivers(appContext);
+            sInstance.mExecutor.execute(() -> sInstance.mDao.clearAllBefore(
+                    System.currentTimeMillis() - MAX_AGE_MILLIS));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    AppInfoSummaryCache(AppInfoSummaryDao dao, Executor executor) {
+        mDao = dao;
+        mExecutor = executor;
+    }
+
+    private void registerReceivers(Context context) {
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_DATA_CLEARED);
+        packageFilter.addDataScheme("package");
+        context.registerReceiverForAllUsers(mReceiver, packageFilter, null /* permission */,
+                null /* scheduler */);
+        context.registerReceiverForAllUsers(mReceiver,
+                new IntentFilter(Intent.ACTION_LOCALE_CHANGED), null /* permission */,
+                null /* scheduler */);
+    }
+
+    /** Starts reading the saved summaries of the given package unless they are in memory. */
+    public void prefetch(String packageName, int userId) {
+        final String key = buildKey(packageName, userId);
+        synchronized (mSummaries) {
+            if (mSummaries.get(key) != null) {
+                return;
+            }
+            mSummaries.put(key, new ArrayMap<>());
+        }
+        mExecutor.execute(() -> {
+            final List<AppInfoSummaryEntity> entities;
+            try {
+                entities = mDao.getAll(packageName, userId);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Unable to read the summaries of " + packageName, e);
+                return;
+            }
+            final String locale = Locale.getDefault().toLanguageTag();
+            synchronized (mSummaries) {
+                final Map<String, Summary> summaries = mSummaries.get(key);
+                if (summaries == null) {
+                    // Invalidated meanwhile.
+                    return;
+                }
+                for (AppInfoSummaryEntity entity : entities) {
+                    // Anything put meanwhile is newer.
+                    if (TextUtils.equals(entity.locale, locale)
+                            && !summaries.containsKey(entity.field)) {
+                        summaries.put(entity.field,
+                                new Summary(entity.summary, entity.timestamp));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the last summary of the given row of the app info page of a package, or
+     * {@code null} if none is known or it expired.
+     */
+    @Nullable
+    public CharSequence getSummary(String packageName, int userId, String field) {
+        final Summary summary;
+        synchronized (mSummaries) {
+            final Map<String, Summary> summaries = mSummaries.get(buildKey(packageName, userId));
+            summary = summaries != null ? summaries.get(field) : null;
+        }
+        if (summary == null || now() - summary.mTimestamp >= getMaxAgeMillis(field)) {
+            return null;
+        }
+        return summary.mSummary;
+    }
+
+    /** Saves the summary just computed for the given row of the app info page of a package. */
+    public void putSummary(String packageName, int userId, String field,
+            @Nullable CharSequence summary) {
+        if (TextUtils.isEmpty(summary)) {
+            return;
+        }
+        final String value = summary.toString();
+        final long now = now();
+        final String key = buildKey(packageName, userId);
+        synchronized (mSummaries) {
+            Map<String, Summary> summaries = mSummaries.get(key);
+            if (summaries == null) {
+                summaries = new ArrayMap<>();
+                mSummaries.put(key, summaries);
+            }
+            final Summary previous = summaries.get(field);
+            if (previous != null && TextUtils.equals(previous.mSummary, value)
+                    && now - previous.mTimestamp < getMaxAgeMillis(field) / 2) {
+                // Recent enough, skip the write.
+                return;
+            }
+            summaries.put(field, new Summary(value, now));
+        }
+        final String locale = Locale.getDefault().toLanguageTag();
+        mExecutor.execute(() -> {
+            try {
+                mDao.insert(new AppInfoSummaryEntity(packageName, userId, field, value, locale,
+                        now));
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Unable to save the " + field + " summary of " + packageName, e);
+            }
+        });
+    }
+
+    /** Forgets the summaries of the given package, for every user. */
+    public void invalidate(String packageName) {
+        final String suffix = "/" + packageName;
+        synchronized (mSummaries) {
+            for (String key : mSummaries.snapshot().keySet()) {
+                if (key.endsWith(suffix)) {
+                    mSummaries.remove(key);
+                }
+            }
+        }
+        mExecutor.execute(() -> mDao.delete(packageName));
+    }
+
+    /** Forgets every summary. */
+    public void invalidateAll() {
+        synchronized (mSummaries) {
+            mSummaries.evictAll();
+        }
+        mExecutor.execute(mDao::clearAll);
+    }
+
+    @VisibleForTesting
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    /** Returns how long a summary of the given row is shown before it is computed again. */
+    @VisibleForTesting
+    static long getMaxAgeMillis(String field) {
+        switch (field) {
+            case FIELD_STORAGE:
+            case FIELD_DATA_USAGE:
+                // Keep changing while the app runs.
+                return DateUtils.HOUR_IN_MILLIS;
+            default:
+                return MAX_AGE_MILLIS;
+        }
+    }
+
+    private static String buildKey(String packageName, int userId) {
+        return userId + "/" + packageName;
+    }
+}
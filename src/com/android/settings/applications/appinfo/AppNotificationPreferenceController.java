@@ -21,6 +21,7 @@ import static com.android.settings.SettingsActivity.EXTRA_FRAGMENT_ARG_KEY;
 import android.content.Context;
 import android.icu.text.MessageFormat;
 import android.os.Bundle;
+import android.os.UserHandle;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
@@ -31,6 +32,7 @@ import com.android.settings.notification.NotificationBackend;
 import com.android.settings.notification.app.AppNotificationSettings;
 import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.applications.ApplicationsState;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.HashMap;
 import java.util.Locale;
@@ -64,7 +66,31 @@ public class AppNotificationPreferenceController extends AppInfoPreferenceContro
 
     @Override
     public void updateState(Preference preference) {
-        preference.setSummary(getNotificationSummary(mParent.getAppEntry(), mContext, mBackend));
+        final ApplicationsState.AppEntry appEntry = mParent.getAppEntry();
+        if (appEntry == null || appEntry.info == null) {
+            preference.setSummary(getNotificationSummary(appEntry, mContext, mBackend));
+            return;
+        }
+        final AppInfoSummaryCache cache = AppInfoSummaryCache.getInstance(mContext);
+        final String packageName = appEntry.info.packageName;
+        final int userId = UserHandle.myUserId();
+        final CharSequence cachedSummary = cache.getSummary(packageName, userId,
+                AppInfoSummaryCache.FIELD_NOTIFICATIONS);
+        if (cachedSummary == null) {
+            final CharSequence summary = getNotificationSummary(appEntry, mContext, mBackend);
+            preference.setSummary(summary);
+            cache.putSummary(packageName, userId, AppInfoSummaryCache.FIELD_NOTIFICATIONS,
+                    summary);
+            return;
+        }
+        // Show the last summary right away and check it in the background.
+        preference.setSummary(cachedSummary);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final CharSequence summary = getNotificationSummary(appEntry, mContext, mBackend);
+            cache.putSummary(packageName, userId, AppInfoSummaryCache.FIELD_NOTIFICATIONS,
+                    summary);
+            ThreadUtils.postOnMainThread(() -> preference.setSummary(summary));
+        });
     }
 
     @Override
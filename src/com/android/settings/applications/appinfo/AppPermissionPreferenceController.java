@@ -24,6 +24,8 @@ import android.content.pm.PackageManager;
 import android.content.res.Resources;
 import android.icu.text.ListFormatter;
 import android.icu.text.MessageFormat;
+import android.os.UserHandle;
+import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -90,6 +92,10 @@ public class AppPermissionPreferenceController extends AppInfoPreferenceControll
                 mPreference.setEnabled(true);
             }
             mPreference.setSummary(summary);
+            if (mPackageName != null) {
+                AppInfoSummaryCache.getInstance(mContext).putSummary(mPackageName,
+                        UserHandle.myUserId(), AppInfoSummaryCache.FIELD_PERMISSIONS, summary);
+            }
         }
     };
 
@@ -113,6 +119,15 @@ public class AppPermissionPreferenceController extends AppInfoPreferenceControll
 
     @Override
     public void updateState(Preference preference) {
+        if (mPackageName != null && TextUtils.isEmpty(preference.getSummary())) {
+            // Until the permission controller answers.
+            final CharSequence cachedSummary = AppInfoSummaryCache.getInstance(mContext)
+                    .getSummary(mPackageName, UserHandle.myUserId(),
+                            AppInfoSummaryCache.FIELD_PERMISSIONS);
+            if (cachedSummary != null) {
+                preference.setSummary(cachedSummary);
+            }
+        }
         PermissionsSummaryHelper.getPermissionSummary(mContext, mPackageName, mPermissionCallback);
     }
 
@@ -61,6 +61,15 @@ public class AppStoragePreferenceController extends AppInfoPreferenceControllerB
             return;
         }
 
+        if (mLastResult == null) {
+            final CharSequence cachedSummary = AppInfoSummaryCache.getInstance(mContext)
+                    .getSummary(mAppEntry.info.packageName, UserHandle.myUserId(),
+                            AppInfoSummaryCache.FIELD_STORAGE);
+            if (cachedSummary != null) {
+                preference.setSummary(cachedSummary);
+                return;
+            }
+        }
         final boolean isExternal =
                 (mAppEntry.info.flags & ApplicationInfo.FLAG_EXTERNAL_STORAGE) != 0;
         preference.setSummary(getStorageSummary(mLastResult, isExternal));
@@ -106,6 +115,11 @@ public class AppStoragePreferenceController extends AppInfoPreferenceControllerB
             StorageStatsSource.AppStorageStats result) {
         mLastResult = result;
         updateState(mPreference);
+        if (result != null && AppUtils.isAppInstalled(mAppEntry)) {
+            AppInfoSummaryCache.getInstance(mContext).putSummary(mAppEntry.info.packageName,
+                    UserHandle.myUserId(), AppInfoSummaryCache.FIELD_STORAGE,
+                    mPreference.getSummary());
+        }
     }
 
     @Override
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo.db;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/** Data access object for the app info summaries. */
+@Dao
+public interface AppInfoSummaryDao {
+    /** Inserts or replaces a {@link AppInfoSummaryEntity}. */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insert(AppInfoSummaryEntity entity);
+
+    /** Gets all the summaries of a package. */
+    @Query("SELECT * FROM AppInfoSummaryEntity WHERE packageName = :packageName"
+            + " AND userId = :userId")
+    List<AppInfoSummaryEntity> getAll(String packageName, int userId);
+
+    /** Deletes all the summaries of a package, for every user. */
+    @Query("DELETE FROM AppInfoSummaryEntity WHERE packageName = :packageName")
+    void delete(String packageName);
+
+    /** Deletes all the summaries computed before a specific timestamp. */
+    @Query("DELETE FROM AppInfoSummaryEntity WHERE timestamp <= :timestamp")
+    void clearAllBefore(long timestamp);
+
+    /** Clears all the summaries. */
+    @Query("DELETE FROM AppInfoSummaryEntity")
+    void clearAll();
+}
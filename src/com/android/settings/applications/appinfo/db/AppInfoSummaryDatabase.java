@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo.db;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+/** Database keeping the summaries shown on the app info pages across process restarts. */
+@Database(entities = {AppInfoSummaryEntity.class}, version = 1)
+public abstract class AppInfoSummaryDatabase extends RoomDatabase {
+
+    private static AppInfoSummaryDatabase sInstance;
+
+    /** Provides DAO for the app info summary table. */
+    public abstract AppInfoSummaryDao appInfoSummaryDao();
+
+    /** Gets or creates an instance of {@link RoomDatabase}. */
+    public static synchronized AppInfoSummaryDatabase getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = Room.databaseBuilder(context.getApplicationContext(),
+                            AppInfoSummaryDatabase.class, "app-info-summary-db")
+                    .fallbackToDestructiveMigration()
+                    .build();
+        }
+        return sInstance;
+    }
+}
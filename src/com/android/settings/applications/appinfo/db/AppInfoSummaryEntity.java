@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo.db;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+/** A {@link Entity} class to save the summary of one row of an app info page. */
+@Entity(primaryKeys = {"packageName", "userId", "field"})
+public class AppInfoSummaryEntity {
+    @NonNull
+    public final String packageName;
+    public final int userId;
+    /** The row the summary belongs to, one of the {@code FIELD_} constants of the cache. */
+    @NonNull
+    public final String field;
+    public final String summary;
+    /** The language tag of the locale the summary was formatted with. */
+    public final String locale;
+    /** When the summary was computed, in milliseconds since the epoch. */
+    public final long timestamp;
+
+    public AppInfoSummaryEntity(@NonNull String packageName, int userId, @NonNull String field,
+            String summary, String locale, long timestamp) {
+        this.packageName = packageName;
+        this.userId = userId;
+        this.field = field;
+        this.summary = summary;
+        this.locale = locale;
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lightweight description of a {@link BasePreferenceController} declared in preference xml.
+ * <p/>
+ * A handle only holds what the xml says about the controller; the controller itself is created
+ * through reflection when {@link #materialize(Context)} is called. The reflected constructor is
+ * cached per class, so opening the same screen again does not repeat the lookup.
+ */
+public class PreferenceControllerHandle {
+
+    private static final String TAG = "PrefCtrlHandle";
+
+    private static final Map<String, Constructor<?>> sConstructorCache =
+            new ConcurrentHashMap<>();
+    private static final Map<String, Boolean> sOverridesKeyCache = new ConcurrentHashMap<>();
+
+    private final String mControllerName;
+    @Nullable
+    private final String mKey;
+    private final boolean mIsForWork;
+
+    public PreferenceControllerHandle(@NonNull String controllerName, @Nullable String key,
+            boolean isForWork) {
+        mControllerName = controllerName;
+        mKey = key;
+        mIsForWork = isForWork;
+    }
+
+    /** Returns the class name of the controller. */
+    @NonNull
+    public String getControllerName() {
+        return mControllerName;
+    }
+
+    /** Returns the preference key declared in xml, if any. */
+    @Nullable
+    public String getPreferenceKey() {
+        return mKey;
+    }
+
+    /**
+     * Returns true if the controller will be created with the key from xml and does not override
+     * {@link BasePreferenceController#getPreferenceKey()}, so its key is known without creating
+     * it.
+     */
+    public boolean hasKnownPreferenceKey() {
+        final Constructor<?> constructor = getConstructor();
+        return constructor != null && constructor.getParameterCount() == 2
+                && !overridesPreferenceKey(constructor.getDeclaringClass());
+    }
+
+    /**
+     * Creates the controller, or returns null if it cannot be created. Like
+     * {@link PreferenceControllerListHelper#getPreferenceControllersFromXml}, a controller whose
+     * Context-only constructor fails is created with the key from xml instead.
+     */
+    @Nullable
+    public BasePreferenceController materialize(@NonNull Context context) {
+        final Constructor<?> constructor = getConstructor();
+        if (constructor == null) {
+            Log.w(TAG, "Cannot instantiate controller from reflection: " + mControllerName);
+            return null;
+        }
+        if (constructor.getParameterCount() == 2) {
+            return newInstance(constructor, context);
+        }
+        try {
+            return (BasePreferenceController) constructor.newInstance(context);
+        } catch (InstantiationException | IllegalArgumentException | InvocationTargetException
+                | IllegalAccessException e) {
+            Log.d(TAG, "Could not create Context-only controller for pref: " + mControllerName);
+        }
+        final Constructor<?> keyedConstructor = getKeyedConstructor();
+        if (keyedConstructor == null) {
+            Log.w(TAG, "Cannot instantiate controller from reflection: " + mControllerName);
+            return null;
+        }
+        return newInstance(keyedConstructor, context);
+    }
+
+    @Nullable
+    private BasePreferenceController newInstance(Constructor<?> keyedConstructor,
+            Context context) {
+        try {
+            final BasePreferenceController controller =
+                    (BasePreferenceController) keyedConstructor.newInstance(context, mKey);
+            controller.setForWork(mIsForWork);
+            return controller;
+        } catch (InstantiationException | IllegalArgumentException | InvocationTargetException
+                | IllegalAccessException e) {
+            Log.w(TAG, "Cannot instantiate controller from reflection: " + mControllerName, e);
+            return null;
+        }
+    }
+
+    /** Returns the (Context, String) constructor, only looked up when the other one failed. */
+    @Nullable
+    private Constructor<?> getKeyedConstructor() {
+        try {
+            return filterByKey(
+                    Class.forName(mControllerName).getConstructor(Context.class, String.class));
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private Constructor<?> getConstructor() {
+        final Constructor<?> cached = sConstructorCache.get(mControllerName);
+        if (cached != null) {
+            return filterByKey(cached);
+        }
+        final Class<?> clazz;
+        try {
+            clazz = Class.forName(mControllerName);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        Constructor<?> constructor;
+        try {
+            constructor = clazz.getConstructor(Context.class);
+        } catch (NoSuchMethodException e) {
+            Log.d(TAG, "Could not find Context-only controller for pref: " + mControllerName);
+            try {
+                constructor = clazz.getConstructor(Context.class, String.class);
+            } catch (NoSuchMethodException e2) {
+                return null;
+            }
+        }
+        sConstructorCache.put(mControllerName, constructor);
+        return filterByKey(constructor);
+    }
+
+    @Nullable
+    private Constructor<?> filterByKey(Constructor<?> constructor) {
+        if (constructor.getParameterCount() == 2 && TextUtils.isEmpty(mKey)) {
+            Log.w(TAG, "Controller requires key but it's not defined in xml: " + mControllerName);
+            return null;
+        }
+        return constructor;
+    }
+
+    private static boolean overridesPreferenceKey(Class<?> clazz) {
+        return sOverridesKeyCache.computeIfAbsent(clazz.getName(), name -> {
+            try {
+                return clazz.getMethod("getPreferenceKey").getDeclaringClass()
+                        != BasePreferenceController.class;
+            } catch (NoSuchMethodException e) {
+                return true;
+            }
+        });
+    }
+
+    @VisibleForTesting
+    static void clearConstructorCache() {
+        sConstructorCache.clear();
+        sOverridesKeyCache.clear();
+    }
+}
@@ -52,7 +52,18 @@ public class PreferenceControllerListHelper {
     @NonNull
     public static List<BasePreferenceController> getPreferenceControllersFromXml(Context context,
             @XmlRes int xmlResId) {
-        final List<BasePreferenceController> controllers = new ArrayList<>();
+        return materializeControllers(context,
+                getPreferenceControllerHandlesFromXml(context, xmlResId));
+    }
+
+    /**
+     * Returns a {@link PreferenceControllerHandle} for every controller declared in xml, without
+     * instantiating any of them.
+     */
+    @NonNull
+    public static List<PreferenceControllerHandle> getPreferenceControllerHandlesFromXml(
+            Context context, @XmlRes int xmlResId) {
+        final List<PreferenceControllerHandle> handles = new ArrayList<>();
         List<Bundle> preferenceMetadata;
         try {
             preferenceMetadata = PreferenceXmlParserUtils.extractMetadata(context, xmlResId,
@@ -60,7 +71,7 @@ public class PreferenceControllerListHelper {
                             | MetadataFlag.FLAG_INCLUDE_PREF_SCREEN  | MetadataFlag.FLAG_FOR_WORK);
         } catch (IOException | XmlPullParserException e) {
             Log.e(TAG, "Failed to parse preference xml for getting controllers", e);
-            return controllers;
+            return handles;
         }
 
         for (Bundle metadata : preferenceMetadata) {
@@ -68,31 +79,54 @@ public class PreferenceControllerListHelper {
             if (TextUtils.isEmpty(controllerName)) {
                 continue;
             }
-            BasePreferenceController controller;
-            try {
-                controller = BasePreferenceController.createInstance(context, controllerName);
-            } catch (IllegalStateException e) {
-                Log.d(TAG, "Could not find Context-only controller for pref: " + controllerName);
-                final String key = metadata.getString(METADATA_KEY);
-                final boolean isWorkProfile = metadata.getBoolean(METADATA_FOR_WORK, false);
-                if (TextUtils.isEmpty(key)) {
-                    Log.w(TAG, "Controller requires key but it's not defined in xml: "
-                            + controllerName);
-                    continue;
-                }
-                try {
-                    controller = BasePreferenceController.createInstance(context, controllerName,
-                            key, isWorkProfile);
-                } catch (IllegalStateException e2) {
-                    Log.w(TAG, "Cannot instantiate controller from reflection: " + controllerName);
-                    continue;
-                }
+            handles.add(new PreferenceControllerHandle(controllerName,
+                    metadata.getString(METADATA_KEY),
+                    metadata.getBoolean(METADATA_FOR_WORK, false)));
+        }
+        return handles;
+    }
+
+    /**
+     * Instantiates the controllers behind the given handles, skipping the ones that cannot be
+     * created.
+     */
+    @NonNull
+    public static List<BasePreferenceController> materializeControllers(Context context,
+            @NonNull List<PreferenceControllerHandle> handles) {
+        final List<BasePreferenceController> controllers = new ArrayList<>();
+        for (PreferenceControllerHandle handle : handles) {
+            final BasePreferenceController controller = handle.materialize(context);
+            if (controller != null) {
+                controllers.add(controller);
             }
-            controllers.add(controller);
         }
         return controllers;
     }
 
+    /**
+     * Instantiates the controllers declared in xml, except the ones whose key is already used by
+     * a controller in {@param filter}. Controllers that take their key from xml and do not
+     * override {@link BasePreferenceController#getPreferenceKey()} are filtered out before they
+     * are instantiated; the others are checked once created.
+     */
+    @NonNull
+    public static List<BasePreferenceController> getFilteredPreferenceControllersFromXml(
+            Context context, @XmlRes int xmlResId, List<AbstractPreferenceController> filter) {
+        final List<PreferenceControllerHandle> handles =
+                getPreferenceControllerHandlesFromXml(context, xmlResId);
+        if (filter != null && !filter.isEmpty()) {
+            final Set<String> keys = getKeys(filter);
+            handles.removeIf(handle -> {
+                if (handle.hasKnownPreferenceKey() && keys.contains(handle.getPreferenceKey())) {
+                    Log.w(TAG, handle.getPreferenceKey() + " already has a controller");
+                    return true;
+                }
+                return false;
+            });
+        }
+        return filterControllers(materializeControllers(context, handles), filter);
+    }
+
     /**
      * Return a sub list of {@link AbstractPreferenceController} to only contain controller that
      * doesn't exist in filter.
@@ -108,14 +142,8 @@ public class PreferenceControllerListHelper {
         if (input == null || filter == null) {
             return input;
         }
-        final Set<String> keys = new TreeSet<>();
+        final Set<String> keys = getKeys(filter);
         final List<BasePreferenceController> filteredList = new ArrayList<>();
-        for (AbstractPreferenceController controller : filter) {
-            final String key = controller.getPreferenceKey();
-            if (key != null) {
-                keys.add(key);
-            }
-        }
         for (BasePreferenceController controller : input) {
             if (keys.contains(controller.getPreferenceKey())) {
                 Log.w(TAG, controller.getPreferenceKey() + " already has a controller");
@@ -126,4 +154,14 @@ public class PreferenceControllerListHelper {
         return filteredList;
     }
 
+    private static Set<String> getKeys(List<AbstractPreferenceController> controllers) {
+        final Set<String> keys = new TreeSet<>();
+        for (AbstractPreferenceController controller : controllers) {
+            final String key = controller.getPreferenceKey();
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs expensive but optional initialization on background threads once the main thread goes
+ * idle after startup, so the first screen that needs a subsystem finds it already initialized.
+ * <p/>
+ * Each task may depend on other tasks and only starts once all of them have finished. Among
+ * the tasks that are ready, higher priorities start first. Tasks that have not started yet can
+ * be cancelled, e.g. when the system reports memory pressure.
+ */
+public class StartupWarmUpScheduler {
+    private static final String TAG = "StartupWarmUp";
+
+    public static final int PRIORITY_HIGH = 2;
+    public static final int PRIORITY_NORMAL = 1;
+    public static final int PRIORITY_LOW = 0;
+
+    private final Executor mExecutor;
+    private final Map<String, Task> mTasks = new ArrayMap<>();
+    private final Map<String, Long> mTimingsMillis = new ArrayMap<>();
+    private long mStartUptimeMillis;
+    private boolean mStarted;
+    private boolean mCancelled;
+
+    public StartupWarmUpScheduler(@NonNull Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Adds a task that runs after all tasks named in {@code dependencies} have finished. Must be
+     * called before {@link #start()}.
+     */
+    public synchronized StartupWarmUpScheduler addTask(@NonNull String name, int priority,
+            @NonNull Runnable runnable, String... dependencies) {
+        if (mStarted) {
+            throw new IllegalStateException("Cannot add " + name + " after start()");
+        }
+        mTasks.put(name, new Task(name, priority, runnable, Arrays.asList(dependencies)));
+        return this;
+    }
+
+    /**
+     * Starts dispatching tasks the next time the calling thread's looper goes idle. No task can
+     * be added afterwards.
+     */
+    public synchronized void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        Looper.myQueue().addIdleHandler(() -> {
+            dispatch();
+            return false;
+        });
+    }
+
+    /** Prevents tasks that have not started yet from running. */
+    public synchronized void cancel() {
+        if (!mCancelled) {
+            mCancelled = true;
+            Log.i(TAG, "Cancelled, skipping " + (mTasks.size() - mTimingsMillis.size())
+                    + " tasks");
+        }
+    }
+
+    /** Returns how long each finished task took, in milliseconds. */
+    public synchronized Map<String, Long> getTimingsMillis() {
+        return new ArrayMap<>(mTimingsMillis);
+    }
+
+    /** Dumps the state of every task. */
+    public synchronized JSONObject toJson() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (Task task : mTasks.values()) {
+            final Long timing = mTimingsMillis.get(task.mName);
+            obj.put(task.mName, timing != null ? timing + "ms"
+                    : task.mRunning ? "running" : mCancelled ? "cancelled" : "pending");
+        }
+        return obj;
+    }
+
+    @VisibleForTesting
+    synchronized void dispatch() {
+        if (mStartUptimeMillis == 0L) {
+            mStartUptimeMillis = SystemClock.uptimeMillis();
+        }
+        if (mCancelled) {
+            return;
+        }
+        final List<Task> ready = new ArrayList<>();
+        for (Task task : mTasks.values()) {
+            if (!task.mRunning && !mTimingsMillis.containsKey(task.mName) && isReady(task)) {
+                ready.add(task);
+            }
+        }
+        ready.sort(Comparator.comparingInt((Task task) -> task.mPriority).reversed());
+        for (Task task : ready) {
+            task.mRunning = true;
+            mExecutor.execute(() -> run(task));
+        }
+    }
+
+    private boolean isReady(Task task) {
+        for (String dependency : task.mDependencies) {
+            if (mTasks.containsKey(dependency) && !mTimingsMillis.containsKey(dependency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void run(Task task) {
+        final long start = SystemClock.uptimeMillis();
+        try {
+            task.mRunnable.run();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Warm-up task " + task.mName + " failed", e);
+        }
+        final long duration = SystemClock.uptimeMillis() - start;
+        synchronized (this) {
+            task.mRunning = false;
+            mTimingsMillis.put(task.mName, duration);
+            if (mTimingsMillis.size() == mTasks.size()) {
+                Log.i(TAG, "Finished in " + (SystemClock.uptimeMillis() - mStartUptimeMillis)
+                        + "ms: " + mTimingsMillis);
+            }
+        }
+        dispatch();
+    }
+
+    private static class Task {
+        final String mName;
+        final int mPriority;
+        final Runnable mRunnable;
+        final List<String> mDependencies;
+        boolean mRunning;
+
+        Task(String name, int priority, Runnable runnable, List<String> dependencies) {
+            mName = name;
+            mPriority = priority;
+            mRunnable = runnable;
+            mDependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.core.instrumentation.LogWriter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link LogWriter} that moves the actual writing of metrics off the caller's thread.
+ *
+ * <p>Events are queued into a bounded, lock-free ring buffer and handed to the wrapped writer in
+ * batches on a background thread, either once {@link #FLUSH_BATCH_SIZE} events are pending or
+ * {@link #FLUSH_DELAY_MS} after the first pending event, whichever comes first. When the buffer
+ * is full new events are dropped and counted rather than blocking the caller.
+ */
+public class BatchedLogWriter implements LogWriter {
+    private static final String TAG = "BatchedLogWriter";
+
+    @VisibleForTesting
+    static final int BUFFER_CAPACITY = 256;
+    @VisibleForTesting
+    static final int FLUSH_BATCH_SIZE = 32;
+    @VisibleForTesting
+    static final long FLUSH_DELAY_MS = 500L;
+
+    private static final ThreadLocal<Long> sEventTimeMillis = new ThreadLocal<>();
+    private static Handler sFlushHandler;
+
+    private final LogWriter mDelegate;
+    private final Handler mHandler;
+    private final AtomicReferenceArray<PendingEvent> mBuffer =
+            new AtomicReferenceArray<>(BUFFER_CAPACITY);
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicLong mDroppedCount = new AtomicLong();
+    private final AtomicBoolean mFlushScheduled = new AtomicBoolean();
+    private final Runnable mFlushRunnable = this::flush;
+    // Only advanced by the flushing thread.
+    private volatile long mHead;
+    private long mReportedDroppedCount;
+
+    public BatchedLogWriter(@NonNull LogWriter delegate) {
+        this(delegate, getFlushHandler());
+    }
+
+    @VisibleForTesting
+    BatchedLogWriter(@NonNull LogWriter delegate, @NonNull Handler handler) {
+        mDelegate = delegate;
+        mHandler = handler;
+    }
+
+    /**
+     * Returns the wall clock time at which the event currently being written was logged. Writers
+     * that record timestamps should use this instead of {@link System#currentTimeMillis()}, since
+     * a batched event is written some time after it happened.
+     */
+    public static long getEventTimeMillis() {
+        final Long eventTime = sEventTimeMillis.get();
+        return eventTime != null ? eventTime : System.currentTimeMillis();
+    }
+
+    @Override
+    public void visible(Context context, int attribution, int pageId, int latency) {
+        enqueue(writer -> writer.visible(context, attribution, pageId, latency));
+    }
+
+    @Override
+    public void hidden(Context context, int pageId, int visibleTime) {
+        enqueue(writer -> writer.hidden(context, pageId, visibleTime));
+    }
+
+    @Override
+    public void clicked(int sourceCategory, String key) {
+        enqueue(writer -> writer.clicked(sourceCategory, key));
+    }
+
+    @Override
+    public void changed(int category, String key, int value) {
+        enqueue(writer -> writer.changed(category, key, value));
+    }
+
+    @Override
+    public void action(Context context, int action, Pair<Integer, Object>... taggedData) {
+        enqueue(writer -> writer.action(context, action, taggedData));
+    }
+
+    @Override
+    public void action(Context context, int action, int value) {
+        enqueue(writer -> writer.action(context, action, value));
+    }
+
+    @Override
+    public void action(Context context, int action, boolean value) {
+        enqueue(writer -> writer.action(context, action, value));
+    }
+
+    @Override
+    public void action(Context context, int action, String pkg) {
+        enqueue(writer -> writer.action(context, action, pkg));
+    }
+
+    @Override
+    public void action(int attribution, int action, int pageId, String key, int value) {
+        enqueue(writer -> writer.action(attribution, action, pageId, key, value));
+    }
+
+    /** Returns the total number of events dropped because the buffer was full. */
+    public long getDroppedEventCount() {
+        return mDroppedCount.get();
+    }
+
+    /** Returns the number of events waiting to be written. */
+    @VisibleForTesting
+    int getPendingEventCount() {
+        return (int) (mTail.get() - mHead);
+    }
+
+    /**
+     * Writes all pending events to the wrapped writer. Must only be called from one thread at a
+     * time, normally the flush handler's thread.
+     */
+    @VisibleForTesting
+    void flush() {
+        mFlushScheduled.set(false);
+        long head = mHead;
+        while (head < mTail.get()) {
+            final int index = (int) (head & (BUFFER_CAPACITY - 1));
+            final PendingEvent event = mBuffer.get(index);
+            if (event == null) {
+                // The slot was claimed but the producer has not published it yet.
+                scheduleFlush(FLUSH_DELAY_MS);
+                break;
+            }
+            mBuffer.set(index, null);
+            mHead = ++head;
+            sEventTimeMillis.set(event.mTimeMillis);
+            try {
+                event.mWrite.writeTo(mDelegate);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Failed to write metrics event", e);
+            } finally {
+                sEventTimeMillis.remove();
+            }
+        }
+        final long dropped = mDroppedCount.get();
+        if (dropped != mReportedDroppedCount) {
+            Log.w(TAG, "Dropped " + (dropped - mReportedDroppedCount)
+                    + " metrics events, total dropped: " + dropped);
+            mReportedDroppedCount = dropped;
+        }
+    }
+
+    private void enqueue(Write write) {
+        final PendingEvent event = new PendingEvent(write, System.currentTimeMillis());
+        long tail;
+        do {
+            tail = mTail.get();
+            if (tail - mHead >= BUFFER_CAPACITY) {
+                mDroppedCount.incrementAndGet();
+                scheduleFlush(0L);
+                return;
+            }
+        } while (!mTail.compareAndSet(tail, tail + 1));
+        mBuffer.set((int) (tail & (BUFFER_CAPACITY - 1)), event);
+
+        if (tail + 1 - mHead >= FLUSH_BATCH_SIZE) {
+            scheduleFlush(0L);
+        } else {
+            scheduleFlush(FLUSH_DELAY_MS);
+        }
+    }
+
+    private void scheduleFlush(long delayMs) {
+        if (delayMs == 0L) {
+            if (mFlushScheduled.getAndSet(true)) {
+                // Pull an already pending delayed flush forward.
+                mHandler.removeCallbacks(mFlushRunnable);
+            }
+            mHandler.post(mFlushRunnable);
+        } else if (mFlushScheduled.compareAndSet(false, true)) {
+            mHandler.postAtTime(mFlushRunnable, SystemClock.uptimeMillis() + delayMs);
+        }
+    }
+
+    private static synchronized Handler getFlushHandler() {
+        if (sFlushHandler == null) {
+            final HandlerThread thread = new HandlerThread("SettingsMetricsWriter",
+                    Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            sFlushHandler = new Handler(thread.getLooper());
+        }
+        return sFlushHandler;
+    }
+
+    private interface Write {
+        void writeTo(LogWriter writer);
+    }
+
+    private static class PendingEvent {
+        final Write mWrite;
+        final long mTimeMillis;
+
+        PendingEvent(Write write, long timeMillis) {
+            mWrite = write;
+            mTimeMillis = timeMillis;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import android.util.ArrayMap;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Process wide rolling history of page load timings recorded by {@link PageLoadTracer}, kept so
+ * that slow screens and slow controllers can be spotted from a dumpsys.
+ */
+public class PageLoadHistory {
+
+    @VisibleForTesting
+    static final int WINDOW_SIZE = 20;
+
+    private static PageLoadHistory sInstance;
+
+    // screen -> (phase or controller name -> samples)
+    private final Map<String, Map<String, Samples>> mScreens = new ArrayMap<>();
+
+    /** Returns the process wide instance. */
+    public static synchronized PageLoadHistory getInstance() {
+        if (sInstance == null) {
+            sInstance = new PageLoadHistory();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    PageLoadHistory() {
+    }
+
+    /** Records one duration, in nanoseconds, for the given screen and phase or controller. */
+    public synchronized void record(@NonNull String screen, @NonNull String name,
+            long durationNanos) {
+        Map<String, Samples> entries = mScreens.get(screen);
+        if (entries == null) {
+            entries = new ArrayMap<>();
+            mScreens.put(screen, entries);
+        }
+        Samples samples = entries.get(name);
+        if (samples == null) {
+            samples = new Samples();
+            entries.put(name, samples);
+        }
+        samples.add(durationNanos);
+    }
+
+    /**
+     * Returns the given percentile, in milliseconds, of the recorded durations, or -1 if nothing
+     * was recorded.
+     */
+    public synchronized double getPercentileMillis(@NonNull String screen, @NonNull String name,
+            int percentile) {
+        final Map<String, Samples> entries = mScreens.get(screen);
+        final Samples samples = entries != null ? entries.get(name) : null;
+        return samples != null ? samples.percentileMillis(percentile) : -1;
+    }
+
+    /** Dumps p50/p90/max of every recorded phase and controller, grouped by screen. */
+    public synchronized JSONObject toJson() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (Map.Entry<String, Map<String, Samples>> screen : mScreens.entrySet()) {
+            final JSONObject screenObj = new JSONObject();
+            for (Map.Entry<String, Samples> entry : screen.getValue().entrySet()) {
+                final Samples samples = entry.getValue();
+                final JSONObject samplesObj = new JSONObject();
+                samplesObj.put("count", samples.mCount);
+                samplesObj.put("p50", samples.percentileMillis(50));
+                samplesObj.put("p90", samples.percentileMillis(90));
+                samplesObj.put("max", samples.percentileMillis(100));
+                screenObj.put(entry.getKey(), samplesObj);
+            }
+            obj.put(screen.getKey(), screenObj);
+        }
+        return obj;
+    }
+
+    private static class Samples {
+        private final long[] mValues = new long[WINDOW_SIZE];
+        private int mCount;
+
+        void add(long value) {
+            mValues[mCount % WINDOW_SIZE] = value;
+            mCount++;
+        }
+
+        double percentileMillis(int percentile) {
+            final int size = Math.min(mCount, WINDOW_SIZE);
+            if (size == 0) {
+                return -1;
+            }
+            final long[] sorted = Arrays.copyOf(mValues, size);
+            Arrays.sort(sorted);
+            final int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import android.os.SystemClock;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Measures where the time goes while a screen is opened for the first time.
+ *
+ * <p>Each {@link Phase} and each controller call made during the first load is emitted as a trace
+ * section so it shows up in Perfetto, and its duration is added to {@link PageLoadHistory} once
+ * the load is {@link #finish() finished}.
+ */
+public class PageLoadTracer {
+    /** Phases of opening a dashboard screen, in the order they normally happen. */
+    public enum Phase {
+        CONTROLLER_CREATION,
+        XML_INFLATION,
+        DISPLAY_RESOURCE_TILES,
+        TILE_BINDING,
+        OBSERVER_REGISTRATION,
+        FIRST_UPDATE_STATE,
+    }
+
+    // Longer names are rejected by Trace.beginSection().
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    private final String mScreen;
+    private final PageLoadHistory mHistory;
+    private final long[] mPhaseStartNanos = new long[Phase.values().length];
+    private final long[] mPhaseDurationNanos = new long[Phase.values().length];
+    // Whether a trace section was opened, tracing may be turned on or off in between.
+    private final boolean[] mPhaseSectionOpened = new boolean[Phase.values().length];
+    // For the controller calls in progress, innermost last.
+    private final Deque<Boolean> mControllerSectionOpened = new ArrayDeque<>();
+    private final long mCreatedNanos;
+    private boolean mFinished;
+
+    public PageLoadTracer(@NonNull String screen) {
+        this(screen, PageLoadHistory.getInstance());
+    }
+
+    @VisibleForTesting
+    PageLoadTracer(@NonNull String screen, @NonNull PageLoadHistory history) {
+        mScreen = screen;
+        mHistory = history;
+        mCreatedNanos = SystemClock.elapsedRealtimeNanos();
+    }
+
+    /** Returns true while the first load of the screen is still being measured. */
+    public boolean isTracing() {
+        return !mFinished;
+    }
+
+    /** Marks the start of a phase. Must be paired with {@link #endPhase(Phase)}. */
+    public void beginPhase(@NonNull Phase phase) {
+        if (mFinished) {
+            return;
+        }
+        mPhaseSectionOpened[phase.ordinal()] = Trace.isEnabled();
+        if (mPhaseSectionOpened[phase.ordinal()]) {
+            Trace.beginSection(toSectionName(mScreen + "#" + phase.name()));
+        }
+        mPhaseStartNanos[phase.ordinal()] = SystemClock.elapsedRealtimeNanos();
+    }
+
+    /** Marks the end of a phase started with {@link #beginPhase(Phase)}. */
+    public void endPhase(@NonNull Phase phase) {
+        // Closed even if the load was finished meanwhile.
+        if (mPhaseSectionOpened[phase.ordinal()]) {
+            mPhaseSectionOpened[phase.ordinal()] = false;
+            Trace.endSection();
+        }
+        if (mFinished || mPhaseStartNanos[phase.ordinal()] == 0L) {
+            return;
+        }
+        mPhaseDurationNanos[phase.ordinal()] +=
+                SystemClock.elapsedRealtimeNanos() - mPhaseStartNanos[phase.ordinal()];
+        mPhaseStartNanos[phase.ordinal()] = 0L;
+    }
+
+    /**
+     * Marks the start of a single controller call, returning the token to pass to
+     * {@link #endController}. Does nothing once the first load is finished.
+     */
+    public long beginController(@NonNull AbstractPreferenceController controller) {
+        if (mFinished) {
+            return 0L;
+        }
+        final boolean sectionOpened = Trace.isEnabled();
+        if (sectionOpened) {
+            Trace.beginSection(toSectionName(controller.getClass().getName()));
+        }
+        mControllerSectionOpened.push(sectionOpened);
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /** Marks the end of a controller call started with {@link #beginController}. */
+    public void endController(@NonNull AbstractPreferenceController controller, long token) {
+        if (token == 0L) {
+            return;
+        }
+        // Closed even if the load was finished meanwhile.
+        if (mControllerSectionOpened.pop()) {
+            Trace.endSection();
+        }
+        if (mFinished) {
+            return;
+        }
+        mHistory.record(mScreen, controller.getClass().getName(),
+                SystemClock.elapsedRealtimeNanos() - token);
+    }
+
+    /** Ends the measurement and stores the phase durations in the history. */
+    public void finish() {
+        if (mFinished) {
+            return;
+        }
+        mFinished = true;
+        for (Phase phase : Phase.values()) {
+            mHistory.record(mScreen, phase.name(), mPhaseDurationNanos[phase.ordinal()]);
+        }
+        mHistory.record(mScreen, "TOTAL", SystemClock.elapsedRealtimeNanos() - mCreatedNanos);
+    }
+
+    /** Keeps the end of the name, the most specific part, within the trace section limit. */
+    private static String toSectionName(String name) {
+        return name.length() <= MAX_SECTION_NAME_LENGTH
+                ? name : name.substring(name.length() - MAX_SECTION_NAME_LENGTH);
+    }
+}
@@ -27,8 +27,8 @@ public class SettingsMetricsFeatureProvider extends MetricsFeatureProvider {
 
     @Override
     protected void installLogWriters() {
-        mLoggerWriters.add(new StatsLogWriter());
-        mLoggerWriters.add(new SettingsEventLogWriter());
+        mLoggerWriters.add(new BatchedLogWriter(new StatsLogWriter()));
+        mLoggerWriters.add(new BatchedLogWriter(new SettingsEventLogWriter()));
     }
 
     /**
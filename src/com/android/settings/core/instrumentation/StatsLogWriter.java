@@ -32,7 +32,7 @@ public class StatsLogWriter implements LogWriter {
                 pageId, /* target pageId */
                 "" /* changedPreferenceKey */,
                 latency /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                ElapsedTimeUtils.getElapsedTime(BatchedLogWriter.getEventTimeMillis()));
     }
 
     @Override
@@ -43,7 +43,7 @@ public class StatsLogWriter implements LogWriter {
                 pageId,
                 "" /* changedPreferenceKey */,
                 visibleTime /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                ElapsedTimeUtils.getElapsedTime(BatchedLogWriter.getEventTimeMillis()));
     }
 
     @Override
@@ -54,7 +54,7 @@ public class StatsLogWriter implements LogWriter {
                 SettingsEnums.PAGE_UNKNOWN /* pageId */,
                 key /* changedPreferenceKey */,
                 0 /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                ElapsedTimeUtils.getElapsedTime(BatchedLogWriter.getEventTimeMillis()));
     }
 
     @Override
@@ -65,7 +65,7 @@ public class StatsLogWriter implements LogWriter {
                 SettingsEnums.PAGE_UNKNOWN /* pageId */,
                 key /* changedPreferenceKey */,
                 value /* changedPreferenceIntValue */,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                ElapsedTimeUtils.getElapsedTime(BatchedLogWriter.getEventTimeMillis()));
     }
 
     @Override
@@ -112,6 +112,6 @@ public class StatsLogWriter implements LogWriter {
                 pageId,
                 key,
                 value,
-                ElapsedTimeUtils.getElapsedTime(System.currentTimeMillis()));
+                ElapsedTimeUtils.getElapsedTime(BatchedLogWriter.getEventTimeMillis()));
     }
 }
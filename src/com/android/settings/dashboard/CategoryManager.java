@@ -60,7 +60,7 @@ public class CategoryManager {
 
     private List<DashboardCategory> mCategories;
 
-    public static CategoryManager get(Context context) {
+    public static synchronized CategoryManager get(Context context) {
         if (sInstance == null) {
             sInstance = new CategoryManager(context);
         }
@@ -46,6 +46,8 @@ import com.android.settings.core.BasePreferenceController;
 import com.android.settings.core.CategoryMixin.CategoryHandler;
 import com.android.settings.core.CategoryMixin.CategoryListener;
 import com.android.settings.core.PreferenceControllerListHelper;
+import com.android.settings.core.instrumentation.PageLoadTracer;
+import com.android.settings.core.instrumentation.PageLoadTracer.Phase;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.PrimarySwitchPreference;
 import com.android.settingslib.core.AbstractPreferenceController;
@@ -88,10 +90,13 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
+    private final PageLoadTracer mPageLoadTracer =
+            new PageLoadTracer(getClass().getName());
 
     @Override
     public void onAttach(Context context) {
         super.onAttach(context);
+        mPageLoadTracer.beginPhase(Phase.CONTROLLER_CREATION);
         mSuppressInjectedTileKeys = Arrays.asList(context.getResources().getStringArray(
                 R.array.config_suppress_injected_tile_keys));
         mDashboardFeatureProvider =
@@ -99,13 +104,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         // Load preference controllers from code
         final List<AbstractPreferenceController> controllersFromCode =
                 createPreferenceControllers(context);
-        // Load preference controllers from xml definition
-        final List<BasePreferenceController> controllersFromXml = PreferenceControllerListHelper
-                .getPreferenceControllersFromXml(context, getPreferenceScreenResId());
-        // Filter xml-based controllers in case a similar controller is created from code already.
+        // Load preference controllers from xml definition. Filter xml-based controllers in case
+        // a similar controller is created from code already, without instantiating them first.
         final List<BasePreferenceController> uniqueControllerFromXml =
-                PreferenceControllerListHelper.filterControllers(
-                        controllersFromXml, controllersFromCode);
+                PreferenceControllerListHelper.getFilteredPreferenceControllersFromXml(
+                        context, getPreferenceScreenResId(), controllersFromCode);
 
         // Add unique controllers to list.
         if (controllersFromCode != null) {
@@ -135,6 +138,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         for (AbstractPreferenceController controller : mControllers) {
             addPreferenceController(controller);
         }
+        mPageLoadTracer.endPhase(Phase.CONTROLLER_CREATION);
     }
 
     @VisibleForTesting
@@ -225,6 +229,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
             mListeningToCategoryChange = true;
             ((CategoryHandler) activity).getCategoryMixin().addCategoryListener(this);
         }
+        mPageLoadTracer.beginPhase(Phase.OBSERVER_REGISTRATION);
         final ContentResolver resolver = getContentResolver();
         mDashboardTilePrefKeys.values().stream()
                 .filter(Objects::nonNull)
@@ -234,12 +239,16 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                         registerDynamicDataObserver(resolver, observer);
                     }
                 });
+        mPageLoadTracer.endPhase(Phase.OBSERVER_REGISTRATION);
     }
 
     @Override
     public void onResume() {
         super.onResume();
+        mPageLoadTracer.beginPhase(Phase.FIRST_UPDATE_STATE);
         updatePreferenceStates();
+        mPageLoadTracer.endPhase(Phase.FIRST_UPDATE_STATE);
+        mPageLoadTracer.finish();
     }
 
     @Override
@@ -363,10 +372,14 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (resId <= 0) {
             return;
         }
+        mPageLoadTracer.beginPhase(Phase.XML_INFLATION);
         addPreferencesFromResource(resId);
+        mPageLoadTracer.endPhase(Phase.XML_INFLATION);
         final PreferenceScreen screen = getPreferenceScreen();
         screen.setOnExpandButtonClickListener(this);
+        mPageLoadTracer.beginPhase(Phase.DISPLAY_RESOURCE_TILES);
         displayResourceTilesToScreen(screen);
+        mPageLoadTracer.endPhase(Phase.DISPLAY_RESOURCE_TILES);
     }
 
     /**
@@ -375,7 +388,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      */
     protected void displayResourceTilesToScreen(PreferenceScreen screen) {
         mPreferenceControllers.values().stream().flatMap(Collection::stream).forEach(
-                controller -> controller.displayPreference(screen));
+                controller -> {
+                    final long token = mPageLoadTracer.beginController(controller);
+                    controller.displayPreference(screen);
+                    mPageLoadTracer.endController(controller, token);
+                });
     }
 
     /**
@@ -411,7 +428,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                             key, controller.getClass().getSimpleName()));
                     continue;
                 }
+                final long token = mPageLoadTracer.beginController(controller);
                 controller.updateState(preference);
+                mPageLoadTracer.endController(controller, token);
             }
         }
     }
@@ -431,7 +450,9 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         // Add resource based tiles.
         displayResourceTiles();
 
+        mPageLoadTracer.beginPhase(Phase.TILE_BINDING);
         refreshDashboardTiles(tag);
+        mPageLoadTracer.endPhase(Phase.TILE_BINDING);
 
         final Activity activity = getActivity();
         if (activity != null) {
@@ -225,18 +225,22 @@ public class BaseTimeZoneAdapter<T extends BaseTimeZoneAdapter.AdapterItem>
      * a prefix. Each item that does not start with the supplied prefix
      * is removed from the list.</p>
      *
-     * The filtering operation is not optimized, due to small data size (~260 regions),
-     * require additional pre-processing. Potentially, a trie structure can be used to match
-     * prefixes of the search keys.
+     * The search keys are lowercased and split into words once, by the first filtering, so
+     * each keystroke only compares the prefix with the start of the words.
      */
     @VisibleForTesting
     public class ArrayFilter extends Filter {
 
         private BreakIterator mBreakIterator = BreakIterator.getWordInstance(mLocale);
+        // The search keys of each item of mOriginalItems. Only used on the filtering thread.
+        private SearchKey[][] mSearchKeys;
 
         @WorkerThread
         @Override
         protected FilterResults performFiltering(CharSequence prefix) {
+            if (mSearchKeys == null) {
+                mSearchKeys = createSearchKeys();
+            }
             final List<T> newItems;
             if (TextUtils.isEmpty(prefix)) {
                 newItems = mOriginalItems;
@@ -244,26 +248,11 @@ public class BaseTimeZoneAdapter<T extends BaseTimeZoneAdapter.AdapterItem>
                 final String prefixString = prefix.toString().toLowerCase(mLocale);
                 newItems = new ArrayList<>();
 
-                for (T item : mOriginalItems) {
-                    outer:
-                    for (String searchKey : item.getSearchKeys()) {
-                        searchKey = searchKey.toLowerCase(mLocale);
-                        // First match against the whole, non-splitted value
-                        if (searchKey.startsWith(prefixString)) {
-                            newItems.add(item);
-                            break outer;
-                        } else {
-                            mBreakIterator.setText(searchKey);
-                            for (int wordStart = 0, wordLimit = mBreakIterator.next();
-                                    wordLimit != BreakIterator.DONE;
-                                    wordStart = wordLimit,
-                                            wordLimit = mBreakIterator.next()) {
-                                if (mBreakIterator.getRuleStatus() != BreakIterator.WORD_NONE
-                                        && searchKey.startsWith(prefixString, wordStart)) {
-                                    newItems.add(item);
-                                    break outer;
-                                }
-                            }
+                for (int i = 0, size = mOriginalItems.size(); i < size; i++) {
+                    for (SearchKey searchKey : mSearchKeys[i]) {
+                        if (searchKey.matches(prefixString)) {
+                            newItems.add(mOriginalItems.get(i));
+                            break;
                         }
                     }
                 }
@@ -282,5 +271,57 @@ public class BaseTimeZoneAdapter<T extends BaseTimeZoneAdapter.AdapterItem>
             mItems = (List<T>) results.values;
             notifyDataSetChanged();
         }
+
+        private SearchKey[][] createSearchKeys() {
+            final SearchKey[][] searchKeys = new SearchKey[mOriginalItems.size()][];
+            for (int i = 0; i < searchKeys.length; i++) {
+                final String[] keys = mOriginalItems.get(i).getSearchKeys();
+                searchKeys[i] = new SearchKey[keys.length];
+                for (int j = 0; j < keys.length; j++) {
+                    searchKeys[i][j] = createSearchKey(keys[j]);
+                }
+            }
+            return searchKeys;
+        }
+
+        private SearchKey createSearchKey(String key) {
+            final String lowerCaseKey = key.toLowerCase(mLocale);
+            final List<Integer> wordStarts = new ArrayList<>();
+            // The whole, non-splitted value is matched first.
+            wordStarts.add(0);
+            mBreakIterator.setText(lowerCaseKey);
+            for (int wordStart = 0, wordLimit = mBreakIterator.next();
+                    wordLimit != BreakIterator.DONE;
+                    wordStart = wordLimit, wordLimit = mBreakIterator.next()) {
+                if (wordStart != 0 && mBreakIterator.getRuleStatus() != BreakIterator.WORD_NONE) {
+                    wordStarts.add(wordStart);
+                }
+            }
+            final int[] starts = new int[wordStarts.size()];
+            for (int i = 0; i < starts.length; i++) {
+                starts[i] = wordStarts.get(i);
+            }
+            return new SearchKey(lowerCaseKey, starts);
+        }
+    }
+
+    /** A lowercased search key and the start of its words. */
+    private static class SearchKey {
+        private final String mKey;
+        private final int[] mWordStarts;
+
+        SearchKey(String key, int[] wordStarts) {
+            mKey = key;
+            mWordStarts = wordStarts;
+        }
+
+        boolean matches(String lowerCasePrefix) {
+            for (int wordStart : mWordStarts) {
+                if (mKey.startsWith(lowerCasePrefix, wordStart)) {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 }
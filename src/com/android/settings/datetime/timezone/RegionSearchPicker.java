@@ -16,13 +16,9 @@
 
 package com.android.settings.datetime.timezone;
 
-import static com.android.settingslib.datetime.ZoneGetter.capitalizeForStandaloneDisplay;
-
 import android.app.Activity;
 import android.app.settings.SettingsEnums;
 import android.content.Intent;
-import android.icu.text.Collator;
-import android.icu.text.LocaleDisplayNames;
 import android.os.Bundle;
 import android.util.Log;
 
@@ -32,13 +28,11 @@ import com.android.settings.R;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.datetime.timezone.BaseTimeZoneAdapter.AdapterItem;
 import com.android.settings.datetime.timezone.model.FilteredCountryTimeZones;
+import com.android.settings.datetime.timezone.model.RegionIndex;
 import com.android.settings.datetime.timezone.model.TimeZoneData;
 
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * Render a list of regions into a list view.
@@ -62,7 +56,7 @@ public class RegionSearchPicker extends BaseTimeZonePicker {
     @Override
     protected BaseTimeZoneAdapter createAdapter(TimeZoneData timeZoneData) {
         mTimeZoneData = timeZoneData;
-        mAdapter = new BaseTimeZoneAdapter<>(createAdapterItem(timeZoneData.getRegionIds()),
+        mAdapter = new BaseTimeZoneAdapter<>(createAdapterItem(timeZoneData),
                 this::onListItemClick, getLocale(), false /* showItemSummary */,
                     null /* headerText */);
         return mAdapter;
@@ -112,17 +106,16 @@ public class RegionSearchPicker extends BaseTimeZonePicker {
         }
     }
 
-    private List<RegionItem> createAdapterItem(Set<String> regionIds) {
-        final Collator collator = Collator.getInstance(getLocale());
-        final TreeSet<RegionItem> items = new TreeSet<>(new RegionInfoComparator(collator));
-        final LocaleDisplayNames localeDisplayNames = LocaleDisplayNames.getInstance(getLocale());
+    private List<RegionItem> createAdapterItem(TimeZoneData timeZoneData) {
+        // The index is usually built by TimeZoneDataLoader in the background already.
+        final List<RegionIndex.Region> regions =
+                timeZoneData.getRegionIndex(getLocale()).getRegions();
+        final List<RegionItem> items = new ArrayList<>(regions.size());
         long i = 0;
-        for (String regionId : regionIds) {
-            String name = capitalizeForStandaloneDisplay(
-                    mLocale, localeDisplayNames.regionDisplayName(regionId));
-            items.add(new RegionItem(i++, regionId, name));
+        for (RegionIndex.Region region : regions) {
+            items.add(new RegionItem(i++, region.getRegionId(), region.getName()));
         }
-        return new ArrayList<>(items);
+        return items;
     }
 
     @VisibleForTesting
@@ -177,17 +170,4 @@ public class RegionSearchPicker extends BaseTimeZonePicker {
             return mSearchKeys;
         }
     }
-
-    private static class RegionInfoComparator implements Comparator<RegionItem> {
-        private final Collator mCollator;
-
-        RegionInfoComparator(Collator collator) {
-            mCollator = collator;
-        }
-
-        @Override
-        public int compare(RegionItem r1, RegionItem r2) {
-            return mCollator.compare(r1.getTitle(), r2.getTitle());
-        }
-    }
 }
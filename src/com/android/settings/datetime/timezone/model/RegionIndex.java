@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datetime.timezone.model;
+
+import static com.android.settingslib.datetime.ZoneGetter.capitalizeForStandaloneDisplay;
+
+import android.icu.text.CollationKey;
+import android.icu.text.Collator;
+import android.icu.text.LocaleDisplayNames;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The regions sorted by their display name in a locale. Creating it looks up the name of every
+ * region and collates them, so it should not be done on the UI thread.
+ */
+public class RegionIndex {
+
+    private final Locale mLocale;
+    private final List<Region> mRegions;
+
+    /** A region and its display name. */
+    public static class Region {
+        private final String mRegionId;
+        private final String mName;
+        private final CollationKey mCollationKey;
+
+        private Region(String regionId, String name, CollationKey collationKey) {
+            mRegionId = regionId;
+            mName = name;
+            mCollationKey = collationKey;
+        }
+
+        public String getRegionId() {
+            return mRegionId;
+        }
+
+        public String getName() {
+            return mName;
+        }
+    }
+
+    RegionIndex(Set<String> regionIds, Locale locale) {
+        mLocale = locale;
+        final Collator collator = Collator.getInstance(locale);
+        final LocaleDisplayNames localeDisplayNames = LocaleDisplayNames.getInstance(locale);
+        final List<Region> regions = new ArrayList<>(regionIds.size());
+        for (String regionId : regionIds) {
+            final String name = capitalizeForStandaloneDisplay(locale,
+                    localeDisplayNames.regionDisplayName(regionId));
+            // Comparing the keys is cheaper than collating the names on every comparison.
+            regions.add(new Region(regionId, name, collator.getCollationKey(name)));
+        }
+        Collections.sort(regions, (r1, r2) -> r1.mCollationKey.compareTo(r2.mCollationKey));
+
+        // Regions with the same name can't be told apart in the list, only keep one.
+        final List<Region> uniqueRegions = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            if (uniqueRegions.isEmpty() || !uniqueRegions.get(uniqueRegions.size() - 1)
+                    .mCollationKey.equals(region.mCollationKey)) {
+                uniqueRegions.add(region);
+            }
+        }
+        mRegions = Collections.unmodifiableList(uniqueRegions);
+    }
+
+    public Locale getLocale() {
+        return mLocale;
+    }
+
+    /** Returns the regions sorted by their display name. */
+    public List<Region> getRegions() {
+        return mRegions;
+    }
+}
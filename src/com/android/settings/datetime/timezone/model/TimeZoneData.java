@@ -41,6 +41,8 @@ public class TimeZoneData {
 
     private final CountryZonesFinder mCountryZonesFinder;
     private final Set<String> mRegionIds;
+    // The index of the last locale asked for. Guarded by this.
+    private RegionIndex mRegionIndex;
 
     public static synchronized TimeZoneData getInstance() {
         TimeZoneData data = sCache == null ? null : sCache.get();
@@ -62,6 +64,18 @@ public class TimeZoneData {
         return mRegionIds;
     }
 
+    /**
+     * Returns the regions sorted by their display name in the given locale. The index is kept
+     * for the next call with the same locale. Heavy the first time, it should not be called from
+     * the UI thread.
+     */
+    public synchronized RegionIndex getRegionIndex(Locale locale) {
+        if (mRegionIndex == null || !mRegionIndex.getLocale().equals(locale)) {
+            mRegionIndex = new RegionIndex(mRegionIds, locale);
+        }
+        return mRegionIndex;
+    }
+
     public Set<String> lookupCountryCodesForZoneId(String tzId) {
         if (tzId == null) {
             return Collections.emptySet();
@@ -33,7 +33,10 @@ public class TimeZoneDataLoader extends AsyncLoaderCompat<TimeZoneData> {
     @Override
     public TimeZoneData loadInBackground() {
         // Heavy operation due to reading the underlying file
-        return TimeZoneData.getInstance();
+        final TimeZoneData data = TimeZoneData.getInstance();
+        // Also collate the region names, so the region picker opens without doing it.
+        data.getRegionIndex(getContext().getResources().getConfiguration().getLocales().get(0));
+        return data;
     }
 
     @Override
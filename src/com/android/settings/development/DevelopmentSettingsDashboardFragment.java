@@ -84,6 +84,7 @@ import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.DevelopmentSettingsEnabler;
 import com.android.settingslib.development.SystemPropPoker;
 import com.android.settingslib.search.SearchIndexable;
+import com.android.settingslib.search.SearchIndexableRaw;
 
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
@@ -808,6 +809,16 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                     return DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(context);
                 }
 
+                @Override
+                public List<SearchIndexableRaw> getRawDataToIndex(Context context,
+                        boolean enabled) {
+                    // The whole page is suppressed, don't create its controllers for nothing.
+                    if (!isPageSearchEnabled(context)) {
+                        return new ArrayList<>();
+                    }
+                    return super.getRawDataToIndex(context, enabled);
+                }
+
                 @Override
                 public List<AbstractPreferenceController> createPreferenceControllers(Context
                         context) {
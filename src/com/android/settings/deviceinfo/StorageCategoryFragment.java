@@ -44,9 +44,9 @@ import com.android.settings.deviceinfo.storage.StorageAsyncLoader;
 import com.android.settings.deviceinfo.storage.StorageCacheHelper;
 import com.android.settings.deviceinfo.storage.StorageEntry;
 import com.android.settings.deviceinfo.storage.StorageItemPreferenceController;
+import com.android.settings.deviceinfo.storage.StorageStatsRepository;
 import com.android.settings.deviceinfo.storage.UserIconLoader;
 import com.android.settings.deviceinfo.storage.VolumeSizesLoader;
-import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.deviceinfo.PrivateStorageInfo;
 import com.android.settingslib.deviceinfo.StorageManagerVolumeProvider;
@@ -68,13 +68,11 @@ import java.util.List;
  * change Storage Settings.
  */
 public class StorageCategoryFragment extends DashboardFragment
-        implements
-        LoaderManager.LoaderCallbacks<SparseArray<StorageAsyncLoader.StorageResult>> {
+        implements StorageStatsRepository.Callback {
     private static final String TAG = "StorageCategoryFrag";
     private static final String SELECTED_STORAGE_ENTRY_KEY = "selected_storage_entry_key";
     private static final String SUMMARY_PREF_KEY = "storage_summary";
     private static final String TARGET_PREFERENCE_GROUP_KEY = "pref_non_current_users";
-    private static final int STORAGE_JOB_ID = 0;
     private static final int ICON_JOB_ID = 1;
     private static final int VOLUME_SIZE_JOB_ID = 2;
 
@@ -83,6 +81,7 @@ public class StorageCategoryFragment extends DashboardFragment
     private StorageEntry mSelectedStorageEntry;
     private PrivateStorageInfo mStorageInfo;
     private SparseArray<StorageAsyncLoader.StorageResult> mAppsResult;
+    private StorageStatsRepository mStorageStatsRepository;
 
     private StorageItemPreferenceController mPreferenceController;
     private List<NonCurrentUserController> mNonCurrentUsers;
@@ -130,15 +129,32 @@ public class StorageCategoryFragment extends DashboardFragment
             }
 
             // Stats data is only available on private volumes.
-            getLoaderManager().restartLoader(STORAGE_JOB_ID, Bundle.EMPTY, this);
+            startObservingStorageStats();
             getLoaderManager()
                  .restartLoader(VOLUME_SIZE_JOB_ID, Bundle.EMPTY, new VolumeSizeCallbacks());
             getLoaderManager().restartLoader(ICON_JOB_ID, Bundle.EMPTY, new IconLoaderCallbacks());
         } else {
+            stopObservingStorageStats();
             mPreferenceController.setVolume(mSelectedStorageEntry.getVolumeInfo());
         }
     }
 
+    private void startObservingStorageStats() {
+        stopObservingStorageStats();
+        mStorageStatsRepository =
+                StorageStatsRepository.get(getContext(), mSelectedStorageEntry.getFsUuid());
+        // The stats already known are delivered right away, and updated once refreshed.
+        mStorageStatsRepository.addCallback(this);
+        mStorageStatsRepository.refresh();
+    }
+
+    private void stopObservingStorageStats() {
+        if (mStorageStatsRepository != null) {
+            mStorageStatsRepository.removeCallback(this);
+            mStorageStatsRepository = null;
+        }
+    }
+
     @Override
     public void onCreate(Bundle icicle) {
         super.onCreate(icicle);
@@ -194,7 +210,7 @@ public class StorageCategoryFragment extends DashboardFragment
         super.onPause();
         // Destroy the data loaders to prevent unnecessary data loading when switching back to the
         // page.
-        getLoaderManager().destroyLoader(STORAGE_JOB_ID);
+        stopObservingStorageStats();
         getLoaderManager().destroyLoader(ICON_JOB_ID);
         getLoaderManager().destroyLoader(VOLUME_SIZE_JOB_ID);
     }
@@ -278,26 +294,11 @@ public class StorageCategoryFragment extends DashboardFragment
     }
 
     @Override
-    public Loader<SparseArray<StorageAsyncLoader.StorageResult>> onCreateLoader(int id,
-            Bundle args) {
-        final Context context = getContext();
-        return new StorageAsyncLoader(context, mUserManager,
-                mSelectedStorageEntry.getFsUuid(),
-                new StorageStatsSource(context),
-                context.getPackageManager());
-    }
-
-    @Override
-    public void onLoadFinished(Loader<SparseArray<StorageAsyncLoader.StorageResult>> loader,
-            SparseArray<StorageAsyncLoader.StorageResult> data) {
-        mAppsResult = data;
+    public void onStorageResultChanged(SparseArray<StorageAsyncLoader.StorageResult> results) {
+        mAppsResult = results;
         onReceivedSizes();
     }
 
-    @Override
-    public void onLoaderReset(Loader<SparseArray<StorageAsyncLoader.StorageResult>> loader) {
-    }
-
     @Override
     public void displayResourceTilesToScreen(PreferenceScreen screen) {
         final PreferenceGroup group = screen.findPreference(TARGET_PREFERENCE_GROUP_KEY);
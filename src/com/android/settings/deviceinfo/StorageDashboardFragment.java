@@ -51,12 +51,12 @@ import com.android.settings.deviceinfo.storage.StorageCacheHelper;
 import com.android.settings.deviceinfo.storage.StorageEntry;
 import com.android.settings.deviceinfo.storage.StorageItemPreferenceController;
 import com.android.settings.deviceinfo.storage.StorageSelectionPreferenceController;
+import com.android.settings.deviceinfo.storage.StorageStatsRepository;
 import com.android.settings.deviceinfo.storage.StorageUsageProgressBarPreferenceController;
 import com.android.settings.deviceinfo.storage.StorageUtils;
 import com.android.settings.deviceinfo.storage.UserIconLoader;
 import com.android.settings.deviceinfo.storage.VolumeSizesLoader;
 import com.android.settings.search.BaseSearchIndexProvider;
-import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.deviceinfo.PrivateStorageInfo;
 import com.android.settingslib.deviceinfo.StorageManagerVolumeProvider;
@@ -81,13 +81,11 @@ import java.util.List;
  */
 @SearchIndexable
 public class StorageDashboardFragment extends DashboardFragment
-        implements
-        LoaderManager.LoaderCallbacks<SparseArray<StorageAsyncLoader.StorageResult>> {
+        implements StorageStatsRepository.Callback {
     private static final String TAG = "StorageDashboardFrag";
     private static final String SUMMARY_PREF_KEY = "storage_summary";
     private static final String SELECTED_STORAGE_ENTRY_KEY = "selected_storage_entry_key";
     private static final String TARGET_PREFERENCE_GROUP_KEY = "pref_non_current_users";
-    private static final int STORAGE_JOB_ID = 0;
     private static final int ICON_JOB_ID = 1;
     private static final int VOLUME_SIZE_JOB_ID = 2;
 
@@ -97,6 +95,7 @@ public class StorageDashboardFragment extends DashboardFragment
     private StorageEntry mSelectedStorageEntry;
     private PrivateStorageInfo mStorageInfo;
     private SparseArray<StorageAsyncLoader.StorageResult> mAppsResult;
+    private StorageStatsRepository mStorageStatsRepository;
 
     private StorageItemPreferenceController mPreferenceController;
     private VolumeOptionMenuController mOptionMenuController;
@@ -264,15 +263,32 @@ public class StorageDashboardFragment extends DashboardFragment
                 mPreferenceController.setVolume(null);
             }
             // Stats data is only available on private volumes.
-            getLoaderManager().restartLoader(STORAGE_JOB_ID, Bundle.EMPTY, this);
+            startObservingStorageStats();
             getLoaderManager()
                  .restartLoader(VOLUME_SIZE_JOB_ID, Bundle.EMPTY, new VolumeSizeCallbacks());
             getLoaderManager().restartLoader(ICON_JOB_ID, Bundle.EMPTY, new IconLoaderCallbacks());
         } else {
+            stopObservingStorageStats();
             mPreferenceController.setVolume(mSelectedStorageEntry.getVolumeInfo());
         }
     }
 
+    private void startObservingStorageStats() {
+        stopObservingStorageStats();
+        mStorageStatsRepository =
+                StorageStatsRepository.get(getContext(), mSelectedStorageEntry.getFsUuid());
+        // The stats already known are delivered right away, and updated once refreshed.
+        mStorageStatsRepository.addCallback(this);
+        mStorageStatsRepository.refresh();
+    }
+
+    private void stopObservingStorageStats() {
+        if (mStorageStatsRepository != null) {
+            mStorageStatsRepository.removeCallback(this);
+            mStorageStatsRepository = null;
+        }
+    }
+
     @Override
     public void onCreate(Bundle icicle) {
         super.onCreate(icicle);
@@ -363,7 +379,7 @@ public class StorageDashboardFragment extends DashboardFragment
         mStorageManager.unregisterListener(mStorageEventListener);
         // Destroy the data loaders to prevent unnecessary data loading when switching back to the
         // page.
-        getLoaderManager().destroyLoader(STORAGE_JOB_ID);
+        stopObservingStorageStats();
         getLoaderManager().destroyLoader(ICON_JOB_ID);
         getLoaderManager().destroyLoader(VOLUME_SIZE_JOB_ID);
     }
@@ -475,26 +491,11 @@ public class StorageDashboardFragment extends DashboardFragment
             };
 
     @Override
-    public Loader<SparseArray<StorageAsyncLoader.StorageResult>> onCreateLoader(int id,
-            Bundle args) {
-        final Context context = getContext();
-        return new StorageAsyncLoader(context, mUserManager,
-                mSelectedStorageEntry.getFsUuid(),
-                new StorageStatsSource(context),
-                context.getPackageManager());
-    }
-
-    @Override
-    public void onLoadFinished(Loader<SparseArray<StorageAsyncLoader.StorageResult>> loader,
-            SparseArray<StorageAsyncLoader.StorageResult> data) {
-        mAppsResult = data;
+    public void onStorageResultChanged(SparseArray<StorageAsyncLoader.StorageResult> results) {
+        mAppsResult = results;
         onReceivedSizes();
     }
 
-    @Override
-    public void onLoaderReset(Loader<SparseArray<StorageAsyncLoader.StorageResult>> loader) {
-    }
-
 
     @Override
     public void displayResourceTilesToScreen(PreferenceScreen screen) {
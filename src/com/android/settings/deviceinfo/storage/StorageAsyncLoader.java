@@ -16,33 +16,16 @@
 
 package com.android.settings.deviceinfo.storage;
 
-import static android.content.pm.ApplicationInfo.CATEGORY_AUDIO;
-import static android.content.pm.ApplicationInfo.CATEGORY_GAME;
-import static android.content.pm.ApplicationInfo.CATEGORY_IMAGE;
-import static android.content.pm.ApplicationInfo.CATEGORY_VIDEO;
-
-import android.content.ContentResolver;
 import android.content.Context;
-import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.content.pm.PackageManager.NameNotFoundException;
 import android.content.pm.UserInfo;
-import android.database.Cursor;
-import android.net.Uri;
-import android.os.Bundle;
-import android.os.UserHandle;
 import android.os.UserManager;
-import android.provider.MediaStore;
-import android.provider.MediaStore.Files.FileColumns;
-import android.provider.MediaStore.MediaColumns;
 import android.util.ArraySet;
-import android.util.Log;
 import android.util.SparseArray;
 
 import com.android.settingslib.applications.StorageStatsSource;
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
-import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -53,12 +36,10 @@ import java.util.List;
 public class StorageAsyncLoader
         extends AsyncLoaderCompat<SparseArray<StorageAsyncLoader.StorageResult>> {
     private UserManager mUserManager;
-    private static final String TAG = "StorageAsyncLoader";
 
     private String mUuid;
     private StorageStatsSource mStatsManager;
     private PackageManager mPackageManager;
-    private ArraySet<String> mSeenPackages;
 
     public StorageAsyncLoader(Context context, UserManager userManager,
             String uuid, StorageStatsSource source, PackageManager pm) {
@@ -75,7 +56,9 @@ public class StorageAsyncLoader
     }
 
     private SparseArray<StorageResult> getStorageResultsForUsers() {
-        mSeenPackages = new ArraySet<>();
+        final StorageResultCalculator calculator = new StorageResultCalculator(getContext(),
+                mUuid, mStatsManager, mPackageManager);
+        final ArraySet<String> seenPackages = new ArraySet<>();
         final SparseArray<StorageResult> results = new SparseArray<>();
         final List<UserInfo> infos = mUserManager.getUsers();
 
@@ -84,131 +67,15 @@ public class StorageAsyncLoader
                 (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
 
         for (UserInfo info : infos) {
-            final StorageResult result = getAppsAndGamesSize(info.id);
-            final Bundle media = new Bundle();
-            media.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, MediaColumns.VOLUME_NAME
-                    + "= '" + MediaStore.VOLUME_EXTERNAL_PRIMARY + "'");
-            result.imagesSize = getFilesSize(info.id, MediaStore.Images.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-            result.videosSize = getFilesSize(info.id, MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-            result.audioSize = getFilesSize(info.id, MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
-                    media /* queryArgs */);
-
-            final Bundle documentsAndOtherQueryArgs = new Bundle();
-            documentsAndOtherQueryArgs.putString(ContentResolver.QUERY_ARG_SQL_SELECTION,
-                    FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_IMAGE
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_VIDEO
-                    + " AND " + FileColumns.MEDIA_TYPE + "!=" + FileColumns.MEDIA_TYPE_AUDIO
-                    + " AND " + FileColumns.MIME_TYPE + " IS NOT NULL");
-            result.documentsAndOtherSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
-                    documentsAndOtherQueryArgs);
-
-            final Bundle trashQueryArgs = new Bundle();
-            trashQueryArgs.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
-            result.trashSize = getFilesSize(info.id,
-                    MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL_PRIMARY),
-                    trashQueryArgs);
-
+            final StorageResult result = new StorageResult();
+            // Packages are unique within a user, so the same set collects them.
+            calculator.loadAppsAndGamesSize(info.id, result, seenPackages, seenPackages);
+            calculator.loadFilesSize(info.id, result);
             results.put(info.id, result);
         }
         return results;
     }
 
-    private long getFilesSize(int userId, Uri uri, Bundle queryArgs) {
-        final Context perUserContext;
-        try {
-            perUserContext = getContext().createPackageContextAsUser(
-                getContext().getApplicationContext().getPackageName(),
-                0 /* flags= */,
-                UserHandle.of(userId));
-        } catch (NameNotFoundException e) {
-            Log.e(TAG, "Not able to get Context for user ID " + userId);
-            return 0L;
-        }
-
-        try (Cursor cursor = perUserContext.getContentResolver().query(
-                uri,
-                new String[] {"sum(" + MediaColumns.SIZE + ")"},
-                queryArgs,
-                null /* cancellationSignal */)) {
-            if (cursor == null) {
-                return 0L;
-            }
-            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
-        }
-    }
-
-    private StorageResult getAppsAndGamesSize(int userId) {
-        Log.d(TAG, "Loading apps");
-        final List<ApplicationInfo> applicationInfos =
-                mPackageManager.getInstalledApplicationsAsUser(0, userId);
-        final StorageResult result = new StorageResult();
-        final UserHandle myUser = UserHandle.of(userId);
-        for (int i = 0, size = applicationInfos.size(); i < size; i++) {
-            final ApplicationInfo app = applicationInfos.get(i);
-
-            StorageStatsSource.AppStorageStats stats;
-            try {
-                stats = mStatsManager.getStatsForPackage(mUuid, app.packageName, myUser);
-            } catch (NameNotFoundException | IOException e) {
-                // This may happen if the package was removed during our calculation.
-                Log.w(TAG, "App unexpectedly not found", e);
-                continue;
-            }
-
-            final long dataSize = stats.getDataBytes();
-            final long cacheQuota = mStatsManager.getCacheQuotaBytes(mUuid, app.uid);
-            final long cacheBytes = stats.getCacheBytes();
-            long blamedSize = dataSize + stats.getCodeBytes();
-            // Technically, we could overages as freeable on the storage settings screen.
-            // If the app is using more cache than its quota, we would accidentally subtract the
-            // overage from the system size (because it shows up as unused) during our attribution.
-            // Thus, we cap the attribution at the quota size.
-            if (cacheQuota < cacheBytes) {
-                blamedSize = blamedSize - cacheBytes + cacheQuota;
-            }
-
-            // Code bytes may share between different profiles. To know all the duplicate code size
-            // and we can get a reasonable system size in StorageItemPreferenceController.
-            if (mSeenPackages.contains(app.packageName)) {
-                result.duplicateCodeSize += stats.getCodeBytes();
-            } else {
-                mSeenPackages.add(app.packageName);
-            }
-
-            switch (app.category) {
-                case CATEGORY_GAME:
-                    result.gamesSize += blamedSize;
-                    break;
-                case CATEGORY_AUDIO:
-                case CATEGORY_VIDEO:
-                case CATEGORY_IMAGE:
-                    result.allAppsExceptGamesSize += blamedSize;
-                    break;
-                default:
-                    // The deprecated game flag does not set the category.
-                    if ((app.flags & ApplicationInfo.FLAG_IS_GAME) != 0) {
-                        result.gamesSize += blamedSize;
-                        break;
-                    }
-                    result.allAppsExceptGamesSize += blamedSize;
-                    break;
-            }
-        }
-
-        Log.d(TAG, "Loading external stats");
-        try {
-            result.externalStats = mStatsManager.getExternalStorageStats(mUuid,
-                    UserHandle.of(userId));
-        } catch (IOException e) {
-            Log.w(TAG, e);
-        }
-        Log.d(TAG, "Obtaining result completed");
-        return result;
-    }
-
     @Override
     protected void onDiscardResult(SparseArray<StorageResult> result) {
     }
@@ -229,6 +96,22 @@ public class StorageAsyncLoader
         public long cacheSize;
         public long duplicateCodeSize;
         public StorageStatsSource.ExternalStorageStats externalStats;
+
+        /** Returns a copy of this result. */
+        public StorageResult copy() {
+            final StorageResult copy = new StorageResult();
+            copy.gamesSize = gamesSize;
+            copy.allAppsExceptGamesSize = allAppsExceptGamesSize;
+            copy.audioSize = audioSize;
+            copy.imagesSize = imagesSize;
+            copy.videosSize = videosSize;
+            copy.documentsAndOtherSize = documentsAndOtherSize;
+            copy.trashSize = trashSize;
+            copy.cacheSize = cacheSize;
+            copy.duplicateCodeSize = duplicateCodeSize;
+            copy.externalStats = externalStats;
+            return copy;
+        }
     }
 
     /**
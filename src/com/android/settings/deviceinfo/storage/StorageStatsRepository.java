@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.UserInfo;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.provider.MediaStore;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.util.SparseLongArray;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.applications.StorageStatsSource;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Process wide storage stats of the users on a volume, shared by {@code StorageDashboardFragment}
+ * and every {@code StorageCategoryFragment}.
+ *
+ * <p>The stats are loaded once, then only the apps or the files of a user are computed again,
+ * once a package or a media file of that user changed, or once they are older than
+ * {@link #MAX_AGE_MILLIS}. Callbacks receive the stats of every user again as soon as those of
+ * one user were refreshed.</p>
+ */
+public class StorageStatsRepository {
+    private static final String TAG = "StorageStatsRepository";
+
+    @VisibleForTesting
+    static final int CATEGORY_APPS = 1;
+    @VisibleForTesting
+    static final int CATEGORY_FILES = 1 << 1;
+    private static final int CATEGORY_ALL = CATEGORY_APPS | CATEGORY_FILES;
+
+    // Apps and files also grow while they are used.
+    @VisibleForTesting
+    static final long MAX_AGE_MILLIS = 30_000;
+
+    // By volume uuid, the internal volume has a null one.
+    private static final Map<String, StorageStatsRepository> sRepositories = new ArrayMap<>();
+    private static boolean sListening;
+
+    /** Receives the stats of every user of the volume. Called on the main thread. */
+    public interface Callback {
+        /** Called with the latest stats of every user of the volume. */
+        void onStorageResultChanged(SparseArray<StorageAsyncLoader.StorageResult> results);
+    }
+
+    private final UserManager mUserManager;
+    private final StorageResultCalculator mCalculator;
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainExecutor;
+    // Main thread only.
+    private final Set<Callback> mCallbacks = new ArraySet<>();
+    private boolean mRefreshing;
+    private boolean mRefreshPending;
+
+    // Guarded by this.
+    private final SparseArray<StorageAsyncLoader.StorageResult> mResults = new SparseArray<>();
+    private final SparseArray<Set<String>> mPackages = new SparseArray<>();
+    private final SparseLongArray mAppsLoadedAt = new SparseLongArray();
+    private final SparseLongArray mFilesLoadedAt = new SparseLongArray();
+    private final SparseIntArray mInvalidCategories = new SparseIntArray();
+
+    /** Returns the repository of the given volume. */
+    public static StorageStatsRepository get(Context context, @Nullable String fsUuid) {
+        final Context appContext = context.getApplicationContext();
+        synchronized (sRepositories) {
+            if (!sListening) {
+                registerListeners(appContext);
+                sListening = true;
+            }
+            StorageStatsRepository repository = sRepositories.get(fsUuid);
+            if (repository == null) {
+                repository = new StorageStatsRepository(
+                        appContext.getSystemService(UserManager.class),
+                        new StorageResultCalculator(appContext, fsUuid,
+                                new StorageStatsSource(appContext),
+                                appContext.getPackageManager()),
+                        Executors.newSingleThreadExecutor(), ThreadUtils::postOnMainThread);
+                sRepositories.put(fsUuid, repository);
+            }
+            return repository;
+        }
+    }
+
+    @VisibleForTesting
+    StorageStatsRepository(UserManager userManager, StorageResultCalculator calculator,
+            Executor backgroundExecutor, Executor mainExecutor) {
+        mUserManager = userManager;
+        mCalculator = calculator;
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
+    }
+
+    /**
+     * Starts receiving the stats, right away if those of every user are known. Call
+     * {@link #refresh} to bring them up to date.
+     */
+    public void addCallback(Callback callback) {
+        mCallbacks.add(callback);
+        final SparseArray<StorageAsyncLoader.StorageResult> results = getResultsIfComplete();
+        if (results != null) {
+            callback.onStorageResultChanged(results);
+        }
+    }
+
+    /** Stops receiving the stats. */
+    public void removeCallback(Callback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    /** Computes again, in the background, the stats that changed or are too old. */
+    public void refresh() {
+        if (mRefreshing) {
+            mRefreshPending = true;
+            return;
+        }
+        mRefreshing = true;
+        mBackgroundExecutor.execute(() -> {
+            try {
+                refreshInBackground();
+            } finally {
+                mMainExecutor.execute(() -> {
+                    mRefreshing = false;
+                    if (mRefreshPending) {
+                        mRefreshPending = false;
+                        refresh();
+                    }
+                });
+            }
+        });
+    }
+
+    /** Marks the given categories of a user as changed. */
+    @VisibleForTesting
+    void invalidate(int userId, int categories) {
+        synchronized (this) {
+            mInvalidCategories.put(userId, mInvalidCategories.get(userId) | categories);
+        }
+        mMainExecutor.execute(() -> {
+            // Only keep the shown stats up to date.
+            if (!mCallbacks.isEmpty()) {
+                refresh();
+            }
+        });
+    }
+
+    @VisibleForTesting
+    void refreshInBackground() {
+        final List<UserInfo> infos = new ArrayList<>(mUserManager.getUsers());
+        // Sort the users by user id ascending, the code shared with an earlier user is only
+        // counted once.
+        Collections.sort(infos,
+                (userInfo, otherUser) -> Integer.compare(userInfo.id, otherUser.id));
+        forgetRemovedUsers(infos);
+
+        final Set<String> seenPackages = new ArraySet<>();
+        boolean earlierPackagesChanged = false;
+        for (UserInfo info : infos) {
+            final int userId = info.id;
+            final long now = SystemClock.elapsedRealtime();
+            final StorageAsyncLoader.StorageResult result;
+            final Set<String> previousPackages;
+            int categories;
+            synchronized (this) {
+                final StorageAsyncLoader.StorageResult previous = mResults.get(userId);
+                categories = previous == null
+                        ? CATEGORY_ALL : mInvalidCategories.get(userId);
+                if (now - mAppsLoadedAt.get(userId) >= MAX_AGE_MILLIS) {
+                    categories |= CATEGORY_APPS;
+                }
+                if (now - mFilesLoadedAt.get(userId) >= MAX_AGE_MILLIS) {
+                    categories |= CATEGORY_FILES;
+                }
+                mInvalidCategories.delete(userId);
+                result = previous == null
+                        ? new StorageAsyncLoader.StorageResult() : previous.copy();
+                previousPackages = mPackages.get(userId);
+            }
+            if (earlierPackagesChanged) {
+                // The code shared with the earlier users changed.
+                categories |= CATEGORY_APPS;
+            }
+
+            Set<String> packages = previousPackages;
+            if ((categories & CATEGORY_APPS) != 0) {
+                packages = new ArraySet<>();
+                mCalculator.loadAppsAndGamesSize(userId, result, seenPackages, packages);
+                earlierPackagesChanged |= !packages.equals(previousPackages);
+            }
+            if ((categories & CATEGORY_FILES) != 0) {
+                mCalculator.loadFilesSize(userId, result);
+            }
+            seenPackages.addAll(packages);
+            if (categories == 0) {
+                continue;
+            }
+
+            synchronized (this) {
+                mResults.put(userId, result);
+                mPackages.put(userId, packages);
+                if ((categories & CATEGORY_APPS) != 0) {
+                    mAppsLoadedAt.put(userId, now);
+                }
+                if ((categories & CATEGORY_FILES) != 0) {
+                    mFilesLoadedAt.put(userId, now);
+                }
+            }
+            publish();
+        }
+    }
+
+    private synchronized void forgetRemovedUsers(List<UserInfo> infos) {
+        final Set<Integer> userIds = new ArraySet<>();
+        for (UserInfo info : infos) {
+            userIds.add(info.id);
+        }
+        for (int i = mResults.size() - 1; i >= 0; i--) {
+            final int userId = mResults.keyAt(i);
+            if (!userIds.contains(userId)) {
+                mResults.removeAt(i);
+                mPackages.remove(userId);
+                mAppsLoadedAt.delete(userId);
+                mFilesLoadedAt.delete(userId);
+            }
+        }
+    }
+
+    private void publish() {
+        final SparseArray<StorageAsyncLoader.StorageResult> results = getResultsIfComplete();
+        if (results == null) {
+            return;
+        }
+        mMainExecutor.execute(() -> {
+            for (Callback callback : new ArrayList<>(mCallbacks)) {
+                callback.onStorageResultChanged(results);
+            }
+        });
+    }
+
+    /** Returns a copy of the stats if those of every user are known, {@code null} otherwise. */
+    @Nullable
+    private SparseArray<StorageAsyncLoader.StorageResult> getResultsIfComplete() {
+        final List<UserInfo> infos = mUserManager.getUsers();
+        synchronized (this) {
+            for (UserInfo info : infos) {
+                if (mResults.get(info.id) == null) {
+                    return null;
+                }
+            }
+            return mResults.clone();
+        }
+    }
+
+    private static void invalidateAll(int userId, int categories) {
+        final List<StorageStatsRepository> repositories;
+        synchronized (sRepositories) {
+            repositories = new ArrayList<>(sRepositories.values());
+        }
+        for (StorageStatsRepository repository : repositories) {
+            repository.invalidate(userId, categories);
+        }
+    }
+
+    private static void registerListeners(Context context) {
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_DATA_CLEARED);
+        packageFilter.addDataScheme("package");
+        context.registerReceiverForAllUsers(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                final int uid = intent.getIntExtra(Intent.EXTRA_UID, -1);
+                if (uid < 0) {
+                    Log.w(TAG, "No uid for " + intent.getAction());
+                    return;
+                }
+                invalidateAll(UserHandle.getUserId(uid), CATEGORY_APPS);
+            }
+        }, packageFilter, null /* permission */, null /* scheduler */);
+
+        context.getContentResolver().registerContentObserver(MediaStore.AUTHORITY_URI,
+                true /* notifyForDescendants */,
+                new ContentObserver(new Handler(Looper.getMainLooper())) {
+                    @Override
+                    public void onChange(boolean selfChange, Uri uri, int userId) {
+                        invalidateAll(userId, CATEGORY_FILES);
+                    }
+                }, UserHandle.USER_ALL);
+    }
+}
@@ -21,12 +21,10 @@ import android.content.res.Resources;
 import android.os.AsyncTask;
 import android.os.BatteryManager;
 import android.os.BatteryStats.HistoryItem;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
 import android.os.SystemClock;
 import android.provider.Settings;
 import android.text.format.Formatter;
-import android.util.Log;
 import android.util.SparseIntArray;
 
 import androidx.annotation.NonNull;
@@ -35,6 +33,7 @@ import androidx.annotation.WorkerThread;
 
 import com.android.internal.os.BatteryStatsHistoryIterator;
 import com.android.settings.Utils;
+import com.android.settings.fuelgauge.batteryusage.SharedBatteryUsageStats;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.widget.UsageView;
 import com.android.settingslib.fuelgauge.Estimate;
@@ -43,7 +42,6 @@ import com.android.settingslib.utils.PowerUtil;
 import com.android.settingslib.utils.StringUtil;
 
 public class BatteryInfo {
-    private static final String TAG = "BatteryInfo";
 
     public CharSequence chargeLabel;
     public CharSequence remainingLabel;
@@ -177,29 +175,14 @@ public class BatteryInfo {
         new AsyncTask<Void, Void, BatteryInfo>() {
             @Override
             protected BatteryInfo doInBackground(Void... params) {
-                boolean shouldCloseBatteryUsageStats = false;
-                BatteryUsageStats stats;
-                if (batteryUsageStats != null) {
-                    stats = batteryUsageStats;
-                } else {
-                    try {
-                        stats =
-                                context.getSystemService(BatteryStatsManager.class)
-                                        .getBatteryUsageStats();
-                        shouldCloseBatteryUsageStats = true;
-                    } catch (RuntimeException e) {
-                        Log.e(TAG, "getBatteryInfo() from getBatteryUsageStats()", e);
-                        // Use default BatteryUsageStats.
-                        stats = new BatteryUsageStats.Builder(new String[0]).build();
-                    }
-                }
+                final BatteryUsageStats stats =
+                        batteryUsageStats != null
+                                ? batteryUsageStats
+                                : SharedBatteryUsageStats.acquire(
+                                        context, /* includeBatteryHistory= */ false);
                 final BatteryInfo batteryInfo = getBatteryInfo(context, stats, shortString);
-                if (shouldCloseBatteryUsageStats) {
-                    try {
-                        stats.close();
-                    } catch (Exception e) {
-                        Log.e(TAG, "BatteryUsageStats.close() failed", e);
-                    }
+                if (batteryUsageStats == null) {
+                    SharedBatteryUsageStats.release(stats);
                 }
                 return batteryInfo;
             }
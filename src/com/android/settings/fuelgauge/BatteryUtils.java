@@ -24,9 +24,7 @@ import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.os.BatteryManager;
 import android.os.BatteryStats;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
 import android.os.Build;
 import android.os.SystemClock;
 import android.os.UidBatteryConsumer;
@@ -45,6 +43,7 @@ import com.android.internal.util.ArrayUtils;
 import com.android.settings.R;
 import com.android.settings.fuelgauge.batterytip.AnomalyDatabaseHelper;
 import com.android.settings.fuelgauge.batterytip.BatteryDatabaseManager;
+import com.android.settings.fuelgauge.batteryusage.SharedBatteryUsageStats;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.applications.AppUtils;
 import com.android.settingslib.fuelgauge.Estimate;
@@ -424,18 +423,8 @@ public class BatteryUtils {
 
     @WorkerThread
     public BatteryInfo getBatteryInfo(final String tag) {
-        final BatteryStatsManager systemService =
-                mContext.getSystemService(BatteryStatsManager.class);
-        BatteryUsageStats batteryUsageStats;
-        try {
-            batteryUsageStats =
-                    systemService.getBatteryUsageStats(
-                            new BatteryUsageStatsQuery.Builder().includeBatteryHistory().build());
-        } catch (RuntimeException e) {
-            Log.e(TAG, "getBatteryInfo() error from getBatteryUsageStats()", e);
-            // Use default BatteryUsageStats.
-            batteryUsageStats = new BatteryUsageStats.Builder(new String[0]).build();
-        }
+        final BatteryUsageStats batteryUsageStats =
+                SharedBatteryUsageStats.acquire(mContext, /* includeBatteryHistory= */ true);
 
         final long startTime = System.currentTimeMillis();
 
@@ -467,11 +456,7 @@ public class BatteryUtils {
                         false /* shortString */);
         BatteryUtils.logRuntime(tag, "BatteryInfoLoader.loadInBackground", startTime);
 
-        try {
-            batteryUsageStats.close();
-        } catch (Exception e) {
-            Log.e(TAG, "BatteryUsageStats.close() failed", e);
-        }
+        SharedBatteryUsageStats.release(batteryUsageStats);
         return batteryInfo;
     }
 
@@ -17,41 +17,63 @@
 package com.android.settings.fuelgauge.batteryusage;
 
 import android.content.Context;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
-import android.util.Log;
 
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
-/** Loader to get new {@link BatteryUsageStats} in the background */
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Loader to get recent {@link BatteryUsageStats} in the background. The stats are shared, the
+ * loader releases them once replaced or reset, the receiver must neither close nor release them.
+ */
 public class BatteryUsageStatsLoader extends AsyncLoaderCompat<BatteryUsageStats> {
-    private static final String TAG = "BatteryUsageStatsLoader";
-    private final BatteryStatsManager mBatteryStatsManager;
+    private final Context mContext;
     private final boolean mIncludeBatteryHistory;
+    // The stats acquired by this loader and not released yet, at most once each, since the same
+    // result may be delivered again or both canceled and discarded.
+    private final Set<BatteryUsageStats> mAcquired =
+            Collections.newSetFromMap(new IdentityHashMap<>());
 
     public BatteryUsageStatsLoader(Context context, boolean includeBatteryHistory) {
         super(context);
-        mBatteryStatsManager = context.getSystemService(BatteryStatsManager.class);
+        mContext = context;
         mIncludeBatteryHistory = includeBatteryHistory;
     }
 
     @Override
     public BatteryUsageStats loadInBackground() {
-        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
-        if (mIncludeBatteryHistory) {
-            builder.includeBatteryHistory();
-        }
-        try {
-            return mBatteryStatsManager.getBatteryUsageStats(
-                    builder.includeProcessStateData().build());
-        } catch (RuntimeException e) {
-            Log.e(TAG, "loadInBackground() for getBatteryUsageStats()", e);
-            // Use default BatteryUsageStats.
-            return new BatteryUsageStats.Builder(new String[0]).build();
+        final BatteryUsageStats stats =
+                SharedBatteryUsageStats.acquire(mContext, mIncludeBatteryHistory);
+        synchronized (mAcquired) {
+            if (mAcquired.add(stats)) {
+                return stats;
+            }
         }
+        // Already held by this loader, only one reference is released later.
+        SharedBatteryUsageStats.release(stats);
+        return stats;
+    }
+
+    @Override
+    public void onCanceled(BatteryUsageStats data) {
+        super.onCanceled(data);
+        releaseIfAcquired(data);
     }
 
     @Override
-    protected void onDiscardResult(BatteryUsageStats result) {}
+    protected void onDiscardResult(BatteryUsageStats result) {
+        releaseIfAcquired(result);
+    }
+
+    private void releaseIfAcquired(BatteryUsageStats stats) {
+        synchronized (mAcquired) {
+            if (stats == null || !mAcquired.remove(stats)) {
+                return;
+            }
+        }
+        SharedBatteryUsageStats.release(stats);
+    }
 }
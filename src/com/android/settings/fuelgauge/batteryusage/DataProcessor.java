@@ -30,9 +30,7 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.content.pm.UserInfo;
 import android.os.BatteryConsumer;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
 import android.os.Process;
 import android.os.RemoteException;
 import android.os.ServiceManager;
@@ -169,16 +167,13 @@ public final class DataProcessor {
                         batteryLevelData);
     }
 
-    /** Gets the {@link BatteryUsageStats} from system service. */
+    /**
+     * Gets recent {@link BatteryUsageStats} from system service, shared with the battery screens.
+     * Release them with {@link #closeBatteryUsageStats}.
+     */
     @Nullable
     public static BatteryUsageStats getBatteryUsageStats(final Context context) {
-        final BatteryUsageStatsQuery batteryUsageStatsQuery =
-                new BatteryUsageStatsQuery.Builder()
-                        .includeBatteryHistory()
-                        .includeProcessStateData()
-                        .build();
-        return context.getSystemService(BatteryStatsManager.class)
-                .getBatteryUsageStats(batteryUsageStatsQuery);
+        return SharedBatteryUsageStats.acquire(context, /* includeBatteryHistory= */ true);
     }
 
     /** Gets the {@link UsageEvents} from system service for all unlocked users. */
@@ -236,15 +231,9 @@ public final class DataProcessor {
         return events;
     }
 
-    /** Closes the {@link BatteryUsageStats} after using it. */
+    /** Releases the {@link BatteryUsageStats} after using it. */
     public static void closeBatteryUsageStats(BatteryUsageStats batteryUsageStats) {
-        if (batteryUsageStats != null) {
-            try {
-                batteryUsageStats.close();
-            } catch (Exception e) {
-                Log.e(TAG, "BatteryUsageStats.close() failed", e);
-            }
-        }
+        SharedBatteryUsageStats.release(batteryUsageStats);
     }
 
     /**
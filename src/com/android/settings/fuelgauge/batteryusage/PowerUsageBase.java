@@ -22,7 +22,6 @@ import android.content.Context;
 import android.os.BatteryUsageStats;
 import android.os.Bundle;
 import android.os.UserManager;
-import android.util.Log;
 
 import androidx.annotation.IntDef;
 import androidx.annotation.NonNull;
@@ -96,7 +95,10 @@ public abstract class PowerUsageBase extends DashboardFragment {
     public void onStop() {
         super.onStop();
         mBatteryBroadcastReceiver.unRegister();
-        closeBatteryUsageStatsIfNeeded();
+        // Releases the stats the loader holds, until the screen is shown again.
+        getLoaderManagerForCurrentFragment()
+                .destroyLoader(LoaderIndex.BATTERY_USAGE_STATS_LOADER);
+        mBatteryUsageStats = null;
     }
 
     protected void restartBatteryStatsLoader(int refreshType) {
@@ -142,7 +144,6 @@ public abstract class PowerUsageBase extends DashboardFragment {
         @Override
         public void onLoadFinished(
                 Loader<BatteryUsageStats> loader, BatteryUsageStats batteryUsageStats) {
-            closeBatteryUsageStatsIfNeeded();
             mBatteryUsageStats = batteryUsageStats;
             PowerUsageBase.this.onLoadFinished(mRefreshType);
         }
@@ -150,17 +151,4 @@ public abstract class PowerUsageBase extends DashboardFragment {
         @Override
         public void onLoaderReset(Loader<BatteryUsageStats> loader) {}
     }
-
-    private void closeBatteryUsageStatsIfNeeded() {
-        if (mBatteryUsageStats == null) {
-            return;
-        }
-        try {
-            mBatteryUsageStats.close();
-        } catch (Exception e) {
-            Log.e(TAG, "BatteryUsageStats.close() failed", e);
-        } finally {
-            mBatteryUsageStats = null;
-        }
-    }
 }
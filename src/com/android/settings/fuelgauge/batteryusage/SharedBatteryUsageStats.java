@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.lang.ref.WeakReference;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Shares the {@link BatteryUsageStats} pulled from the stats service between the battery screens,
+ * so moving between them does not pull the stats again.
+ *
+ * <p>Every {@link #acquire} must be paired with a {@link #release} instead of closing the stats.
+ * The stats are closed once released by everyone and older than {@link #MAX_AGE_MILLIS}. Stats
+ * with the battery history are never shared: walking the history moves the read position of its
+ * parcel, so concurrent walks over one instance would read garbage.</p>
+ */
+public final class SharedBatteryUsageStats {
+    private static final String TAG = "SharedBatteryUsageStats";
+
+    @VisibleForTesting
+    static final long MAX_AGE_MILLIS = 10_000;
+
+    // Only one pull at a time, the others wait to share it.
+    private static final Object sLoadLock = new Object();
+    private static final Object sLock = new Object();
+
+    // The process the snapshots were pulled for. Guarded by sLock.
+    private static WeakReference<Context> sAppContext = new WeakReference<>(null);
+    // The latest snapshot. Guarded by sLock.
+    @Nullable private static Snapshot sLatest;
+    // Every snapshot not closed yet. Guarded by sLock.
+    private static final Map<BatteryUsageStats, Snapshot> sSnapshots = new IdentityHashMap<>();
+
+    private static class Snapshot {
+        final BatteryUsageStats mStats;
+        final long mLoadedAt;
+        int mReferenceCount = 1;
+
+        Snapshot(BatteryUsageStats stats, long loadedAt) {
+            mStats = stats;
+            mLoadedAt = loadedAt;
+        }
+
+        boolean isFresh() {
+            return SystemClock.elapsedRealtime() - mLoadedAt < MAX_AGE_MILLIS;
+        }
+    }
+
+    private SharedBatteryUsageStats() {}
+
+    /**
+     * Returns recent {@link BatteryUsageStats}, pulled from the stats service unless they were
+     * pulled by another screen a moment ago. Stats with the battery history are always pulled
+     * for the caller alone. Release them with {@link #release} once done.
+     */
+    @WorkerThread
+    public static BatteryUsageStats acquire(Context context, boolean includeBatteryHistory) {
+        if (includeBatteryHistory) {
+            return loadOrDefault(context, /* includeBatteryHistory= */ true);
+        }
+        synchronized (sLoadLock) {
+            synchronized (sLock) {
+                if (sAppContext.get() != context.getApplicationContext()) {
+                    forgetLatest();
+                    sAppContext = new WeakReference<>(context.getApplicationContext());
+                }
+                if (sLatest != null && sLatest.isFresh()) {
+                    sLatest.mReferenceCount++;
+                    return sLatest.mStats;
+                }
+            }
+
+            final BatteryUsageStats stats = load(context, /* includeBatteryHistory= */ false);
+            if (stats == null) {
+                // Use default BatteryUsageStats.
+                return new BatteryUsageStats.Builder(new String[0]).build();
+            }
+            final Snapshot snapshot = new Snapshot(stats, SystemClock.elapsedRealtime());
+            final Snapshot previous;
+            synchronized (sLock) {
+                previous = sLatest;
+                sLatest = snapshot;
+                sSnapshots.put(stats, snapshot);
+            }
+            if (previous != null) {
+                closeIfUnused(previous);
+            }
+            return stats;
+        }
+    }
+
+    /** Releases the stats returned by {@link #acquire}. */
+    public static void release(@Nullable BatteryUsageStats stats) {
+        if (stats == null) {
+            return;
+        }
+        final Snapshot snapshot;
+        synchronized (sLock) {
+            snapshot = sSnapshots.get(stats);
+            if (snapshot != null && snapshot.mReferenceCount > 0) {
+                snapshot.mReferenceCount--;
+            }
+        }
+        if (snapshot == null) {
+            // Not shared.
+            close(stats);
+        } else if (isLatest(snapshot) && snapshot.isFresh()) {
+            // Kept for the next screen, until it gets too old.
+            ThreadUtils.getUiThreadHandler()
+                    .postDelayed(() -> closeIfUnused(snapshot), MAX_AGE_MILLIS);
+        } else {
+            closeIfUnused(snapshot);
+        }
+    }
+
+    private static boolean isLatest(Snapshot snapshot) {
+        synchronized (sLock) {
+            return sLatest == snapshot;
+        }
+    }
+
+    private static void closeIfUnused(Snapshot snapshot) {
+        synchronized (sLock) {
+            if (snapshot.mReferenceCount > 0
+                    || (isLatest(snapshot) && snapshot.isFresh())
+                    || sSnapshots.remove(snapshot.mStats) == null) {
+                return;
+            }
+            if (sLatest == snapshot) {
+                sLatest = null;
+            }
+        }
+        close(snapshot.mStats);
+    }
+
+    private static void forgetLatest() {
+        final Snapshot snapshot = sLatest;
+        sLatest = null;
+        if (snapshot != null && snapshot.mReferenceCount == 0) {
+            sSnapshots.remove(snapshot.mStats);
+            close(snapshot.mStats);
+        }
+    }
+
+    private static BatteryUsageStats loadOrDefault(Context context,
+            boolean includeBatteryHistory) {
+        final BatteryUsageStats stats = load(context, includeBatteryHistory);
+        // Use default BatteryUsageStats.
+        return stats != null ? stats : new BatteryUsageStats.Builder(new String[0]).build();
+    }
+
+    @Nullable
+    private static BatteryUsageStats load(Context context, boolean includeBatteryHistory) {
+        final BatteryUsageStatsQuery.Builder builder =
+                new BatteryUsageStatsQuery.Builder().includeProcessStateData();
+        if (includeBatteryHistory) {
+            builder.includeBatteryHistory();
+        }
+        try {
+            return context.getSystemService(BatteryStatsManager.class)
+                    .getBatteryUsageStats(builder.build());
+        } catch (RuntimeException e) {
+            Log.e(TAG, "load() for getBatteryUsageStats()", e);
+            return null;
+        }
+    }
+
+    private static void close(BatteryUsageStats stats) {
+        try {
+            stats.close();
+        } catch (Exception e) {
+            Log.e(TAG, "BatteryUsageStats.close() failed", e);
+        }
+    }
+}
@@ -21,11 +21,15 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
 import android.os.Build;
 import android.os.StrictMode;
+import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
 
@@ -34,6 +38,9 @@ import androidx.annotation.VisibleForTesting;
 import com.android.settings.R;
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -60,6 +67,16 @@ public class CardContentProvider extends ContentProvider {
     private static final UriMatcher URI_MATCHER = new UriMatcher(UriMatcher.NO_MATCH);
     /** URI matcher type for cards table */
     private static final int MATCH_CARDS = 100;
+    /** Columns of the cards table other than the name. */
+    private static final String[] UPDATABLE_COLUMNS = {
+            CardDatabaseHelper.CardColumns.TYPE,
+            CardDatabaseHelper.CardColumns.SCORE,
+            CardDatabaseHelper.CardColumns.SLICE_URI,
+            CardDatabaseHelper.CardColumns.CATEGORY,
+            CardDatabaseHelper.CardColumns.PACKAGE_NAME,
+            CardDatabaseHelper.CardColumns.APP_VERSION,
+            CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP,
+    };
 
     static {
         URI_MATCHER.addURI(CARD_AUTHORITY, CardDatabaseHelper.CARD_TABLE, MATCH_CARDS);
@@ -77,15 +94,22 @@ public class CardContentProvider extends ContentProvider {
         return uri;
     }
 
+    /**
+     * Replaces the cards with the given ones. Cards missing from {@code values} are deleted, the
+     * others are upserted by name, and a card whose columns are all unchanged is not written.
+     *
+     * @return the number of cards inserted or updated.
+     */
     @Override
     public int bulkInsert(Uri uri, ContentValues[] values) {
         final StrictMode.ThreadPolicy oldPolicy = StrictMode.getThreadPolicy();
-        int numInserted = 0;
+        int numWritten = 0;
         final CardDatabaseHelper DBHelper = CardDatabaseHelper.getInstance(getContext());
         final SQLiteDatabase database = DBHelper.getWritableDatabase();
-        final boolean keepDismissalTimestampBeforeDeletion = getContext().getResources()
+        final boolean keepDismissalTimestamp = getContext().getResources()
                 .getBoolean(R.bool.config_keep_contextual_card_dismissal_timestamp);
-        final Map<String, Long> dismissedTimeMap = new ArrayMap<>();
+        // One statement per set of columns, usually the same for every card.
+        final Map<String, SQLiteStatement> statements = new ArrayMap<>();
 
         try {
             maybeEnableStrictMode();
@@ -93,57 +117,83 @@ public class CardContentProvider extends ContentProvider {
             final String table = getTableFromMatch(uri);
             database.beginTransaction();
 
-            if (keepDismissalTimestampBeforeDeletion) {
-                // Query the existing db and get dismissal info.
-                final String[] columns = new String[]{CardDatabaseHelper.CardColumns.NAME,
-                        CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP};
-                final String selection =
-                        CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP + " IS NOT NULL";
-                try (Cursor cursor = database.query(table, columns, selection,
-                        null/* selectionArgs */, null /* groupBy */,
-                        null /* having */, null /* orderBy */)) {
-                    // Save them to a Map
-                    for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
-                        final String cardName = cursor.getString(cursor.getColumnIndex(
-                                CardDatabaseHelper.CardColumns.NAME));
-                        final long timestamp = cursor.getLong(cursor.getColumnIndex(
-                                CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP));
-                        dismissedTimeMap.put(cardName, timestamp);
-                    }
+            final List<String> names = new ArrayList<>(values.length);
+            for (ContentValues value : values) {
+                final String name = value.getAsString(CardDatabaseHelper.CardColumns.NAME);
+                if (name != null) {
+                    names.add(name);
                 }
             }
-
-            // Here delete data first to avoid redundant insertion. According to cl/215350754
-            database.delete(table, null /* whereClause */, null /* whereArgs */);
+            final int numDeleted = database.delete(table,
+                    CardDatabaseHelper.CardColumns.NAME + " NOT IN ("
+                            + TextUtils.join(",", Collections.nCopies(names.size(), "?")) + ")",
+                    names.toArray(new String[0]));
 
             for (ContentValues value : values) {
-                if (keepDismissalTimestampBeforeDeletion) {
-                    // Replace dismissedTimestamp in each value if there is an old one.
-                    final String cardName =
-                            value.get(CardDatabaseHelper.CardColumns.NAME).toString();
-                    if (dismissedTimeMap.containsKey(cardName)) {
-                        // Replace the value of dismissedTimestamp
-                        value.put(CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP,
-                                dismissedTimeMap.get(cardName));
-                        Log.d(TAG, "Replace dismissed time: " + cardName);
-                    }
+                final String[] columns = value.keySet().toArray(new String[0]);
+                final String sql = buildUpsertSql(table, columns, keepDismissalTimestamp);
+                SQLiteStatement statement = statements.get(sql);
+                if (statement == null) {
+                    statement = database.compileStatement(sql);
+                    statements.put(sql, statement);
                 }
-
-                long ret = database.insert(table, null /* nullColumnHack */, value);
-                if (ret != -1L) {
-                    numInserted++;
-                } else {
+                statement.clearBindings();
+                for (int i = 0; i < columns.length; i++) {
+                    DatabaseUtils.bindObjectToProgram(statement, i + 1, value.get(columns[i]));
+                }
+                try {
+                    numWritten += statement.executeUpdateDelete();
+                } catch (SQLException e) {
                     Log.e(TAG, "The row " + value.getAsString(CardDatabaseHelper.CardColumns.NAME)
-                            + " insertion failed! Please check your data.");
+                            + " insertion failed! Please check your data.", e);
                 }
             }
             database.setTransactionSuccessful();
-            getContext().getContentResolver().notifyChange(uri, null /* observer */);
+            Log.d(TAG, "Cards written: " + numWritten + ", unchanged: "
+                    + (values.length - numWritten) + ", deleted: " + numDeleted);
+            if (numWritten > 0 || numDeleted > 0) {
+                getContext().getContentResolver().notifyChange(uri, null /* observer */);
+            }
         } finally {
+            for (SQLiteStatement statement : statements.values()) {
+                statement.close();
+            }
             database.endTransaction();
             StrictMode.setThreadPolicy(oldPolicy);
         }
-        return numInserted;
+        return numWritten;
+    }
+
+    /**
+     * Builds an upsert of the given columns of a card keyed on its name.
+     * <p>
+     * A card already there is only updated if a column changes. Columns not given take their
+     * default value, as if the card was inserted again. When {@code keepDismissalTimestamp} is
+     * set, the dismissal timestamp of an existing card is kept.
+     */
+    @VisibleForTesting
+    static String buildUpsertSql(String table, String[] columns,
+            boolean keepDismissalTimestamp) {
+        final StringBuilder sql = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(TextUtils.join(", ", columns)).append(") VALUES (")
+                .append(TextUtils.join(", ", Collections.nCopies(columns.length, "?")))
+                .append(") ON CONFLICT(").append(CardDatabaseHelper.CardColumns.NAME)
+                .append(") DO UPDATE SET ");
+        final StringBuilder changed = new StringBuilder();
+        for (int i = 0; i < UPDATABLE_COLUMNS.length; i++) {
+            final String column = UPDATABLE_COLUMNS[i];
+            final String newValue = keepDismissalTimestamp
+                    && CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP.equals(column)
+                    ? "COALESCE(" + table + "." + column + ", excluded." + column + ")"
+                    : "excluded." + column;
+            if (i > 0) {
+                sql.append(", ");
+                changed.append(" OR ");
+            }
+            sql.append(column).append(" = ").append(newValue);
+            changed.append(table).append(".").append(column).append(" IS NOT ").append(newValue);
+        }
+        return sql.append(" WHERE ").append(changed).toString();
     }
 
     @Override
@@ -32,6 +32,7 @@ import androidx.slice.SliceViewManager;
 import androidx.slice.core.SliceAction;
 
 import com.android.settings.overlay.FeatureFactory;
+import com.android.settings.slices.LocalSliceBinder;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.ThreadUtils;
 
@@ -116,7 +117,8 @@ public class EligibleCardChecker implements Callable<ContextualCard> {
 
         // Register a trivial callback to pin the slice
         manager.registerSliceCallback(uri, callback);
-        final Slice slice = manager.bindSlice(uri);
+        // Settings' own slices are built in process, the others are bound by their provider.
+        final Slice slice = LocalSliceBinder.bindSlice(mContext, uri);
 
         // Workaround of unpinning slice in the same SerialExecutor of AsyncTask as SliceCallback's
         // observer.
@@ -21,12 +21,13 @@ import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.provider.UserDictionary;
 import android.util.ArraySet;
+import android.util.Pair;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.loader.content.CursorLoader;
 
+import java.util.Arrays;
 import java.util.Locale;
-import java.util.Objects;
 import java.util.Set;
 
 public class UserDictionaryCursorLoader extends CursorLoader {
@@ -47,6 +48,9 @@ public class UserDictionaryCursorLoader extends CursorLoader {
             UserDictionary.Words.LOCALE + "=?";
     private static final String QUERY_SELECTION_ALL_LOCALES =
             UserDictionary.Words.LOCALE + " is null";
+    private static final String QUERY_SELECTION_PREFIX =
+            " AND " + UserDictionary.Words.WORD + " LIKE ? ESCAPE '\\'";
+    private static final String QUERY_SORT_ORDER = "UPPER(" + UserDictionary.Words.WORD + ")";
 
 
     // Locale can be any of:
@@ -60,42 +64,58 @@ public class UserDictionaryCursorLoader extends CursorLoader {
     // human-readable, like "all_locales" and "current_locales" strings, provided they
     // can be guaranteed not to match locales that may exist.
     private final String mLocale;
+    // Only words starting with this prefix are loaded, case-insensitively. Empty loads all words.
+    private final String mPrefix;
 
     public UserDictionaryCursorLoader(Context context, String locale) {
+        this(context, locale, null /* prefix */);
+    }
+
+    public UserDictionaryCursorLoader(Context context, String locale, String prefix) {
         super(context);
         mLocale = locale;
+        mPrefix = prefix == null ? "" : prefix;
     }
 
     @Override
     public Cursor loadInBackground() {
-        final MatrixCursor result = new MatrixCursor(QUERY_PROJECTION);
-        final Cursor candidate;
+        String selection;
+        String[] selectionArgs;
         if ("".equals(mLocale)) {
-            // Case-insensitive sort
-            candidate = getContext().getContentResolver().query(
-                    UserDictionary.Words.CONTENT_URI, QUERY_PROJECTION,
-                    QUERY_SELECTION_ALL_LOCALES, null,
-                    "UPPER(" + UserDictionary.Words.WORD + ")");
+            selection = QUERY_SELECTION_ALL_LOCALES;
+            selectionArgs = new String[0];
         } else {
             final String queryLocale = null != mLocale ? mLocale : Locale.getDefault().toString();
-            candidate = getContext().getContentResolver().query(UserDictionary.Words.CONTENT_URI,
-                    QUERY_PROJECTION, QUERY_SELECTION,
-                    new String[]{queryLocale}, "UPPER(" + UserDictionary.Words.WORD + ")");
+            selection = QUERY_SELECTION;
+            selectionArgs = new String[]{queryLocale};
         }
-        final Set<Integer> hashSet = new ArraySet<>();
-        for (candidate.moveToFirst(); !candidate.isAfterLast(); candidate.moveToNext()) {
-            final int id = candidate.getInt(0);
-            final String word = candidate.getString(1);
-            final String shortcut = candidate.getString(2);
-            final int hash = Objects.hash(word, shortcut);
-            if (hashSet.contains(hash)) {
-                continue;
+        if (!mPrefix.isEmpty()) {
+            selection += QUERY_SELECTION_PREFIX;
+            selectionArgs = Arrays.copyOf(selectionArgs, selectionArgs.length + 1);
+            selectionArgs[selectionArgs.length - 1] = escapeLikePattern(mPrefix) + "%";
+        }
+        final MatrixCursor result = new MatrixCursor(QUERY_PROJECTION);
+        try (Cursor candidate = getContext().getContentResolver().query(
+                UserDictionary.Words.CONTENT_URI, QUERY_PROJECTION, selection,
+                selectionArgs.length == 0 ? null : selectionArgs, QUERY_SORT_ORDER)) {
+            if (candidate == null) {
+                return result;
+            }
+            // Only keeps the first of the rows with the exact same word and shortcut.
+            final Set<Pair<String, String>> seen = new ArraySet<>();
+            while (candidate.moveToNext()) {
+                final String word = candidate.getString(1);
+                final String shortcut = candidate.getString(INDEX_SHORTCUT);
+                if (seen.add(Pair.create(word, shortcut))) {
+                    result.addRow(new Object[]{candidate.getInt(0), word, shortcut});
+                }
             }
-            hashSet.add(hash);
-            result.addRow(new Object[]{id, word, shortcut});
         }
-        // The cursor needs to be closed after use, otherwise it will cause resource leakage
-        candidate.close();
         return result;
     }
+
+    @VisibleForTesting
+    static String escapeLikePattern(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
@@ -34,6 +34,7 @@ import android.view.ViewGroup;
 import android.widget.AlphabetIndexer;
 import android.widget.ListAdapter;
 import android.widget.ListView;
+import android.widget.SearchView;
 import android.widget.SectionIndexer;
 import android.widget.SimpleCursorAdapter;
 import android.widget.TextView;
@@ -59,12 +60,15 @@ public class UserDictionarySettings extends ListFragment implements Instrumentab
             + UserDictionary.Words.SHORTCUT + "=''";
 
     private static final int OPTIONS_MENU_ADD = Menu.FIRST;
+    private static final int OPTIONS_MENU_SEARCH = Menu.FIRST + 1;
     private static final int LOADER_ID = 1;
+    private static final String ARG_PREFIX = "prefix";
 
     private VisibilityLoggerMixin mVisibilityLoggerMixin;
 
     private Cursor mCursor;
     private String mLocale;
+    private String mPrefix;
 
     @Override
     public int getMetricsCategory() {
@@ -96,9 +100,14 @@ public class UserDictionarySettings extends ListFragment implements Instrumentab
         }
 
         mLocale = locale;
+        if (savedInstanceState != null) {
+            mPrefix = savedInstanceState.getString(ARG_PREFIX);
+        }
 
         setHasOptionsMenu(true);
-        getLoaderManager().initLoader(LOADER_ID, null, this /* callback */);
+        final Bundle args = new Bundle();
+        args.putString(ARG_PREFIX, mPrefix);
+        getLoaderManager().initLoader(LOADER_ID, args, this /* callback */);
     }
 
     @Override
@@ -132,7 +141,19 @@ public class UserDictionarySettings extends ListFragment implements Instrumentab
     public void onResume() {
         super.onResume();
         mVisibilityLoggerMixin.onResume();
-        getLoaderManager().restartLoader(LOADER_ID, null, this /* callback */);
+        restartLoader();
+    }
+
+    @Override
+    public void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(ARG_PREFIX, mPrefix);
+    }
+
+    private void restartLoader() {
+        final Bundle args = new Bundle();
+        args.putString(ARG_PREFIX, mPrefix);
+        getLoaderManager().restartLoader(LOADER_ID, args, this /* callback */);
     }
 
     private ListAdapter createAdapter() {
@@ -158,6 +179,35 @@ public class UserDictionarySettings extends ListFragment implements Instrumentab
                         .setIcon(R.drawable.ic_add_24dp);
         actionItem.setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM |
                 MenuItem.SHOW_AS_ACTION_WITH_TEXT);
+
+        final SearchView searchView = new SearchView(getActivity());
+        searchView.setMaxWidth(Integer.MAX_VALUE);
+        final MenuItem searchItem = menu.add(0, OPTIONS_MENU_SEARCH, 0, R.string.search_settings)
+                .setIcon(R.drawable.ic_search_24dp)
+                .setActionView(searchView)
+                .setShowAsAction(MenuItem.SHOW_AS_ACTION_IF_ROOM
+                        | MenuItem.SHOW_AS_ACTION_COLLAPSE_ACTION_VIEW);
+        if (!TextUtils.isEmpty(mPrefix)) {
+            // Show the search kept across a configuration change, before listening to it.
+            searchItem.expandActionView();
+            searchView.setQuery(mPrefix, false /* submit */);
+        }
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                return false;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                // Only the matching words are queried, the provider does the filtering.
+                if (!TextUtils.equals(mPrefix, newText)) {
+                    mPrefix = newText;
+                    restartLoader();
+                }
+                return true;
+            }
+        });
     }
 
     @Override
@@ -234,7 +284,8 @@ public class UserDictionarySettings extends ListFragment implements Instrumentab
 
     @Override
     public Loader<Cursor> onCreateLoader(int id, Bundle args) {
-        return new UserDictionaryCursorLoader(getContext(), mLocale);
+        return new UserDictionaryCursorLoader(getContext(), mLocale,
+                args == null ? null : args.getString(ARG_PREFIX));
     }
 
     @Override
@@ -18,8 +18,11 @@ package com.android.settings.location;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.UserHandle;
+import android.os.UserManager;
 import android.text.TextUtils;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 
 import com.android.settings.overlay.FeatureFactory;
@@ -29,6 +32,8 @@ import com.android.settingslib.location.InjectedSetting;
 import com.android.settingslib.location.SettingsInjector;
 import com.android.settingslib.widget.AppPreference;
 
+import java.util.List;
+
 /**
  * Adds the preferences specified by the {@link InjectedSetting} objects to a preference group.
  */
@@ -36,11 +41,34 @@ public class AppSettingsInjector extends SettingsInjector {
 
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private final int mMetricsCategory;
+    private final InjectedLocationSettingsRegistry mRegistry;
+    private final UserManager mUserManager;
 
     public AppSettingsInjector(Context context, int metricsCategory) {
+        this(context, metricsCategory, InjectedLocationSettingsRegistry.getInstance(context));
+    }
+
+    @VisibleForTesting
+    AppSettingsInjector(Context context, int metricsCategory,
+            InjectedLocationSettingsRegistry registry) {
         super(context);
         mMetricsCategory = metricsCategory;
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
+        mRegistry = registry;
+        mUserManager = context.getSystemService(UserManager.class);
+    }
+
+    /**
+     * Loads the settings of every profile in the background, then runs {@code onPrefetched} on
+     * the main thread, so {@link #getInjectedSettings} does not block on them.
+     */
+    public void prefetch(Runnable onPrefetched) {
+        mRegistry.prefetch(mUserManager.getUserProfiles(), onPrefetched);
+    }
+
+    @Override
+    protected List<InjectedSetting> getSettings(UserHandle userHandle) {
+        return mRegistry.getSettings(userHandle);
     }
 
     @Override
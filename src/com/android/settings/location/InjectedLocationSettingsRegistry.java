@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.location.SettingInjectorService;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.util.ArraySet;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.location.InjectedSetting;
+import com.android.settingslib.location.SettingsInjector;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process wide registry of the location settings injected by apps through
+ * {@link SettingInjectorService}, per user.
+ *
+ * <p>The settings of a user are parsed by {@link SettingsInjector}, then kept until a package of
+ * that user which injects settings changes, so opening the location screens again costs no
+ * {@link PackageManager} calls.</p>
+ */
+public class InjectedLocationSettingsRegistry {
+
+    private static InjectedLocationSettingsRegistry sInstance;
+
+    /** What is known about one user. Loaded while holding it. */
+    private static class UserState {
+        // The parsed settings, null until loaded or once outdated.
+        volatile List<InjectedSetting> mSettings;
+        // Bumped when the settings are outdated, so a load started before is not kept.
+        final AtomicInteger mGeneration = new AtomicInteger();
+        // Packages changed since the settings were loaded, which did not inject settings then but
+        // may do now. Guarded by itself.
+        final Set<String> mChangedPackages = new ArraySet<>();
+    }
+
+    private final Context mContext;
+    private final SettingsLibParser mParser;
+    private final SparseArray<UserState> mUserStates = new SparseArray<>();
+
+    @VisibleForTesting
+    final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+                // Titles are localized by the injecting apps.
+                invalidateAll();
+                return;
+            }
+            final Uri data = intent.getData();
+            final int uid = intent.getIntExtra(Intent.EXTRA_UID, -1);
+            if (data != null && uid >= 0) {
+                invalidate(UserHandle.getUserId(uid), data.getSchemeSpecificPart());
+            } else {
+                invalidateAll();
+            }
+        }
+    };
+
+    /** Returns the process wide registry. */
+    public static synchronized InjectedLocationSettingsRegistry getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new InjectedLocationSettingsRegistry(context.getApplicationContext());
+            sInstance.registerReceivers();
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    InjectedLocationSettingsRegistry(Context context) {
+        mContext = context;
+        mParser = new SettingsLibParser(context);
+    }
+
+    private void registerReceivers() {
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        packageFilter.addDataScheme("package");
+        mContext.registerReceiverForAllUsers(mReceiver, packageFilter, null /* permission */,
+                null /* scheduler */);
+        mContext.registerReceiverForAllUsers(mReceiver,
+                new IntentFilter(Intent.ACTION_LOCALE_CHANGED), null /* permission */,
+                null /* scheduler */);
+    }
+
+    /**
+     * Returns the settings injected for the given user, parsing them again only if a package
+     * injecting settings changed since the last call. May block on {@link PackageManager}.
+     */
+    public List<InjectedSetting> getSettings(UserHandle userHandle) {
+        final UserState state = getUserState(userHandle.getIdentifier());
+        synchronized (state) {
+            final List<String> changedPackages;
+            synchronized (state.mChangedPackages) {
+                changedPackages = new ArrayList<>(state.mChangedPackages);
+                state.mChangedPackages.clear();
+            }
+            for (String packageName : changedPackages) {
+                if (injectsSettings(packageName, userHandle)) {
+                    state.mSettings = null;
+                    break;
+                }
+            }
+            List<InjectedSetting> settings = state.mSettings;
+            if (settings == null) {
+                final int generation = state.mGeneration.get();
+                settings = loadSettings(userHandle);
+                if (state.mGeneration.get() == generation) {
+                    state.mSettings = settings;
+                }
+            }
+            return new ArrayList<>(settings);
+        }
+    }
+
+    /**
+     * Loads the settings of the given users in the background, unless already known, then runs
+     * {@code onPrefetched} on the main thread. It runs right away if nothing had to be loaded.
+     */
+    public void prefetch(List<UserHandle> userHandles, Runnable onPrefetched) {
+        final List<UserHandle> toLoad = new ArrayList<>();
+        for (UserHandle userHandle : userHandles) {
+            if (!isLoaded(getUserState(userHandle.getIdentifier()))) {
+                toLoad.add(userHandle);
+            }
+        }
+        if (toLoad.isEmpty()) {
+            onPrefetched.run();
+            return;
+        }
+        final AtomicInteger remaining = new AtomicInteger(toLoad.size());
+        for (UserHandle userHandle : toLoad) {
+            ThreadUtils.postOnBackgroundThread(() -> {
+                try {
+                    getSettings(userHandle);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        ThreadUtils.postOnMainThread(onPrefetched);
+                    }
+                }
+            });
+        }
+    }
+
+    /** Forgets the settings of the given user if the given package may inject some. */
+    public void invalidate(int userId, String packageName) {
+        final UserState state = getUserState(userId);
+        final List<InjectedSetting> settings = state.mSettings;
+        if (settings == null) {
+            // Possibly being loaded, and the package possibly read already.
+            state.mGeneration.incrementAndGet();
+            return;
+        }
+        for (InjectedSetting setting : settings) {
+            if (setting.packageName.equals(packageName)) {
+                state.mGeneration.incrementAndGet();
+                state.mSettings = null;
+                return;
+            }
+        }
+        // It may have started injecting settings, checked on the next load.
+        synchronized (state.mChangedPackages) {
+            state.mChangedPackages.add(packageName);
+        }
+    }
+
+    /** Forgets everything, for every user. */
+    public void invalidateAll() {
+        synchronized (mUserStates) {
+            for (int i = 0; i < mUserStates.size(); i++) {
+                final UserState state = mUserStates.valueAt(i);
+                state.mGeneration.incrementAndGet();
+                state.mSettings = null;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    List<InjectedSetting> loadSettings(UserHandle userHandle) {
+        return mParser.parse(userHandle);
+    }
+
+    @VisibleForTesting
+    boolean injectsSettings(String packageName, UserHandle userHandle) {
+        final Intent intent = new Intent(SettingInjectorService.ACTION_SERVICE_INTENT)
+                .setPackage(packageName);
+        return !mContext.getPackageManager().queryIntentServicesAsUser(intent, 0 /* flags */,
+                userHandle.getIdentifier()).isEmpty();
+    }
+
+    private static boolean isLoaded(UserState state) {
+        synchronized (state.mChangedPackages) {
+            return state.mSettings != null && state.mChangedPackages.isEmpty();
+        }
+    }
+
+    private UserState getUserState(int userId) {
+        synchronized (mUserStates) {
+            UserState state = mUserStates.get(userId);
+            if (state == null) {
+                state = new UserState();
+                mUserStates.put(userId, state);
+            }
+            return state;
+        }
+    }
+
+    /** Exposes the parsing of the injected settings done by SettingsLib. */
+    private static class SettingsLibParser extends SettingsInjector {
+        SettingsLibParser(Context context) {
+            super(context);
+        }
+
+        List<InjectedSetting> parse(UserHandle userHandle) {
+            return getSettings(userHandle);
+        }
+    }
+}
@@ -54,6 +54,8 @@ public abstract class LocationInjectedServiceBasePreferenceController
     /** Receives UPDATE_INTENT */
     @VisibleForTesting
     BroadcastReceiver mInjectedSettingsReceiver;
+    /** Set once the host is destroyed, so a late prefetch no longer injects into its screen. */
+    private boolean mDestroyed;
 
     public LocationInjectedServiceBasePreferenceController(Context context, String key) {
         super(context, key);
@@ -68,7 +70,11 @@ public abstract class LocationInjectedServiceBasePreferenceController
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
-        injectLocationServices(screen);
+        mInjector.prefetch(() -> {
+            if (!mDestroyed) {
+                injectLocationServices(screen);
+            }
+        });
     }
 
     /**
@@ -109,6 +115,12 @@ public abstract class LocationInjectedServiceBasePreferenceController
         mContext.unregisterReceiver(mInjectedSettingsReceiver);
     }
 
+    /** @OnLifecycleEvent(ON_DESTROY) */
+    @OnLifecycleEvent(Lifecycle.Event.ON_DESTROY)
+    public void onDestroy() {
+        mDestroyed = true;
+    }
+
     protected Map<Integer, List<Preference>> getLocationServices() {
         // If location access is locked down by device policy then we only show injected settings
         // for the primary profile.
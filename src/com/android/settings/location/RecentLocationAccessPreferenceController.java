@@ -45,7 +45,7 @@ import java.util.List;
 public class RecentLocationAccessPreferenceController extends LocationBasePreferenceController {
     public static final int MAX_APPS = 3;
     @VisibleForTesting
-    RecentAppOpsAccess mRecentLocationApps;
+    RecentLocationAccessRepository mRecentLocationApps;
     private PreferenceCategory mCategoryRecentLocationRequests;
     private int mType = ProfileSelectFragment.ProfileType.ALL;
     private boolean mShowSystem = false;
@@ -76,12 +76,12 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
     }
 
     public RecentLocationAccessPreferenceController(Context context, String key) {
-        this(context, key, RecentAppOpsAccess.createForLocation(context));
+        this(context, key, RecentLocationAccessRepository.getInstance(context));
     }
 
     @VisibleForTesting
-    public RecentLocationAccessPreferenceController(Context context, String key,
-            RecentAppOpsAccess recentLocationApps) {
+    RecentLocationAccessPreferenceController(Context context, String key,
+            RecentLocationAccessRepository recentLocationApps) {
         super(context, key);
         mRecentLocationApps = recentLocationApps;
         mShowSystem = DeviceConfig.getBoolean(DeviceConfig.NAMESPACE_PRIVACY,
@@ -91,6 +91,13 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
                 : false;
     }
 
+    @Override
+    public void init(DashboardFragment fragment) {
+        super.init(fragment);
+        // Start loading while the rest of the page is being set up.
+        mRecentLocationApps.prefetch(mShowSystem);
+    }
+
     @Override
     public void displayPreference(PreferenceScreen screen) {
         super.displayPreference(screen);
@@ -109,11 +116,21 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
     }
 
     private void loadRecentAccesses() {
+        final boolean showSystem = mShowSystem;
+        mRecentLocationApps.getAppListSorted(showSystem, accesses -> {
+            // Delivered late, after the system apps were toggled.
+            if (showSystem == mShowSystem) {
+                showRecentAccesses(accesses);
+            }
+        });
+    }
+
+    private void showRecentAccesses(List<RecentAppOpsAccess.Access> accesses) {
         mCategoryRecentLocationRequests.removeAll();
         final Context prefContext = mCategoryRecentLocationRequests.getContext();
         final List<RecentAppOpsAccess.Access> recentLocationAccesses = new ArrayList<>();
         final UserManager userManager = UserManager.get(mContext);
-        for (RecentAppOpsAccess.Access access : mRecentLocationApps.getAppListSorted(mShowSystem)) {
+        for (RecentAppOpsAccess.Access access : accesses) {
             if (isRequestMatchesProfileType(userManager, access, mType)) {
                 recentLocationAccesses.add(access);
                 if (recentLocationAccesses.size() == MAX_APPS) {
@@ -167,7 +184,9 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
     public static AppPreference createAppPreference(Context prefContext,
             RecentAppOpsAccess.Access access, DashboardFragment fragment) {
         final AppPreference pref = new AppPreference(prefContext);
-        pref.setIcon(access.icon);
+        // The snapshot is shared between pages, give each preference its own icon instance.
+        pref.setIcon(access.icon != null && access.icon.getConstantState() != null
+                ? access.icon.getConstantState().newDrawable() : access.icon);
         pref.setTitle(access.label);
         pref.setSummary(StringUtil.formatRelativeTime(prefContext,
                 System.currentTimeMillis() - access.accessFinishTime, false,
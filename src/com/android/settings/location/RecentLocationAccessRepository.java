@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.applications.RecentAppOpsAccess;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Process wide snapshot of the apps that recently accessed location, shared by the location page
+ * and its "See all" page so moving between them does not query app ops again.
+ *
+ * <p>Each snapshot covers the user and its profiles, with app labels and icons already resolved,
+ * and is loaded in the background. Once older than {@link #TTL_MILLIS} it is still delivered
+ * right away, then again once a newer one is loaded.</p>
+ */
+public class RecentLocationAccessRepository {
+
+    private static final String TAG = "RecentLocAccessRepo";
+
+    @VisibleForTesting
+    static final long TTL_MILLIS = 10_000;
+
+    private static RecentLocationAccessRepository sInstance;
+
+    /** Receives the recent location accesses. Called on the main thread. */
+    public interface Callback {
+        /** Called with the recent location accesses sorted by recency. */
+        void onRecentAccessesLoaded(List<RecentAppOpsAccess.Access> accesses);
+    }
+
+    private static class Snapshot {
+        // Null until loaded once.
+        @Nullable
+        List<RecentAppOpsAccess.Access> mAccesses;
+        long mLoadedAt;
+        boolean mLoading;
+        // Waiting for the snapshot being loaded.
+        final List<Callback> mCallbacks = new ArrayList<>();
+    }
+
+    private final RecentAppOpsAccess mRecentAppOpsAccess;
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainExecutor;
+    // Indexed by whether system apps are included. Guarded by this.
+    private final Snapshot[] mSnapshots = {new Snapshot(), new Snapshot()};
+
+    /** Returns the process wide repository. */
+    public static synchronized RecentLocationAccessRepository getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RecentLocationAccessRepository(
+                    RecentAppOpsAccess.createForLocation(context.getApplicationContext()),
+                    ThreadUtils::postOnBackgroundThread, ThreadUtils::postOnMainThread);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    RecentLocationAccessRepository(RecentAppOpsAccess recentAppOpsAccess,
+            Executor backgroundExecutor, Executor mainExecutor) {
+        mRecentAppOpsAccess = recentAppOpsAccess;
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
+    }
+
+    /** Starts loading a snapshot in the background unless a recent one is available. */
+    public void prefetch(boolean showSystem) {
+        final boolean load;
+        synchronized (this) {
+            load = startLoadingIfNeeded(mSnapshots[index(showSystem)]);
+        }
+        if (load) {
+            mBackgroundExecutor.execute(() -> load(showSystem));
+        }
+    }
+
+    /**
+     * Delivers the recent location accesses sorted by recency: right away if a snapshot is
+     * known, even an old one, and again once a newer snapshot is loaded. Must be called on the
+     * main thread.
+     */
+    public void getAppListSorted(boolean showSystem, Callback callback) {
+        final List<RecentAppOpsAccess.Access> accesses;
+        final boolean load;
+        synchronized (this) {
+            final Snapshot snapshot = mSnapshots[index(showSystem)];
+            accesses = snapshot.mAccesses;
+            load = startLoadingIfNeeded(snapshot);
+            if (snapshot.mLoading) {
+                snapshot.mCallbacks.add(callback);
+            }
+        }
+        if (accesses != null) {
+            callback.onRecentAccessesLoaded(accesses);
+        }
+        if (load) {
+            mBackgroundExecutor.execute(() -> load(showSystem));
+        }
+    }
+
+    @VisibleForTesting
+    long now() {
+        return SystemClock.elapsedRealtime();
+    }
+
+    /** Returns whether the caller should load the snapshot. */
+    private boolean startLoadingIfNeeded(Snapshot snapshot) {
+        if (snapshot.mLoading || (snapshot.mAccesses != null
+                && now() - snapshot.mLoadedAt < TTL_MILLIS)) {
+            return false;
+        }
+        snapshot.mLoading = true;
+        return true;
+    }
+
+    private void load(boolean showSystem) {
+        final long loadedAt = now();
+        List<RecentAppOpsAccess.Access> accesses;
+        try {
+            // Every caller gets the same list, keep it from being modified.
+            accesses = Collections.unmodifiableList(
+                    mRecentAppOpsAccess.getAppListSorted(showSystem));
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to load recent location accesses", e);
+            accesses = null;
+        }
+
+        final List<RecentAppOpsAccess.Access> delivered;
+        final List<Callback> callbacks;
+        synchronized (this) {
+            final Snapshot snapshot = mSnapshots[index(showSystem)];
+            snapshot.mLoading = false;
+            if (accesses != null) {
+                snapshot.mAccesses = accesses;
+                snapshot.mLoadedAt = loadedAt;
+            }
+            delivered = snapshot.mAccesses != null
+                    ? snapshot.mAccesses : Collections.emptyList();
+            callbacks = new ArrayList<>(snapshot.mCallbacks);
+            snapshot.mCallbacks.clear();
+        }
+        mMainExecutor.execute(() -> {
+            for (Callback callback : callbacks) {
+                callback.onRecentAccessesLoaded(delivered);
+            }
+        });
+    }
+
+    private static int index(boolean showSystem) {
+        return showSystem ? 1 : 0;
+    }
+}
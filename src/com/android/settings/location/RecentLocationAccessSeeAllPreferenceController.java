@@ -28,6 +28,7 @@ import androidx.preference.PreferenceScreen;
 
 import com.android.internal.config.sysui.SystemUiDeviceConfigFlags;
 import com.android.settings.R;
+import com.android.settings.dashboard.DashboardFragment;
 import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.applications.RecentAppOpsAccess;
@@ -41,7 +42,7 @@ import java.util.List;
 public class RecentLocationAccessSeeAllPreferenceController
         extends LocationBasePreferenceController {
 
-    private final RecentAppOpsAccess mRecentLocationAccesses;
+    private final RecentLocationAccessRepository mRecentLocationAccesses;
 
     private PreferenceScreen mCategoryAllRecentLocationAccess;
     private MetricsFeatureProvider mMetricsFeatureProvider;
@@ -56,10 +57,17 @@ public class RecentLocationAccessSeeAllPreferenceController
             Settings.Secure.LOCATION_SHOW_SYSTEM_OPS, 0) == 1
             : false;
 
-        mRecentLocationAccesses = RecentAppOpsAccess.createForLocation(context);
+        mRecentLocationAccesses = RecentLocationAccessRepository.getInstance(context);
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
     }
 
+    @Override
+    public void init(DashboardFragment fragment) {
+        super.init(fragment);
+        // Usually already loaded for the location page, otherwise start loading it now.
+        mRecentLocationAccesses.prefetch(mShowSystem);
+    }
+
     @Override
     public void onLocationModeChanged(int mode, boolean restricted) {
         mCategoryAllRecentLocationAccess.setEnabled(mLocationEnabler.isEnabled(mode));
@@ -73,14 +81,23 @@ public class RecentLocationAccessSeeAllPreferenceController
 
     @Override
     public void updateState(Preference preference) {
-        mCategoryAllRecentLocationAccess.removeAll();
         mPreference = preference;
+        final boolean showSystem = mShowSystem;
+        mRecentLocationAccesses.getAppListSorted(showSystem, accesses -> {
+            // Delivered late, after the system apps were toggled.
+            if (showSystem == mShowSystem) {
+                showRecentAccesses(preference, accesses);
+            }
+        });
+    }
 
+    private void showRecentAccesses(Preference preference,
+            List<RecentAppOpsAccess.Access> accesses) {
+        mCategoryAllRecentLocationAccess.removeAll();
         final UserManager userManager = UserManager.get(mContext);
 
         final List<RecentAppOpsAccess.Access> recentLocationAccesses = new ArrayList<>();
-        for (RecentAppOpsAccess.Access access : mRecentLocationAccesses.getAppListSorted(
-                mShowSystem)) {
+        for (RecentAppOpsAccess.Access access : accesses) {
             if (isRequestMatchesProfileType(
                     userManager, access, ProfileSelectFragment.ProfileType.ALL)) {
                 recentLocationAccesses.add(access);
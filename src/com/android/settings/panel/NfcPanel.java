@@ -73,4 +73,9 @@ public class NfcPanel implements PanelContent {
     public int getMetricsCategory() {
         return SettingsEnums.PANEL_NFC;
     }
+
+    @Override
+    public boolean isProgressiveLoadingEnabled() {
+        return true;
+    }
 }
@@ -121,4 +121,12 @@ public interface PanelContent extends Instrumentable {
     default boolean isProgressBarVisible() {
         return false;
     }
+
+    /**
+     * @return {@code true} to show the Panel right away with a placeholder for each Slice and bind
+     * the Slices as they load, {@code false} to wait for every Slice before showing the Panel.
+     */
+    default boolean isProgressiveLoadingEnabled() {
+        return false;
+    }
 }
@@ -25,7 +25,10 @@ import android.app.settings.SettingsEnums;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.text.TextUtils;
+import android.util.ArraySet;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -49,12 +52,15 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.slice.Slice;
 import androidx.slice.SliceMetadata;
+import androidx.slice.SliceViewManager;
 import androidx.slice.widget.SliceLiveData;
 
 import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.R;
+import com.android.settings.core.instrumentation.PageLoadHistory;
 import com.android.settings.overlay.FeatureFactory;
 import com.android.settings.panel.PanelLoggingContract.PanelClosedKeys;
+import com.android.settings.slices.LocalSliceBinder;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 import com.android.settingslib.utils.ThreadUtils;
 
@@ -65,6 +71,7 @@ import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class PanelFragment extends Fragment {
 
@@ -85,6 +92,14 @@ public class PanelFragment extends Fragment {
      */
     private static final int DURATION_SLICE_BINDING_TIMEOUT_MS = 250;
 
+    /**
+     * Names of the latencies recorded in {@link PageLoadHistory} for panels loading progressively.
+     */
+    @VisibleForTesting
+    static final String LATENCY_OPEN_TO_FIRST_ROW = "open_to_first_row";
+    @VisibleForTesting
+    static final String LATENCY_OPEN_TO_COMPLETE = "open_to_complete";
+
     @VisibleForTesting
     View mLayoutView;
     private TextView mTitleView;
@@ -105,6 +120,12 @@ public class PanelFragment extends Fragment {
     private ProgressBar mProgressBar;
 
     private final Map<Uri, LiveData<Slice>> mSliceLiveData = new LinkedHashMap<>();
+    // Slices pinned ahead of their LiveData, see prebindSlices().
+    private final List<Uri> mPinnedSliceUris = new ArrayList<>();
+    // Slices not fully loaded yet, when loading progressively.
+    private final Set<Uri> mPendingSliceUris = new ArraySet<>();
+    private long mPanelOpenedNanos;
+    private boolean mFirstRowLoaded;
 
     @VisibleForTesting
     PanelSlicesLoaderCountdownLatch mPanelSlicesLoaderCountdownLatch;
@@ -195,6 +216,7 @@ public class PanelFragment extends Fragment {
             return;
         }
 
+        mPanelOpenedNanos = SystemClock.elapsedRealtimeNanos();
         final ViewGroup.LayoutParams params = mLayoutView.getLayoutParams();
         params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
         mLayoutView.setLayoutParams(params);
@@ -327,6 +349,12 @@ public class PanelFragment extends Fragment {
     }
 
     private void loadAllSlices() {
+        // Drop the pins of the previous panel, if any.
+        unpinSlices();
+        if (mPanel.isProgressiveLoadingEnabled()) {
+            loadAllSlicesProgressively();
+            return;
+        }
         mSliceLiveData.clear();
         final List<Uri> sliceUris = mPanel.getSlices();
         mPanelSlicesLoaderCountdownLatch = new PanelSlicesLoaderCountdownLatch(sliceUris.size());
@@ -386,13 +414,119 @@ public class PanelFragment extends Fragment {
         }
     }
 
-    private void removeSliceLiveData(Uri uri) {
+    /**
+     * Load the Slices of a Panel that enabled
+     * {@link PanelContent#isProgressiveLoadingEnabled()}.
+     * <p>
+     * The Panel animates in right away with a placeholder for each Slice, and each row is bound
+     * as soon as its Slice arrives. A Slice coming back {@code null} or with the Error attribute
+     * is removed from the list, unless its uri is in the allowlist.
+     */
+    private void loadAllSlicesProgressively() {
+        mSliceLiveData.clear();
+        mPendingSliceUris.clear();
+        mFirstRowLoaded = false;
+        final List<Uri> sliceUris = mPanel.getSlices();
+        prebindSlices(sliceUris);
+
+        for (Uri uri : sliceUris) {
+            mSliceLiveData.put(uri, LocalSliceBinder.fromUri(getActivity(), uri,
+                    (int type, Throwable source) -> ThreadUtils.postOnMainThread(
+                            () -> onSliceLoaded(uri, null /* slice */))));
+            mPendingSliceUris.add(uri);
+        }
+        // The adapter only sees the Slices present when it is created, so create it first.
+        showPanelSlices();
+        for (Map.Entry<Uri, LiveData<Slice>> entry : new ArrayList<>(mSliceLiveData.entrySet())) {
+            entry.getValue().observe(getViewLifecycleOwner(),
+                    slice -> onSliceLoaded(entry.getKey(), slice));
+        }
+    }
+
+    private void onSliceLoaded(Uri uri, @Nullable Slice slice) {
+        final LiveData<Slice> sliceLiveData = mSliceLiveData.get(uri);
+        if (sliceLiveData == null || mAdapter == null) {
+            return;
+        }
+
+        final SliceMetadata metadata =
+                slice != null ? SliceMetadata.from(getActivity(), slice) : null;
+        final boolean isError = metadata == null || metadata.isErrorSlice();
+        if (isError && removeSliceLiveData(uri)) {
+            mAdapter.removeSlice(sliceLiveData);
+        } else {
+            mAdapter.notifySliceChanged(sliceLiveData);
+        }
+
+        if (!isError) {
+            recordLoadLatency(LATENCY_OPEN_TO_FIRST_ROW, !mFirstRowLoaded);
+            mFirstRowLoaded = true;
+        }
+        if ((isError || metadata.getLoadingState() == SliceMetadata.LOADED_ALL)
+                && mPendingSliceUris.remove(uri)) {
+            recordLoadLatency(LATENCY_OPEN_TO_COMPLETE, mPendingSliceUris.isEmpty());
+        }
+    }
+
+    private void recordLoadLatency(String name, boolean shouldRecord) {
+        if (!shouldRecord) {
+            return;
+        }
+        PageLoadHistory.getInstance().record(mPanel.getClass().getName(), name,
+                SystemClock.elapsedRealtimeNanos() - mPanelOpenedNanos);
+    }
+
+    /**
+     * Pin the Slices of the Panel as soon as the Panel is resolved, so their providers start
+     * loading them while the Panel is laid out rather than once the LiveData become active, and
+     * so the Slices of Settings can be built in process by {@link LocalSliceBinder}.
+     * <p>
+     * Pins are made through the application context, whose {@link SliceViewManager} holds a
+     * token of its own, so they never release the pins of the LiveData.
+     */
+    private void prebindSlices(List<Uri> sliceUris) {
+        final SliceViewManager manager =
+                SliceViewManager.getInstance(getActivity().getApplicationContext());
+        for (Uri uri : sliceUris) {
+            try {
+                manager.pinSlice(uri);
+                mPinnedSliceUris.add(uri);
+            } catch (RuntimeException e) {
+                // The LiveData reports the error once it binds the Slice.
+                Log.w(TAG, "Unable to pin " + uri, e);
+            }
+        }
+    }
+
+    private void unpinSlices() {
+        if (mPinnedSliceUris.isEmpty()) {
+            return;
+        }
+        final SliceViewManager manager =
+                SliceViewManager.getInstance(getActivity().getApplicationContext());
+        for (Uri uri : mPinnedSliceUris) {
+            try {
+                manager.unpinSlice(uri);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Unable to unpin " + uri, e);
+            }
+        }
+        mPinnedSliceUris.clear();
+    }
+
+    /**
+     * Remove the Slice from the list unless its uri is in the allowlist.
+     *
+     * @return {@code true} if the Slice was removed.
+     */
+    private boolean removeSliceLiveData(Uri uri) {
         final List<String> allowList = Arrays.asList(
                 getResources().getStringArray(
                         R.array.config_panel_keep_observe_uri));
         if (!allowList.contains(uri.toString())) {
-            mSliceLiveData.remove(uri);
+            return mSliceLiveData.remove(uri) != null;
         }
+        return false;
     }
 
     /**
@@ -404,23 +538,27 @@ public class PanelFragment extends Fragment {
      */
     private void loadPanelWhenReady() {
         if (mPanelSlicesLoaderCountdownLatch.isPanelReadyToLoad()) {
-            mAdapter = new PanelSlicesAdapter(
-                    this, mSliceLiveData, mPanel.getMetricsCategory());
-            mPanelSlices.setAdapter(mAdapter);
-            mPanelSlices.getViewTreeObserver()
-                    .addOnGlobalLayoutListener(mOnGlobalLayoutListener);
-            mPanelSlices.setVisibility(View.VISIBLE);
+            showPanelSlices();
+        }
+    }
 
-            final FragmentActivity activity = getActivity();
-            if (activity == null) {
-                return;
-            }
-            final DividerItemDecoration itemDecoration = new DividerItemDecoration(activity);
-            itemDecoration
-                    .setDividerCondition(DividerItemDecoration.DIVIDER_CONDITION_BOTH);
-            if (mPanelSlices.getItemDecorationCount() == 0) {
-                mPanelSlices.addItemDecoration(itemDecoration);
-            }
+    private void showPanelSlices() {
+        mAdapter = new PanelSlicesAdapter(
+                this, mSliceLiveData, mPanel.getMetricsCategory());
+        mPanelSlices.setAdapter(mAdapter);
+        mPanelSlices.getViewTreeObserver()
+                .addOnGlobalLayoutListener(mOnGlobalLayoutListener);
+        mPanelSlices.setVisibility(View.VISIBLE);
+
+        final FragmentActivity activity = getActivity();
+        if (activity == null) {
+            return;
+        }
+        final DividerItemDecoration itemDecoration = new DividerItemDecoration(activity);
+        itemDecoration
+                .setDividerCondition(DividerItemDecoration.DIVIDER_CONDITION_BOTH);
+        if (mPanelSlices.getItemDecorationCount() == 0) {
+            mPanelSlices.addItemDecoration(itemDecoration);
         }
     }
 
@@ -475,6 +613,9 @@ public class PanelFragment extends Fragment {
         if (mLayoutView != null) {
             mLayoutView.getViewTreeObserver().removeOnGlobalLayoutListener(mPanelLayoutListener);
         }
+        if (getActivity() != null) {
+            unpinSlices();
+        }
         if (mPanel != null) {
             mMetricsProvider.action(
                     0 /* attribution */,
@@ -519,6 +660,10 @@ public class PanelFragment extends Fragment {
         return mPanel.getViewType();
     }
 
+    boolean isProgressiveLoadingEnabled() {
+        return mPanel.isProgressiveLoadingEnabled();
+    }
+
     class LocalPanelCallback implements PanelContentCallback {
 
         @Override
@@ -85,7 +85,13 @@ public class PanelSlicesAdapter
 
     @Override
     public void onBindViewHolder(@NonNull SliceRowViewHolder sliceRowViewHolder, int position) {
-        sliceRowViewHolder.onBind(mSliceLiveData.get(position).getValue());
+        final Slice slice = mSliceLiveData.get(position).getValue();
+        if (slice == null && mPanelFragment.isProgressiveLoadingEnabled()) {
+            // Not loaded yet, keep the room of the row so the Panel doesn't jump once it is.
+            sliceRowViewHolder.onBindPlaceholder(getItemViewType(position));
+            return;
+        }
+        sliceRowViewHolder.onBind(slice);
     }
 
     /**
@@ -101,6 +107,25 @@ public class PanelSlicesAdapter
         return mPanelFragment.getPanelViewType();
     }
 
+    /**
+     * Rebind the row of the given Slice, if it is shown.
+     */
+    void notifySliceChanged(LiveData<Slice> sliceLiveData) {
+        final int position = mSliceLiveData.indexOf(sliceLiveData);
+        if (position >= 0 && position < getItemCount()) {
+            notifyItemChanged(position);
+        }
+    }
+
+    /**
+     * Remove the row of the given Slice, letting the next Slice over the max number in.
+     */
+    void removeSlice(LiveData<Slice> sliceLiveData) {
+        if (mSliceLiveData.remove(sliceLiveData)) {
+            notifyDataSetChanged();
+        }
+    }
+
     /**
      * Return the available data from the adapter. If the number of Slices over the max number
      * allowed, the list will only have the first MAX_NUM_OF_SLICES of slices.
@@ -137,6 +162,7 @@ public class PanelSlicesAdapter
          * Called when the view is displayed.
          */
         public void onBind(Slice slice) {
+            itemView.setMinimumHeight(0);
             // Hides slice which reports with error hint or not contain any slice sub-item.
             if (slice == null || !isValidSlice(slice)) {
                 updateActionLabel();
@@ -166,6 +192,17 @@ public class PanelSlicesAdapter
             updateActionLabel();
         }
 
+        /**
+         * Called when the view is displayed before its Slice has loaded.
+         */
+        void onBindPlaceholder(int viewType) {
+            itemView.setMinimumHeight(itemView.getResources().getDimensionPixelSize(
+                    viewType == PanelContent.VIEW_TYPE_SLIDER
+                            ? R.dimen.panel_slice_slider_placeholder_height
+                            : R.dimen.panel_slice_placeholder_height));
+            sliceView.setVisibility(View.INVISIBLE);
+        }
+
         /**
          * Either set the action label if the row view is inflated into Slice, or set a listener to
          * do so later when the row is available.
@@ -159,6 +159,11 @@ public class VolumePanel implements PanelContent, LifecycleObserver {
         return SettingsEnums.PANEL_VOLUME;
     }
 
+    @Override
+    public boolean isProgressiveLoadingEnabled() {
+        return true;
+    }
+
     @Override
     public int getViewType() {
         return PanelContent.VIEW_TYPE_SLIDER;
@@ -241,6 +241,10 @@ public class ChooseLockPassword extends SettingsActivity {
         // Minimum password metrics enforced by admins.
         private PasswordMetrics mMinMetrics;
         private List<PasswordValidationError> mValidationErrors;
+        // Character counts of the password entry, kept up to date as it is edited.
+        private final IncrementalPasswordMetrics mTypedMetrics = new IncrementalPasswordMetrics();
+        // Errors the requirement list currently shows, to skip rebinding it when unchanged.
+        private List<PasswordValidationError> mShownValidationErrors;
 
         @PasswordComplexity private int mMinComplexity = PASSWORD_COMPLEXITY_NONE;
         protected int mUserId;
@@ -551,6 +555,7 @@ public class ChooseLockPassword extends SettingsActivity {
             mPasswordRestrictionView.setLayoutManager(new LinearLayoutManager(getActivity()));
             mPasswordEntry = view.findViewById(R.id.password_entry);
             mPasswordEntry.setOnEditorActionListener(this);
+            mPasswordEntry.addTextChangedListener(mTypedMetrics);
             mPasswordEntry.addTextChangedListener(this);
             mPasswordEntry.requestFocus();
             mPasswordEntryInputDisabler = new TextViewInputDisabler(mPasswordEntry);
@@ -776,6 +781,50 @@ public class ChooseLockPassword extends SettingsActivity {
             return mValidationErrors.isEmpty();
         }
 
+        /**
+         * Same as {@link #validatePassword(LockscreenCredential)} for the text in the password
+         * entry, but uses the character counts kept while it was typed and only copies the text
+         * into a credential for the password history check once everything else passes.
+         *
+         * @return whether password satisfies all the requirements.
+         */
+        private boolean validateTypedPassword() {
+            final Editable text = mPasswordEntry.getText();
+            if (mTypedMetrics.hasInvalidChars(text)) {
+                mValidationErrors = Collections.singletonList(
+                        new PasswordValidationError(CONTAINS_INVALID_CHARACTERS));
+                return false;
+            }
+            mValidationErrors = PasswordMetrics.validatePasswordMetrics(mMinMetrics,
+                    mMinComplexity, mTypedMetrics.getMetrics(text, !mIsAlphaMode));
+            if (mValidationErrors.isEmpty()) {
+                try (LockscreenCredential credential = mIsAlphaMode
+                        ? LockscreenCredential.createPassword(text)
+                        : LockscreenCredential.createPin(text)) {
+                    if (mLockPatternUtils.checkPasswordHistory(credential.getCredential(),
+                            getPasswordHistoryHashFactor(), mUserId)) {
+                        mValidationErrors = Collections.singletonList(
+                                new PasswordValidationError(RECENTLY_USED));
+                    }
+                }
+            }
+            return mValidationErrors.isEmpty();
+        }
+
+        private static boolean sameErrors(List<PasswordValidationError> a,
+                List<PasswordValidationError> b) {
+            if (a == null || b == null || a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                if (a.get(i).errorCode != b.get(i).errorCode
+                        || a.get(i).requirement != b.get(i).requirement) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         /**
          * Lazily compute and return the history hash factor of the current user (mUserId), used for
          * password history check.
@@ -945,16 +994,16 @@ public class ChooseLockPassword extends SettingsActivity {
         protected void updateUi() {
             final boolean canInput = mSaveAndFinishWorker == null;
 
-            LockscreenCredential password = mIsAlphaMode
-                    ? LockscreenCredential.createPassword(mPasswordEntry.getText())
-                    : LockscreenCredential.createPin(mPasswordEntry.getText());
-            final int length = password.size();
+            final int length = mPasswordEntry.getText().length();
             if (mUiStage == Stage.Introduction) {
                 mPasswordRestrictionView.setVisibility(View.VISIBLE);
-                final boolean passwordCompliant = validatePassword(password);
-                String[] messages = convertErrorCodeToMessages();
-                // Update the fulfillment of requirements.
-                mPasswordRequirementAdapter.setRequirements(messages);
+                final boolean passwordCompliant = validateTypedPassword();
+                if (!sameErrors(mValidationErrors, mShownValidationErrors)) {
+                    String[] messages = convertErrorCodeToMessages();
+                    // Update the fulfillment of requirements.
+                    mPasswordRequirementAdapter.setRequirements(messages);
+                    mShownValidationErrors = mValidationErrors;
+                }
                 // set the visibility of pin_auto_confirm option accordingly
                 setAutoPinConfirmOption(passwordCompliant, length);
                 // Enable/Disable the next button accordingly.
@@ -986,7 +1035,6 @@ public class ChooseLockPassword extends SettingsActivity {
 
             setNextText(mUiStage.buttonText);
             mPasswordEntryInputDisabler.setInputEnabled(canInput);
-            password.zeroize();
         }
 
         protected int toVisibility(boolean visibleOrGone) {
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.password;
+
+import static com.android.internal.widget.LockPatternUtils.CREDENTIAL_TYPE_PASSWORD;
+import static com.android.internal.widget.LockPatternUtils.CREDENTIAL_TYPE_PIN;
+
+import android.app.admin.PasswordMetrics;
+import android.text.Editable;
+import android.text.TextWatcher;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the character class counts of a password being typed up to date from the edits made to
+ * it, so the password policy can be checked without copying the whole password into a new
+ * credential on each keystroke.
+ *
+ * <p>Counts characters the same way as {@link PasswordMetrics#computeForPasswordOrPin}. Only the
+ * longest sequence, which depends on the neighbours of every character, is computed from the
+ * whole text.</p>
+ */
+public class IncrementalPasswordMetrics implements TextWatcher {
+
+    private int mLength;
+    private int mLetters;
+    private int mUpperCase;
+    private int mLowerCase;
+    private int mNumeric;
+    private int mSymbols;
+    private int mInvalid;
+
+    @Override
+    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+        update(s, start, start + count, -1);
+    }
+
+    @Override
+    public void onTextChanged(CharSequence s, int start, int before, int count) {
+        update(s, start, start + count, 1);
+    }
+
+    @Override
+    public void afterTextChanged(Editable s) {
+    }
+
+    /**
+     * Returns whether the given text has characters a credential can't contain.
+     *
+     * @param text the text whose edits were tracked.
+     */
+    public boolean hasInvalidChars(CharSequence text) {
+        sync(text);
+        return mInvalid > 0;
+    }
+
+    /**
+     * Returns the metrics of the given text, which must not have invalid characters.
+     *
+     * @param text the text whose edits were tracked.
+     * @param isPin whether the text is a PIN rather than a password.
+     */
+    public PasswordMetrics getMetrics(CharSequence text, boolean isPin) {
+        sync(text);
+        return new PasswordMetrics(isPin ? CREDENTIAL_TYPE_PIN : CREDENTIAL_TYPE_PASSWORD,
+                mLength, mLetters, mUpperCase, mLowerCase, mNumeric, mSymbols,
+                mNumeric + mSymbols /* nonLetter */, mLetters + mSymbols /* nonNumeric */,
+                getMaxLengthSequence(text));
+    }
+
+    private void sync(CharSequence text) {
+        // Text set before this watcher was added was never counted, start over.
+        if (mLength != text.length()) {
+            mLength = mLetters = mUpperCase = mLowerCase = mNumeric = mSymbols = mInvalid = 0;
+            update(text, 0, text.length(), 1);
+        }
+    }
+
+    private void update(CharSequence s, int start, int end, int delta) {
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            mLength += delta;
+            if (c < 32 || c > 127) {
+                mInvalid += delta;
+            } else if (c >= 'A' && c <= 'Z') {
+                mLetters += delta;
+                mUpperCase += delta;
+            } else if (c >= 'a' && c <= 'z') {
+                mLetters += delta;
+                mLowerCase += delta;
+            } else if (c >= '0' && c <= '9') {
+                mNumeric += delta;
+            } else {
+                mSymbols += delta;
+            }
+        }
+    }
+
+    private static int getMaxLengthSequence(CharSequence text) {
+        final byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        try {
+            return PasswordMetrics.maxLengthSequence(bytes);
+        } finally {
+            // Don't leave a copy of the password behind, like LockscreenCredential#zeroize().
+            Arrays.fill(bytes, (byte) 0);
+        }
+    }
+}
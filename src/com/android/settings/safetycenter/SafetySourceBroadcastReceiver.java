@@ -27,20 +27,56 @@ import android.content.Context;
 import android.content.Intent;
 import android.safetycenter.SafetyCenterManager;
 import android.safetycenter.SafetyEvent;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.privatespace.PrivateSpaceSafetySource;
 import com.android.settings.security.ScreenLockPreferenceDetailsUtils;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
-/** Broadcast receiver for handling requests from Safety Center for fresh data. */
+/**
+ * Broadcast receiver for handling requests from Safety Center for fresh data.
+ *
+ * <p>Sources are refreshed in parallel off the main thread, while the broadcast is kept pending.
+ */
 public class SafetySourceBroadcastReceiver extends BroadcastReceiver {
 
+    private static final String TAG = "SafetySourceBroadcastReceiver";
+
     private static final SafetyEvent EVENT_DEVICE_REBOOTED =
             new SafetyEvent.Builder(SAFETY_EVENT_TYPE_DEVICE_REBOOTED).build();
 
+    private static final List<String> ALL_SOURCE_IDS = ImmutableList.of(
+            LockScreenSafetySource.SAFETY_SOURCE_ID,
+            BiometricsSafetySource.SAFETY_SOURCE_ID,
+            PrivateSpaceSafetySource.SAFETY_SOURCE_ID);
+
+    // Sources being refreshed for a refresh broadcast id, as "broadcastId:sourceId". Guarded by
+    // itself.
+    private static final Set<String> sRefreshesInFlight = new ArraySet<>();
+
+    private final Executor mExecutor;
+
+    public SafetySourceBroadcastReceiver() {
+        this(ThreadUtils::postOnBackgroundThread);
+    }
+
+    @VisibleForTesting
+    SafetySourceBroadcastReceiver(Executor executor) {
+        mExecutor = executor;
+    }
+
     @Override
     public void onReceive(Context context, Intent intent) {
         if (!SafetyCenterManagerWrapper.get().isEnabled(context)) {
@@ -59,37 +95,85 @@ public class SafetySourceBroadcastReceiver extends BroadcastReceiver {
                 refreshSafetySources(
                         context,
                         ImmutableList.copyOf(sourceIdsExtra),
-                        safetyEvent);
+                        safetyEvent,
+                        refreshBroadcastId);
             }
             return;
         }
 
 
         if (ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
-            refreshAllSafetySources(context, EVENT_DEVICE_REBOOTED);
+            refreshSafetySources(context, ALL_SOURCE_IDS, EVENT_DEVICE_REBOOTED,
+                    null /* refreshBroadcastId */);
         }
     }
 
-    private static void refreshSafetySources(Context context, List<String> sourceIds,
-            SafetyEvent safetyEvent) {
-        if (sourceIds.contains(LockScreenSafetySource.SAFETY_SOURCE_ID)) {
-            LockScreenSafetySource.setSafetySourceData(context,
-                    new ScreenLockPreferenceDetailsUtils(context), safetyEvent);
+    private void refreshSafetySources(Context context, List<String> sourceIds,
+            SafetyEvent safetyEvent, @Nullable String refreshBroadcastId) {
+        final Context appContext = context.getApplicationContext();
+        final List<Runnable> refreshes = new ArrayList<>();
+        for (String sourceId : sourceIds) {
+            final Runnable refresh = getRefresh(appContext, sourceId, safetyEvent);
+            if (refresh == null) {
+                continue;
+            }
+            if (refreshBroadcastId == null) {
+                refreshes.add(refresh);
+                continue;
+            }
+            // Safety Center may send the same request again while it is still being handled.
+            final String key = refreshBroadcastId + ":" + sourceId;
+            synchronized (sRefreshesInFlight) {
+                if (!sRefreshesInFlight.add(key)) {
+                    Log.d(TAG, "Already refreshing " + key);
+                    continue;
+                }
+            }
+            refreshes.add(() -> {
+                try {
+                    refresh.run();
+                } finally {
+                    synchronized (sRefreshesInFlight) {
+                        sRefreshesInFlight.remove(key);
+                    }
+                }
+            });
         }
-
-        if (sourceIds.contains(BiometricsSafetySource.SAFETY_SOURCE_ID)) {
-            BiometricsSafetySource.setSafetySourceData(context, safetyEvent);
+        if (refreshes.isEmpty()) {
+            return;
         }
 
-        if (sourceIds.contains(PrivateSpaceSafetySource.SAFETY_SOURCE_ID)) {
-            PrivateSpaceSafetySource.setSafetySourceData(context, safetyEvent);
+        // Null when not dispatched by the system, e.g. in tests.
+        final PendingResult pendingResult = goAsync();
+        final AtomicInteger remaining = new AtomicInteger(refreshes.size());
+        for (Runnable refresh : refreshes) {
+            mExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Failed to refresh safety source", e);
+                } finally {
+                    if (remaining.decrementAndGet() == 0 && pendingResult != null) {
+                        pendingResult.finish();
+                    }
+                }
+            });
         }
     }
 
-    private static void refreshAllSafetySources(Context context, SafetyEvent safetyEvent) {
-        LockScreenSafetySource.setSafetySourceData(context,
-                new ScreenLockPreferenceDetailsUtils(context), safetyEvent);
-        BiometricsSafetySource.setSafetySourceData(context, safetyEvent);
-        PrivateSpaceSafetySource.setSafetySourceData(context, safetyEvent);
+    @Nullable
+    private static Runnable getRefresh(Context context, String sourceId,
+            SafetyEvent safetyEvent) {
+        switch (sourceId) {
+            case LockScreenSafetySource.SAFETY_SOURCE_ID:
+                return () -> LockScreenSafetySource.setSafetySourceData(context,
+                        new ScreenLockPreferenceDetailsUtils(context), safetyEvent);
+            case BiometricsSafetySource.SAFETY_SOURCE_ID:
+                return () -> BiometricsSafetySource.setSafetySourceData(context, safetyEvent);
+            case PrivateSpaceSafetySource.SAFETY_SOURCE_ID:
+                return () -> PrivateSpaceSafetySource.setSafetySourceData(context, safetyEvent);
+            default:
+                return null;
+        }
     }
 }
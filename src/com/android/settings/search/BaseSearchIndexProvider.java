@@ -155,13 +155,12 @@ public class BaseSearchIndexProvider implements Indexable.SearchIndexProvider {
         if (res == null || res.isEmpty()) {
             return controllersFromCode;
         }
-        List<BasePreferenceController> controllersFromXml = new ArrayList<>();
+        final List<BasePreferenceController> controllersFromXml = new ArrayList<>();
         for (SearchIndexableResource sir : res) {
             controllersFromXml.addAll(PreferenceControllerListHelper
-                    .getPreferenceControllersFromXml(context, sir.xmlResId));
+                    .getFilteredPreferenceControllersFromXml(context, sir.xmlResId,
+                            controllersFromCode));
         }
-        controllersFromXml = PreferenceControllerListHelper.filterControllers(controllersFromXml,
-                controllersFromCode);
         final List<AbstractPreferenceController> allControllers = new ArrayList<>();
         if (controllersFromCode != null) {
             allControllers.addAll(controllersFromCode);
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.content.Context;
+import android.net.Uri;
+import android.provider.SettingsSlicesContract;
+import android.text.TextUtils;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.slice.Slice;
+import androidx.slice.SliceViewManager;
+import androidx.slice.widget.SliceLiveData;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+/**
+ * Binds the Slices served by {@link SettingsSliceProvider} directly in the Settings process,
+ * skipping the round trip through the provider and the parceling of the Slice. Slices are built
+ * by {@link SettingsSliceProvider#buildSlice}, like the provider does. Slices of other apps, and
+ * Settings Slices missing from the Slices database, are still bound through
+ * {@link SliceViewManager}.
+ *
+ * <p>The Slice builders take the specs of the Slice from its pin, so a Slice must be pinned, for
+ * instance through {@link SliceViewManager#pinSlice}, before it is bound in process.</p>
+ */
+public class LocalSliceBinder {
+
+    private static final String TAG = "LocalSliceBinder";
+
+    private LocalSliceBinder() {
+    }
+
+    /**
+     * Returns {@code true} if the given Slice is served by {@link SettingsSliceProvider}.
+     */
+    public static boolean isLocalUri(Uri uri) {
+        final String authority = uri.getAuthority();
+        return TextUtils.equals(authority, SettingsSliceProvider.SLICE_AUTHORITY)
+                || TextUtils.equals(authority, SettingsSlicesContract.AUTHORITY);
+    }
+
+    /**
+     * Binds the given pinned Slice, in process when Settings serves it. Must not be called from
+     * the main thread.
+     */
+    @Nullable
+    public static Slice bindSlice(Context context, Uri uri) {
+        if (isLocalUri(uri)) {
+            try {
+                final Slice slice = buildLocalSlice(context, uri);
+                if (slice == SettingsSliceProvider.REFUSED_SLICE) {
+                    // The provider would refuse it as well.
+                    return null;
+                }
+                if (slice != null) {
+                    return slice;
+                }
+            } catch (RuntimeException e) {
+                // Not pinned yet or not built in process, the provider can do it.
+                Log.w(TAG, "Unable to bind " + uri + " in process", e);
+            }
+        }
+        return SliceViewManager.getInstance(context).bindSlice(uri);
+    }
+
+    /**
+     * Returns a {@link LiveData} following the given Slice through {@link SliceLiveData}. When
+     * Settings serves the Slice and it is already pinned, the first value is built in process
+     * in the background rather than waiting for the provider.
+     */
+    public static LiveData<Slice> fromUri(Context context, Uri uri,
+            SliceLiveData.OnErrorListener listener) {
+        final MediatorLiveData<Slice> liveData = new MediatorLiveData<>();
+        liveData.addSource(SliceLiveData.fromUri(context, uri, listener), liveData::setValue);
+        if (isLocalUri(uri)) {
+            final Context appContext = context.getApplicationContext();
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final Slice slice;
+                try {
+                    slice = buildLocalSlice(appContext, uri);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Unable to bind " + uri + " in process", e);
+                    return;
+                }
+                if (slice != null && slice != SettingsSliceProvider.REFUSED_SLICE) {
+                    ThreadUtils.postOnMainThread(() -> {
+                        // Whatever the provider sent is newer.
+                        if (liveData.getValue() == null) {
+                            liveData.setValue(slice);
+                        }
+                    });
+                }
+            });
+        }
+        return liveData;
+    }
+
+    /**
+     * Builds a Settings Slice through {@link SettingsSliceProvider#buildSlice}. Returns
+     * {@link SettingsSliceProvider#REFUSED_SLICE} if it must not be shown, or {@code null} if it
+     * is missing from the Slices database.
+     */
+    @VisibleForTesting
+    @Nullable
+    static Slice buildLocalSlice(Context context, Uri uri) {
+        final Context themedContext = new ContextThemeWrapper(context.getApplicationContext(),
+                com.android.settingslib.widget.theme.R.style.Theme_SettingsBase);
+        return SettingsSliceProvider.buildSlice(themedContext, uri, sliceUri -> {
+            if (SliceBuilderUtils.getPathData(sliceUri) == null) {
+                return null;
+            }
+            final SliceData sliceData = new SlicesDatabaseAccessor(themedContext)
+                    .getSliceDataFromUri(sliceUri);
+            return SliceBuilderUtils.buildSlice(themedContext, sliceData);
+        });
+    }
+}
@@ -21,7 +21,6 @@ import static android.app.slice.Slice.HINT_PARTIAL;
 
 import android.app.PendingIntent;
 import android.app.settings.SettingsEnums;
-import android.app.slice.SliceManager;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
@@ -64,6 +63,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -130,6 +130,12 @@ public class SettingsSliceProvider extends SliceProvider {
                     CustomSliceRegistry.ZEN_MODE_SLICE_URI
             );
 
+    /**
+     * Returned by {@link #buildSlice} for a Slice that must not be shown, unlike {@code null}
+     * which only means the builder could not build it.
+     */
+    static final Slice REFUSED_SLICE = new Slice();
+
     private static final KeyValueListParser KEY_VALUE_LIST_PARSER = new KeyValueListParser(',');
 
     @VisibleForTesting
@@ -217,13 +223,6 @@ public class SettingsSliceProvider extends SliceProvider {
                         .permitAll()
                         .build());
             }
-            final Set<String> blockedKeys = getBlockedKeys();
-            final String key = sliceUri.getLastPathSegment();
-            if (blockedKeys.contains(key)) {
-                Log.e(TAG, "Requested blocked slice with Uri: " + sliceUri);
-                return null;
-            }
-
             final boolean nightMode = Utils.isNightMode(getContext());
             if (mNightMode == null) {
                 mNightMode = nightMode;
@@ -234,50 +233,15 @@ public class SettingsSliceProvider extends SliceProvider {
                 getContext().getTheme().rebase();
             }
 
-            // Checking if some semi-sensitive slices are requested by a guest user. If so, will
-            // return an empty slice.
-            final UserManager userManager = getContext().getSystemService(UserManager.class);
-            if (userManager.isGuestUser() && RestrictedSliceUtils.isGuestRestricted(sliceUri)) {
-                Log.i(TAG, "Guest user access denied.");
-                return null;
-            }
-
-            // Before adding a slice to {@link CustomSliceManager}, please get approval
-            // from the Settings team.
-            if (CustomSliceRegistry.isValidUri(sliceUri)) {
-                final Context context = getContext();
-                return FeatureFactory.getFeatureFactory()
-                        .getSlicesFeatureProvider().getSliceableFromUri(context, sliceUri)
-                        .getSlice();
-            }
-
-            if (CustomSliceRegistry.WIFI_CALLING_URI.equals(sliceUri)) {
-                return FeatureFactory.getFeatureFactory()
-                        .getSlicesFeatureProvider()
-                        .getNewWifiCallingSliceHelper(getContext())
-                        .createWifiCallingSlice(sliceUri);
-            } else if (CustomSliceRegistry.ZEN_MODE_SLICE_URI.equals(sliceUri)) {
-                return ZenModeSliceBuilder.getSlice(getContext());
-            } else if (CustomSliceRegistry.BLUETOOTH_URI.equals(sliceUri)) {
-                return BluetoothSliceBuilder.getSlice(getContext());
-            } else if (CustomSliceRegistry.ENHANCED_4G_SLICE_URI.equals(sliceUri)) {
-                return FeatureFactory.getFeatureFactory()
-                        .getSlicesFeatureProvider()
-                        .getNewEnhanced4gLteSliceHelper(getContext())
-                        .createEnhanced4gLteSlice(sliceUri);
-            } else if (CustomSliceRegistry.WIFI_CALLING_PREFERENCE_URI.equals(sliceUri)) {
-                return FeatureFactory.getFeatureFactory()
-                        .getSlicesFeatureProvider()
-                        .getNewWifiCallingSliceHelper(getContext())
-                        .createWifiCallingPreferenceSlice(sliceUri);
-            }
-
-            final SliceData cachedSliceData = mSliceWeakDataCache.get(sliceUri);
-            if (cachedSliceData == null) {
-                loadSliceInBackground(sliceUri);
-                return getSliceStub(sliceUri);
-            }
-            return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData);
+            final Slice slice = buildSlice(getContext(), sliceUri, uri -> {
+                final SliceData cachedSliceData = mSliceWeakDataCache.get(uri);
+                if (cachedSliceData == null) {
+                    loadSliceInBackground(uri);
+                    return getSliceStub(uri);
+                }
+                return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData);
+            });
+            return slice == REFUSED_SLICE ? null : slice;
         } finally {
             StrictMode.setThreadPolicy(oldPolicy);
             if (!mFirstSliceBound) {
@@ -287,6 +251,60 @@ public class SettingsSliceProvider extends SliceProvider {
         }
     }
 
+    /**
+     * Builds the given Slice, for the provider and for {@link LocalSliceBinder}. Returns
+     * {@link #REFUSED_SLICE} if the Slice must not be shown, otherwise what the custom sliceable
+     * or helper builds, or, for the Slices in the database, what the given builder returns.
+     */
+    @Nullable
+    static Slice buildSlice(Context context, Uri sliceUri,
+            Function<Uri, Slice> sliceDataBuilder) {
+        final Set<String> blockedKeys = getBlockedKeys(context);
+        final String key = sliceUri.getLastPathSegment();
+        if (blockedKeys.contains(key)) {
+            Log.e(TAG, "Requested blocked slice with Uri: " + sliceUri);
+            return REFUSED_SLICE;
+        }
+
+        // Checking if some semi-sensitive slices are requested by a guest user. If so, will
+        // return an empty slice.
+        final UserManager userManager = context.getSystemService(UserManager.class);
+        if (userManager.isGuestUser() && RestrictedSliceUtils.isGuestRestricted(sliceUri)) {
+            Log.i(TAG, "Guest user access denied.");
+            return REFUSED_SLICE;
+        }
+
+        // Before adding a slice to {@link CustomSliceManager}, please get approval
+        // from the Settings team.
+        if (CustomSliceRegistry.isValidUri(sliceUri)) {
+            return FeatureFactory.getFeatureFactory()
+                    .getSlicesFeatureProvider().getSliceableFromUri(context, sliceUri)
+                    .getSlice();
+        }
+
+        if (CustomSliceRegistry.WIFI_CALLING_URI.equals(sliceUri)) {
+            return FeatureFactory.getFeatureFactory()
+                    .getSlicesFeatureProvider()
+                    .getNewWifiCallingSliceHelper(context)
+                    .createWifiCallingSlice(sliceUri);
+        } else if (CustomSliceRegistry.ZEN_MODE_SLICE_URI.equals(sliceUri)) {
+            return ZenModeSliceBuilder.getSlice(context);
+        } else if (CustomSliceRegistry.BLUETOOTH_URI.equals(sliceUri)) {
+            return BluetoothSliceBuilder.getSlice(context);
+        } else if (CustomSliceRegistry.ENHANCED_4G_SLICE_URI.equals(sliceUri)) {
+            return FeatureFactory.getFeatureFactory()
+                    .getSlicesFeatureProvider()
+                    .getNewEnhanced4gLteSliceHelper(context)
+                    .createEnhanced4gLteSlice(sliceUri);
+        } else if (CustomSliceRegistry.WIFI_CALLING_PREFERENCE_URI.equals(sliceUri)) {
+            return FeatureFactory.getFeatureFactory()
+                    .getSlicesFeatureProvider()
+                    .getNewWifiCallingSliceHelper(context)
+                    .createWifiCallingPreferenceSlice(sliceUri);
+        }
+        return sliceDataBuilder.apply(sliceUri);
+    }
+
     /**
      * Get a list of all valid Uris based on the keys indexed in the Slices database.
      * <p>
@@ -374,6 +392,7 @@ public class SettingsSliceProvider extends SliceProvider {
     static void grantAllowlistedPackagePermissions(Context context, List<Uri> descendants) {
         if (descendants == null) {
             Log.d(TAG, "No descendants to grant permission with, skipping.");
+            return;
         }
         final String[] allowlistPackages =
                 context.getResources().getStringArray(R.array.slice_allowlist_package_names);
@@ -385,12 +404,7 @@ public class SettingsSliceProvider extends SliceProvider {
                     "Allowlisting %d uris to %d pkgs.",
                     descendants.size(), allowlistPackages.length));
         }
-        final SliceManager sliceManager = context.getSystemService(SliceManager.class);
-        for (Uri descendant : descendants) {
-            for (String toPackage : allowlistPackages) {
-                sliceManager.grantSlicePermission(toPackage, descendant);
-            }
-        }
+        SlicePermissionGrants.grant(context, allowlistPackages, descendants);
     }
 
     @Override
@@ -454,9 +468,11 @@ public class SettingsSliceProvider extends SliceProvider {
                 intentFilter);
     }
 
-    @VisibleForTesting
-    Set<String> getBlockedKeys() {
-        final String value = Settings.Global.getString(getContext().getContentResolver(),
+    /**
+     * Returns the keys of the Slices blocked through {@link Settings.Global#BLOCKED_SLICES}.
+     */
+    static Set<String> getBlockedKeys(Context context) {
+        final String value = Settings.Global.getString(context.getContentResolver(),
                 Settings.Global.BLOCKED_SLICES);
         final Set<String> set = new ArraySet<>();
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.app.slice.SliceManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.collection.ArraySet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grants the allowlisted packages access to the public Settings Slices, skipping the grants
+ * already issued. Every Slice is granted by its own Uri, never by a path prefix, since the
+ * provider does not check whether a key is public once the Uri is granted.
+ *
+ * <p>The grants issued are only remembered for the life of the process, and forgotten once the
+ * package is removed or its data is cleared, which drops its grants. Only the Slices that are new
+ * to the index, or packages that are new to the allowlist, cost binder calls meanwhile.</p>
+ */
+class SlicePermissionGrants {
+
+    private static final String TAG = "SlicePermissionGrants";
+
+    // The Uris granted to each package. Guarded by itself.
+    private static final Map<String, Set<String>> sGranted = new ArrayMap<>();
+    private static boolean sListening;
+
+    private SlicePermissionGrants() {
+    }
+
+    /** Grants the given packages access to the given Slices, unless already granted. */
+    static void grant(Context context, String[] packages, List<Uri> uris) {
+        final SliceManager sliceManager = context.getSystemService(SliceManager.class);
+        int grantCount = 0;
+        synchronized (sGranted) {
+            if (!sListening) {
+                registerReceiver(context.getApplicationContext());
+                sListening = true;
+            }
+            for (String toPackage : packages) {
+                Set<String> granted = sGranted.get(toPackage);
+                if (granted == null) {
+                    granted = new ArraySet<>();
+                    sGranted.put(toPackage, granted);
+                }
+                for (Uri uri : uris) {
+                    if (granted.add(uri.toString())) {
+                        sliceManager.grantSlicePermission(toPackage, uri);
+                        grantCount++;
+                    }
+                }
+            }
+        }
+        Log.d(TAG, String.format("Issued %d grants for %d uris to %d pkgs.",
+                grantCount, uris.size(), packages.length));
+    }
+
+    private static void forget(String packageName) {
+        synchronized (sGranted) {
+            sGranted.remove(packageName);
+        }
+    }
+
+    @VisibleForTesting
+    static void reset() {
+        synchronized (sGranted) {
+            sGranted.clear();
+        }
+    }
+
+    private static void registerReceiver(Context context) {
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_DATA_CLEARED);
+        filter.addDataScheme("package");
+        context.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                final Uri data = intent.getData();
+                if (data != null) {
+                    forget(data.getSchemeSpecificPart());
+                }
+            }
+        }, filter);
+    }
+}
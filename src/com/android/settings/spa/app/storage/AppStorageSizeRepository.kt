@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.spa.app.storage
+
+import android.content.BroadcastReceiver
+import android.content.Context
+import android.content.Intent
+import android.content.IntentFilter
+import android.content.pm.ApplicationInfo
+import android.os.SystemClock
+import android.os.UserHandle
+import androidx.annotation.VisibleForTesting
+import com.android.settingslib.spaprivileged.model.app.userId
+import com.android.settingslib.spaprivileged.template.app.calculateSizeBytes
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+
+/**
+ * Computes the storage size of apps with bounded parallelism and remembers them per package and
+ * user, until the package changes, its cache or data is cleared, or the size is older than
+ * [MAX_AGE_MILLIS].
+ */
+class AppStorageSizeRepository @VisibleForTesting constructor(
+    private val calculateSize: (ApplicationInfo) -> Long?,
+    private val elapsedRealtime: () -> Long = SystemClock::elapsedRealtime,
+) {
+    private class Size(val bytes: Long, val computedAt: Long)
+
+    // Guarded by sizes, as is generations.
+    private val sizes = mutableMapOf<String, Size>()
+
+    // Bumped on invalidate, so a size computed before is not remembered.
+    private val generations = mutableMapOf<String, Int>()
+
+    /**
+     * Returns the sizes of the given apps, in the same order.
+     *
+     * The first emission uses the remembered sizes and 0 for the unknown ones, then a new list is
+     * emitted each time more sizes become known, so the list can be shown and sorted before every
+     * size has been computed.
+     */
+    fun sizesFlow(apps: List<ApplicationInfo>): Flow<LongArray> = flow {
+        val result = LongArray(apps.size)
+        val missing = mutableListOf<Int>()
+        apps.forEachIndexed { index, app ->
+            val size = getRemembered(app.sizeKey())
+            if (size != null) result[index] = size else missing.add(index)
+        }
+        emit(result.copyOf())
+        if (missing.isEmpty()) return@flow
+
+        coroutineScope {
+            val semaphore = Semaphore(MAX_PARALLELISM)
+            val computed = Channel<Pair<Int, Long>>(Channel.UNLIMITED)
+            for (index in missing) {
+                launch(Dispatchers.IO) {
+                    semaphore.withPermit {
+                        computed.send(index to (getOrCompute(apps[index]) ?: 0L))
+                    }
+                }
+            }
+            var remaining = missing.size
+            while (remaining > 0) {
+                var (index, size) = computed.receive()
+                while (true) {
+                    result[index] = size
+                    remaining--
+                    val next = computed.tryReceive().getOrNull() ?: break
+                    index = next.first
+                    size = next.second
+                }
+                emit(result.copyOf())
+            }
+        }
+    }
+
+    private fun getRemembered(key: String): Long? = synchronized(sizes) {
+        sizes[key]?.takeIf { elapsedRealtime() - it.computedAt < MAX_AGE_MILLIS }?.bytes
+    }
+
+    private fun getOrCompute(app: ApplicationInfo): Long? {
+        val key = app.sizeKey()
+        val generation = synchronized(sizes) {
+            getRemembered(key)?.let { return it }
+            generations[key] ?: 0
+        }
+        val computedAt = elapsedRealtime()
+        return calculateSize(app)?.also { bytes ->
+            synchronized(sizes) {
+                // Changed while computing, the size may be from before the change.
+                if ((generations[key] ?: 0) == generation) sizes[key] = Size(bytes, computedAt)
+            }
+        }
+    }
+
+    /** Forgets the remembered sizes of the given package for the given user. */
+    fun invalidate(packageName: String, userId: Int) {
+        val key = sizeKey(packageName, userId)
+        synchronized(sizes) {
+            sizes.remove(key)
+            generations[key] = (generations[key] ?: 0) + 1
+        }
+    }
+
+    private fun ApplicationInfo.sizeKey() = sizeKey(packageName, userId)
+
+    private class PackageChangeReceiver(
+        private val repository: AppStorageSizeRepository,
+    ) : BroadcastReceiver() {
+        override fun onReceive(context: Context, intent: Intent) {
+            val packageName = intent.data?.schemeSpecificPart ?: return
+            val uid = intent.getIntExtra(Intent.EXTRA_UID, -1)
+            val userId = if (uid >= 0) UserHandle.getUserId(uid) else getSendingUserId()
+            repository.invalidate(packageName, userId)
+        }
+    }
+
+    companion object {
+        private const val MAX_PARALLELISM = 8
+
+        // Apps also grow while they are used.
+        @VisibleForTesting
+        const val MAX_AGE_MILLIS = 30_000L
+
+        @Volatile
+        private var instance: AppStorageSizeRepository? = null
+
+        /** Returns the process wide repository, listening to package changes on first use. */
+        @JvmStatic
+        fun getInstance(context: Context): AppStorageSizeRepository =
+            instance ?: synchronized(this) {
+                instance ?: create(context.applicationContext).also { instance = it }
+            }
+
+        private fun create(context: Context): AppStorageSizeRepository {
+            val repository = AppStorageSizeRepository { it.calculateSizeBytes(context) }
+            val filter = IntentFilter().apply {
+                addAction(Intent.ACTION_PACKAGE_ADDED)
+                addAction(Intent.ACTION_PACKAGE_CHANGED)
+                addAction(Intent.ACTION_PACKAGE_REMOVED)
+                addAction(Intent.ACTION_PACKAGE_REPLACED)
+                addAction(Intent.ACTION_PACKAGE_DATA_CLEARED)
+                addDataScheme("package")
+            }
+            context.registerReceiverForAllUsers(
+                PackageChangeReceiver(repository), filter, null, null,
+            )
+            return repository
+        }
+
+        private fun sizeKey(packageName: String, userId: Int) = "$packageName/$userId"
+    }
+}
@@ -30,7 +30,6 @@ import com.android.settings.R
 import com.android.settings.spa.app.appinfo.AppInfoSettingsProvider
 import com.android.settingslib.spa.framework.common.SettingsPageProvider
 import com.android.settingslib.spa.framework.util.filterItem
-import com.android.settingslib.spa.framework.util.mapItem
 import com.android.settingslib.spaprivileged.model.app.AppEntry
 import com.android.settingslib.spaprivileged.model.app.AppListModel
 import com.android.settingslib.spaprivileged.model.app.AppRecord
@@ -39,9 +38,11 @@ import com.android.settingslib.spaprivileged.template.app.AppListInput
 import com.android.settingslib.spaprivileged.template.app.AppListItem
 import com.android.settingslib.spaprivileged.template.app.AppListItemModel
 import com.android.settingslib.spaprivileged.template.app.AppListPage
-import com.android.settingslib.spaprivileged.template.app.calculateSizeBytes
 import com.android.settingslib.spaprivileged.template.app.getStorageSize
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.map
 
 sealed class StorageAppListPageProvider(private val type: StorageType) : SettingsPageProvider {
     @Composable
@@ -107,11 +108,16 @@ class StorageAppListModel(
     private val type: StorageType,
     private val getStorageSummary: @Composable ApplicationInfo.() -> State<String> = {
         getStorageSize()
-    }
+    },
+    private val sizeRepository: AppStorageSizeRepository =
+        AppStorageSizeRepository.getInstance(context),
 ) : AppListModel<AppRecordWithSize> {
+    @OptIn(ExperimentalCoroutinesApi::class)
     override fun transform(userIdFlow: Flow<Int>, appListFlow: Flow<List<ApplicationInfo>>) =
-        appListFlow.mapItem {
-            AppRecordWithSize(it, it.calculateSizeBytes(context) ?: 0L)
+        appListFlow.flatMapLatest { apps ->
+            sizeRepository.sizesFlow(apps).map { sizes ->
+                apps.mapIndexed { index, app -> AppRecordWithSize(app, sizes[index]) }
+            }
         }
 
     override fun filter(
@@ -22,13 +22,10 @@ import android.app.INotificationManager
 import android.app.NotificationChannel
 import android.app.NotificationManager.IMPORTANCE_NONE
 import android.app.NotificationManager.IMPORTANCE_UNSPECIFIED
-import android.app.usage.IUsageStatsManager
-import android.app.usage.UsageEvents
 import android.content.Context
 import android.content.pm.ApplicationInfo
 import android.os.Build
 import android.os.IUserManager
-import android.os.RemoteException
 import android.os.ServiceManager
 import android.util.Log
 import com.android.settings.R
@@ -36,11 +33,8 @@ import com.android.settingslib.spa.framework.util.formatString
 import com.android.settingslib.spaprivileged.model.app.IPackageManagers
 import com.android.settingslib.spaprivileged.model.app.PackageManagers
 import com.android.settingslib.spaprivileged.model.app.userId
-import java.util.concurrent.TimeUnit
-import kotlin.math.max
 import kotlin.math.roundToInt
 import kotlinx.coroutines.flow.Flow
-import kotlinx.coroutines.flow.map
 
 /**
  * This contains how often an app sends notifications and how recently it sent one.
@@ -61,9 +55,8 @@ interface IAppNotificationRepository {
 class AppNotificationRepository(
     private val context: Context,
     private val packageManagers: IPackageManagers = PackageManagers,
-    private val usageStatsManager: IUsageStatsManager = IUsageStatsManager.Stub.asInterface(
-        ServiceManager.getService(Context.USAGE_STATS_SERVICE)
-    ),
+    private val usageEventsRepository: NotificationUsageEventsRepository =
+        NotificationUsageEventsRepository.getInstance(context),
     private val notificationManager: INotificationManager = INotificationManager.Stub.asInterface(
         ServiceManager.getService(Context.NOTIFICATION_SERVICE)
     ),
@@ -72,27 +65,7 @@ class AppNotificationRepository(
     ),
 ) : IAppNotificationRepository {
     fun getAggregatedUsageEvents(userIdFlow: Flow<Int>): Flow<Map<String, NotificationSentState>> =
-        userIdFlow.map { userId ->
-            val aggregatedStats = mutableMapOf<String, NotificationSentState>()
-            queryEventsForUser(userId).forEachNotificationEvent { event ->
-                aggregatedStats.getOrPut(event.packageName, ::NotificationSentState).apply {
-                    lastSent = max(lastSent, event.timeStamp)
-                    sentCount++
-                }
-            }
-            aggregatedStats
-        }
-
-    private fun queryEventsForUser(userId: Int): UsageEvents? {
-        val now = System.currentTimeMillis()
-        val startTime = now - TimeUnit.DAYS.toMillis(DAYS_TO_CHECK)
-        return try {
-            usageStatsManager.queryEventsForUser(startTime, now, userId, context.packageName)
-        } catch (e: RemoteException) {
-            Log.e(TAG, "Failed IUsageStatsManager.queryEventsForUser(): ", e)
-            null
-        }
-    }
+        usageEventsRepository.getSentStatesFlow(userIdFlow)
 
     fun isEnabled(app: ApplicationInfo): Boolean =
         notificationManager.areNotificationsEnabledForPackage(app.packageName, app.uid)
@@ -156,24 +129,8 @@ class AppNotificationRepository(
         )
     }
 
-    private fun getSentCount(app: ApplicationInfo): Int {
-        var sentCount = 0
-        queryEventsForPackageForUser(app).forEachNotificationEvent { sentCount++ }
-        return sentCount
-    }
-
-    private fun queryEventsForPackageForUser(app: ApplicationInfo): UsageEvents? {
-        val now = System.currentTimeMillis()
-        val startTime = now - TimeUnit.DAYS.toMillis(DAYS_TO_CHECK)
-        return try {
-            usageStatsManager.queryEventsForPackageForUser(
-                startTime, now, app.userId, app.packageName, context.packageName
-            )
-        } catch (e: RemoteException) {
-            Log.e(TAG, "Failed IUsageStatsManager.queryEventsForPackageForUser(): ", e)
-            null
-        }
-    }
+    private fun getSentCount(app: ApplicationInfo): Int =
+        usageEventsRepository.getSentState(app.userId, app.packageName)?.sentCount ?: 0
 
     private fun getChannelCount(app: ApplicationInfo): Int = try {
         notificationManager.getNumNotificationChannelsForPackage(app.packageName, app.uid, false)
@@ -190,7 +147,8 @@ class AppNotificationRepository(
     }
 
     fun calculateFrequencySummary(sentCount: Int): String {
-        val dailyFrequency = (sentCount.toFloat() / DAYS_TO_CHECK).roundToInt()
+        val dailyFrequency =
+            (sentCount.toFloat() / NotificationUsageEventsRepository.DAYS_TO_CHECK).roundToInt()
         return if (dailyFrequency > 0) {
             context.formatString(
                 R.string.notifications_sent_daily,
@@ -218,17 +176,5 @@ class AppNotificationRepository(
 
     companion object {
         private const val TAG = "AppNotificationsRepo"
-
-        private const val DAYS_TO_CHECK = 7L
-
-        private fun UsageEvents?.forEachNotificationEvent(action: (UsageEvents.Event) -> Unit) {
-            this ?: return
-            val event = UsageEvents.Event()
-            while (getNextEvent(event)) {
-                if (event.eventType == UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
-                    action(event)
-                }
-            }
-        }
     }
 }
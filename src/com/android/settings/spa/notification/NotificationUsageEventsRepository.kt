@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.spa.notification
+
+import android.app.usage.IUsageStatsManager
+import android.app.usage.UsageEvents
+import android.content.Context
+import android.os.RemoteException
+import android.os.ServiceManager
+import android.os.SystemClock
+import android.util.Log
+import android.util.SparseArray
+import androidx.annotation.VisibleForTesting
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import kotlin.math.max
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.map
+
+/**
+ * Aggregates the notifications sent by every app of a user from a single usage events scan.
+ *
+ * The aggregation is shared by everything showing notification frequency, and is only redone
+ * once it is older than [REFRESH_WINDOW_MILLIS], so rendering a list does not scan the usage events
+ * once per app. Callers asking while a user is being scanned wait for that scan. A single app
+ * only scans its own events, unless its user was scanned recently or is being scanned.
+ */
+class NotificationUsageEventsRepository @VisibleForTesting constructor(
+    private val context: Context,
+    private val usageStatsManager: IUsageStatsManager,
+    private val elapsedRealtime: () -> Long = SystemClock::elapsedRealtime,
+) {
+    private class Snapshot(val sentStates: Map<String, NotificationSentState>, val time: Long)
+
+    // Guarded by snapshots, as is scans.
+    private val snapshots = SparseArray<Snapshot>()
+
+    // The scan in progress of each user.
+    private val scans = SparseArray<CompletableFuture<Map<String, NotificationSentState>>>()
+
+    /** Gets the sent state of every app of each user emitted by [userIdFlow]. */
+    fun getSentStatesFlow(userIdFlow: Flow<Int>): Flow<Map<String, NotificationSentState>> =
+        userIdFlow.map(::getSentStates)
+
+    /** Gets the sent state of the given package, or null if it sent no notification. */
+    fun getSentState(userId: Int, packageName: String): NotificationSentState? {
+        val scan = synchronized(snapshots) {
+            getRecentSentStates(userId)?.let { return it[packageName] }
+            scans[userId]
+        }
+        if (scan != null) return scan.join()[packageName]
+        return aggregate(queryEventsForPackageForUser(userId, packageName))[packageName]
+    }
+
+    /** Gets the sent state of every app of the given user. */
+    fun getSentStates(userId: Int): Map<String, NotificationSentState> {
+        val scan = CompletableFuture<Map<String, NotificationSentState>>()
+        val ongoingScan = synchronized(snapshots) {
+            getRecentSentStates(userId)?.let { return it }
+            scans[userId].also { if (it == null) scans.put(userId, scan) }
+        }
+        if (ongoingScan != null) return ongoingScan.join()
+        val sentStates = try {
+            aggregate(queryEventsForUser(userId))
+        } catch (e: RuntimeException) {
+            synchronized(snapshots) { scans.remove(userId) }
+            scan.completeExceptionally(e)
+            throw e
+        }
+        synchronized(snapshots) {
+            scans.remove(userId)
+            snapshots.put(userId, Snapshot(sentStates, elapsedRealtime()))
+        }
+        scan.complete(sentStates)
+        return sentStates
+    }
+
+    private fun getRecentSentStates(userId: Int): Map<String, NotificationSentState>? {
+        val snapshot = snapshots[userId] ?: return null
+        return if (elapsedRealtime() - snapshot.time < REFRESH_WINDOW_MILLIS) {
+            snapshot.sentStates
+        } else {
+            null
+        }
+    }
+
+    private fun aggregate(events: UsageEvents?): Map<String, NotificationSentState> {
+        val aggregatedStats = mutableMapOf<String, NotificationSentState>()
+        if (events == null) return aggregatedStats
+        val event = UsageEvents.Event()
+        while (events.getNextEvent(event)) {
+            if (event.eventType == UsageEvents.Event.NOTIFICATION_INTERRUPTION) {
+                aggregatedStats.getOrPut(event.packageName, ::NotificationSentState).apply {
+                    lastSent = max(lastSent, event.timeStamp)
+                    sentCount++
+                }
+            }
+        }
+        return aggregatedStats
+    }
+
+    private fun queryEventsForUser(userId: Int): UsageEvents? {
+        val now = System.currentTimeMillis()
+        val startTime = now - TimeUnit.DAYS.toMillis(DAYS_TO_CHECK)
+        return try {
+            usageStatsManager.queryEventsForUser(startTime, now, userId, context.packageName)
+        } catch (e: RemoteException) {
+            Log.e(TAG, "Failed IUsageStatsManager.queryEventsForUser(): ", e)
+            null
+        }
+    }
+
+    private fun queryEventsForPackageForUser(userId: Int, packageName: String): UsageEvents? {
+        val now = System.currentTimeMillis()
+        val startTime = now - TimeUnit.DAYS.toMillis(DAYS_TO_CHECK)
+        return try {
+            usageStatsManager.queryEventsForPackageForUser(
+                startTime, now, userId, packageName, context.packageName
+            )
+        } catch (e: RemoteException) {
+            Log.e(TAG, "Failed IUsageStatsManager.queryEventsForPackageForUser(): ", e)
+            null
+        }
+    }
+
+    companion object {
+        private const val TAG = "NotificationUsageEvents"
+
+        const val DAYS_TO_CHECK = 7L
+
+        @VisibleForTesting
+        val REFRESH_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(1)
+
+        @Volatile
+        private var instance: NotificationUsageEventsRepository? = null
+
+        /** Returns the process wide repository. */
+        @JvmStatic
+        fun getInstance(context: Context): NotificationUsageEventsRepository =
+            instance ?: synchronized(this) {
+                instance ?: NotificationUsageEventsRepository(
+                    context.applicationContext,
+                    IUsageStatsManager.Stub.asInterface(
+                        ServiceManager.getService(Context.USAGE_STATS_SERVICE)
+                    ),
+                ).also { instance = it }
+            }
+    }
+}
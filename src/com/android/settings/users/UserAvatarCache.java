@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.UserInfo;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.internal.util.UserIcons;
+import com.android.settings.R;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process wide cache of user avatars, scaled down to the size they are shown at in
+ * {@link UserSettings}.
+ * <p/>
+ * Avatars are loaded concurrently, one background task per user, and a thumbnail of each is kept
+ * in the cache directory so that the next time the user list is shown the avatars can be decoded
+ * from a small file instead of asking {@link UserManager} for the full size photo. The avatar of
+ * a user is dropped as soon as its info changes, whether the user list is shown or not.
+ */
+public class UserAvatarCache {
+    private static final String TAG = "UserAvatarCache";
+    private static final String THUMBNAIL_DIR = "user_avatars";
+
+    private static UserAvatarCache sInstance;
+
+    private final Executor mBackgroundExecutor;
+    private final Executor mMainExecutor;
+    // Guarded by mAvatars.
+    private final SparseArray<Bitmap> mAvatars = new SparseArray<>();
+    // Bumped on every invalidation, so a load started before it is not cached. Guarded by
+    // mAvatars.
+    private final SparseIntArray mGenerations = new SparseIntArray();
+    // The callbacks waiting for the avatar of each user being loaded. Guarded by mAvatars.
+    private final SparseArray<List<Runnable>> mPendingCallbacks = new SparseArray<>();
+    private boolean mListening;
+
+    /** Returns the process wide instance. */
+    public static synchronized UserAvatarCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new UserAvatarCache(ThreadUtils::postOnBackgroundThread,
+                    ThreadUtils::postOnMainThread);
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    UserAvatarCache(Executor backgroundExecutor, Executor mainExecutor) {
+        mBackgroundExecutor = backgroundExecutor;
+        mMainExecutor = mainExecutor;
+    }
+
+    /** Returns the cached avatar of the given user, or null if it has not been loaded yet. */
+    @Nullable
+    public Bitmap get(int userId) {
+        synchronized (mAvatars) {
+            return mAvatars.get(userId);
+        }
+    }
+
+    /** Stores the avatar of the given user in memory. */
+    @VisibleForTesting
+    void put(int userId, @NonNull Bitmap avatar) {
+        synchronized (mAvatars) {
+            mAvatars.put(userId, avatar);
+        }
+    }
+
+    /** Drops the cached avatar and thumbnail of the given user, e.g. after its info changed. */
+    public void invalidate(@NonNull Context context, int userId) {
+        synchronized (mAvatars) {
+            mAvatars.remove(userId);
+            mGenerations.put(userId, mGenerations.get(userId) + 1);
+        }
+        final Context appContext = context.getApplicationContext();
+        mBackgroundExecutor.execute(() -> getThumbnailFile(appContext, userId).delete());
+    }
+
+    /**
+     * Loads the avatars of the given users that are not cached yet, in parallel, and runs
+     * {@code onLoaded} on the main thread once all of them are available. The users already being
+     * loaded, e.g. for the list shown before a configuration change, are waited for instead of
+     * loaded again.
+     */
+    public void loadAsync(@NonNull Context context, @NonNull UserManager userManager,
+            @NonNull List<UserInfo> users, @NonNull Runnable onLoaded) {
+        final Context appContext = context.getApplicationContext();
+        registerReceiverIfNeeded(appContext);
+        final AtomicInteger remaining = new AtomicInteger(users.size());
+        final Runnable onUserLoaded = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                mMainExecutor.execute(onLoaded);
+            }
+        };
+        final List<UserInfo> toLoad = new ArrayList<>();
+        synchronized (mAvatars) {
+            for (UserInfo user : users) {
+                List<Runnable> callbacks = mPendingCallbacks.get(user.id);
+                if (callbacks == null) {
+                    callbacks = new ArrayList<>();
+                    mPendingCallbacks.put(user.id, callbacks);
+                    toLoad.add(user);
+                }
+                callbacks.add(onUserLoaded);
+            }
+        }
+        for (UserInfo user : toLoad) {
+            mBackgroundExecutor.execute(() -> loadAndNotify(appContext, userManager, user));
+        }
+    }
+
+    private void loadAndNotify(Context context, UserManager userManager, UserInfo user) {
+        final int generation;
+        synchronized (mAvatars) {
+            generation = mGenerations.get(user.id);
+        }
+        try {
+            final Bitmap avatar = loadAvatar(context, userManager, user, generation);
+            synchronized (mAvatars) {
+                // The info of the user changed while loading, the avatar may be outdated.
+                if (mGenerations.get(user.id) == generation) {
+                    mAvatars.put(user.id, avatar);
+                }
+            }
+        } finally {
+            final List<Runnable> callbacks;
+            synchronized (mAvatars) {
+                callbacks = mPendingCallbacks.get(user.id);
+                mPendingCallbacks.remove(user.id);
+            }
+            if (callbacks != null) {
+                for (Runnable callback : callbacks) {
+                    callback.run();
+                }
+            }
+        }
+    }
+
+    private Bitmap loadAvatar(Context context, UserManager userManager, UserInfo user,
+            int generation) {
+        final Resources res = context.getResources();
+        final File thumbnail = getThumbnailFile(context, user.id);
+        final long iconModified = user.iconPath != null ? new File(user.iconPath).lastModified()
+                : 0L;
+        // Only trust the thumbnail if it is known to be newer than the user's photo.
+        final boolean canUseThumbnail = iconModified > 0L;
+        if (canUseThumbnail && thumbnail.lastModified() >= iconModified) {
+            final Bitmap bitmap = BitmapFactory.decodeFile(thumbnail.getPath());
+            if (bitmap != null) {
+                return bitmap;
+            }
+        }
+
+        final Bitmap icon = userManager.getUserIcon(user.id);
+        if (icon == null) {
+            return UserIcons.convertToBitmapAtUserIconSize(res,
+                    UserIcons.getDefaultUserIcon(res, user.id, false));
+        }
+        final Bitmap scaled = scaleToDisplaySize(res, icon);
+        synchronized (mAvatars) {
+            if (!canUseThumbnail || mGenerations.get(user.id) != generation) {
+                return scaled;
+            }
+        }
+        writeThumbnail(thumbnail, scaled);
+        return scaled;
+    }
+
+    private void registerReceiverIfNeeded(Context appContext) {
+        synchronized (mAvatars) {
+            if (mListening) {
+                return;
+            }
+            mListening = true;
+        }
+        appContext.registerReceiverForAllUsers(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                final int userId = intent.getIntExtra(Intent.EXTRA_USER_HANDLE,
+                        UserHandle.USER_NULL);
+                if (userId != UserHandle.USER_NULL) {
+                    invalidate(context, userId);
+                }
+            }
+        }, new IntentFilter(Intent.ACTION_USER_INFO_CHANGED), null /* permission */,
+                null /* scheduler */);
+    }
+
+    private static Bitmap scaleToDisplaySize(Resources res, Bitmap icon) {
+        final int size = res.getDimensionPixelSize(R.dimen.multiple_users_user_icon_size);
+        if (size <= 0 || (icon.getWidth() <= size && icon.getHeight() <= size)) {
+            return icon;
+        }
+        final float scale = (float) size / Math.min(icon.getWidth(), icon.getHeight());
+        return Bitmap.createScaledBitmap(icon, Math.round(icon.getWidth() * scale),
+                Math.round(icon.getHeight() * scale), true /* filter */);
+    }
+
+    private static void writeThumbnail(File file, Bitmap bitmap) {
+        final File dir = file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write avatar thumbnail for " + file.getName(), e);
+        }
+    }
+
+    private static File getThumbnailFile(Context context, int userId) {
+        return new File(new File(context.getCacheDir(), THUMBNAIL_DIR), userId + ".png");
+    }
+}
@@ -203,7 +203,7 @@ public class UserSettings extends SettingsPreferenceFragment
     @VisibleForTesting
     RestrictedPreference mAddSupervisedUser;
     @VisibleForTesting
-    SparseArray<Bitmap> mUserIcons = new SparseArray<>();
+    UserAvatarCache mAvatarCache = UserAvatarCache.getInstance();
     private int mRemovingUserId = -1;
     private boolean mAddingUser;
     private boolean mGuestUserAutoCreated;
@@ -263,12 +263,8 @@ public class UserSettings extends SettingsPreferenceFragment
         public void onReceive(Context context, Intent intent) {
             if (intent.getAction().equals(Intent.ACTION_USER_REMOVED)) {
                 mRemovingUserId = -1;
-            } else if (intent.getAction().equals(Intent.ACTION_USER_INFO_CHANGED)) {
-                int userHandle = intent.getIntExtra(Intent.EXTRA_USER_HANDLE, -1);
-                if (userHandle != -1) {
-                    mUserIcons.remove(userHandle);
-                }
             }
+            // UserAvatarCache drops the icon of a changed user through its own receiver.
             mHandler.sendEmptyMessage(MESSAGE_UPDATE_LIST);
         }
     };
@@ -545,7 +541,6 @@ public class UserSettings extends SettingsPreferenceFragment
         Bitmap b = mUserManager.getUserIcon(myUserId);
         if (b != null) {
             mMePreference.setIcon(encircleUserIcon(b));
-            mUserIcons.put(myUserId, b);
         }
     }
 
@@ -1210,7 +1205,7 @@ public class UserSettings extends SettingsPreferenceFragment
             users = List.of(mUserManager.getUserInfo(context.getUserId()));
         }
 
-        final ArrayList<Integer> missingIcons = new ArrayList<>();
+        final ArrayList<UserInfo> missingIcons = new ArrayList<>();
         final ArrayList<UserPreference> userPreferences = new ArrayList<>();
 
         // mMePreference shows a icon for current user. However when current user is a guest, we
@@ -1262,9 +1257,9 @@ public class UserSettings extends SettingsPreferenceFragment
                 pref.setSummary(R.string.user_summary_restricted_profile);
             }
             if (user.iconPath != null) {
-                if (mUserIcons.get(user.id) == null) {
+                if (mAvatarCache.get(user.id) == null) {
                     // Icon not loaded yet, print a placeholder
-                    missingIcons.add(user.id);
+                    missingIcons.add(user);
                     pref.setIcon(getEncircledDefaultIcon());
                 } else {
                     setPhotoId(pref, user);
@@ -1547,25 +1542,8 @@ public class UserSettings extends SettingsPreferenceFragment
                 .count();
     }
 
-    private void loadIconsAsync(List<Integer> missingIcons) {
-        new AsyncTask<List<Integer>, Void, Void>() {
-            @Override
-            protected void onPostExecute(Void result) {
-                updateUserList();
-            }
-
-            @Override
-            protected Void doInBackground(List<Integer>... values) {
-                for (int userId : values[0]) {
-                    Bitmap bitmap = mUserManager.getUserIcon(userId);
-                    if (bitmap == null) {
-                        bitmap = getDefaultUserIconAsBitmap(getContext().getResources(), userId);
-                    }
-                    mUserIcons.append(userId, bitmap);
-                }
-                return null;
-            }
-        }.execute(missingIcons);
+    private void loadIconsAsync(List<UserInfo> missingIcons) {
+        mAvatarCache.loadAsync(getContext(), mUserManager, missingIcons, this::updateUserList);
     }
 
     private Drawable getEncircledDefaultIcon() {
@@ -1577,7 +1555,7 @@ public class UserSettings extends SettingsPreferenceFragment
     }
 
     private void setPhotoId(Preference pref, UserInfo user) {
-        Bitmap bitmap = mUserIcons.get(user.id);
+        Bitmap bitmap = mAvatarCache.get(user.id);
         if (bitmap != null) {
             pref.setIcon(encircleUserIcon(bitmap));
         }
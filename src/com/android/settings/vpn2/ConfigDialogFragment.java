@@ -111,6 +111,7 @@ public class ConfigDialogFragment extends InstrumentedDialogFragment implements
     public void onConfirmLockdown(Bundle options, boolean isAlwaysOn, boolean isLockdown) {
         VpnProfile profile = (VpnProfile) options.getParcelable(ARG_PROFILE);
         connect(profile, isAlwaysOn);
+        notifyProfilesChanged();
         dismiss();
     }
 
@@ -156,6 +157,7 @@ public class ConfigDialogFragment extends InstrumentedDialogFragment implements
 
             updateLockdownVpn(false, profile);
         }
+        notifyProfilesChanged();
         dismiss();
     }
 
@@ -165,6 +167,13 @@ public class ConfigDialogFragment extends InstrumentedDialogFragment implements
         super.onCancel(dialog);
     }
 
+    /** The profile store has no change callback, so let the list know it was written to. */
+    private void notifyProfilesChanged() {
+        if (getTargetFragment() instanceof VpnSettings) {
+            ((VpnSettings) getTargetFragment()).rescan();
+        }
+    }
+
     private void updateLockdownVpn(boolean isVpnAlwaysOn, VpnProfile profile) {
         // Save lockdown vpn
         if (isVpnAlwaysOn) {
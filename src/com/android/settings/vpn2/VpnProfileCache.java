@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.vpn2;
+
+import android.annotation.WorkerThread;
+import android.security.Credentials;
+import android.security.LegacyVpnProfileStore;
+import android.util.ArrayMap;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.internal.net.VpnProfile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps the decoded legacy VPN profiles, keyed by profile key and checked against the stored
+ * bytes, so only profiles added or edited since the last load are decoded again.
+ */
+class VpnProfileCache {
+
+    private static class Entry {
+        final byte[] mFingerprint;
+        final VpnProfile mProfile;
+
+        Entry(byte[] fingerprint, VpnProfile profile) {
+            mFingerprint = fingerprint;
+            mProfile = profile;
+        }
+    }
+
+    private final Map<String, Entry> mEntries = new ArrayMap<>();
+
+    /** Returns the profiles currently in the legacy VPN profile store. */
+    @WorkerThread
+    List<VpnProfile> load() {
+        return load(LegacyVpnProfileStore.list(Credentials.VPN),
+                key -> LegacyVpnProfileStore.get(Credentials.VPN + key));
+    }
+
+    @VisibleForTesting
+    synchronized List<VpnProfile> load(String[] keys, Function<String, byte[]> reader) {
+        final Map<String, Entry> previous = new ArrayMap<>(mEntries);
+        mEntries.clear();
+
+        final List<VpnProfile> result = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            final byte[] value = reader.apply(key);
+            if (value == null) {
+                continue;
+            }
+            Entry entry = previous.get(key);
+            if (entry == null || !Arrays.equals(entry.mFingerprint, value)) {
+                final VpnProfile profile = VpnProfile.decode(key, value);
+                if (profile == null) {
+                    continue;
+                }
+                entry = new Entry(value, profile);
+            }
+            mEntries.put(key, entry);
+            result.add(entry.mProfile);
+        }
+        return result;
+    }
+}
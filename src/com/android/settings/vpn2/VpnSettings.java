@@ -24,8 +24,10 @@ import android.annotation.WorkerThread;
 import android.app.Activity;
 import android.app.AppOpsManager;
 import android.app.settings.SettingsEnums;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
@@ -41,8 +43,6 @@ import android.os.HandlerThread;
 import android.os.Message;
 import android.os.UserHandle;
 import android.os.UserManager;
-import android.security.Credentials;
-import android.security.LegacyVpnProfileStore;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.ArraySet;
@@ -69,7 +69,6 @@ import com.android.settingslib.RestrictedLockUtilsInternal;
 
 import com.google.android.collect.Lists;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -86,6 +85,7 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     private static final boolean DEBUG = Log.isLoggable(LOG_TAG, Log.DEBUG);
 
     private static final int RESCAN_MESSAGE = 0;
+    // Only used while a legacy VPN is starting, since its progress is not reported by any callback.
     private static final int RESCAN_INTERVAL_MS = 1000;
     private static final String ADVANCED_VPN_GROUP_KEY = "advanced_vpn_group";
     private static final String VPN_GROUP_KEY = "vpn_group";
@@ -107,6 +107,8 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     private Handler mUpdater;
     private HandlerThread mUpdaterThread;
     private LegacyVpnInfo mConnectedLegacyVpn;
+    private final VpnProfileCache mVpnProfileCache = new VpnProfileCache();
+    private AppOpsManager mAppOpsManager;
 
     private boolean mUnavailable;
     private AdvancedVpnFeatureProvider mFeatureProvider;
@@ -129,6 +131,7 @@ public class VpnSettings extends RestrictedDashboardFragment implements
         mUserManager = (UserManager) getSystemService(Context.USER_SERVICE);
         mConnectivityManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
         mVpnManager = (VpnManager) getSystemService(Context.VPN_MANAGEMENT_SERVICE);
+        mAppOpsManager = (AppOpsManager) getSystemService(Context.APP_OPS_SERVICE);
         mFeatureProvider = FeatureFactory.getFeatureFactory().getAdvancedVpnFeatureProvider();
         mIsAdvancedVpnSupported = mFeatureProvider.isAdvancedVpnSupported(getContext());
 
@@ -206,14 +209,26 @@ public class VpnSettings extends RestrictedDashboardFragment implements
             getEmptyTextView().setText(R.string.vpn_no_vpns_added);
         }
 
-        // Start monitoring
-        mConnectivityManager.registerNetworkCallback(VPN_REQUEST, mNetworkCallback);
-
         // Trigger a refresh
         mUpdaterThread = new HandlerThread("Refresh VPN list in background");
         mUpdaterThread.start();
-        mUpdater = new Handler(mUpdaterThread.getLooper(), this);
-        mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
+        synchronized (this) {
+            mUpdater = new Handler(mUpdaterThread.getLooper(), this);
+        }
+        rescan();
+
+        // Start monitoring, the list is only refreshed when one of these reports a change
+        mConnectivityManager.registerNetworkCallback(VPN_REQUEST, mNetworkCallback);
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addDataScheme("package");
+        getContext().registerReceiver(mPackageReceiver, packageFilter);
+        mAppOpsManager.startWatchingMode(OP_ACTIVATE_VPN, null /* packageName */,
+                mOpChangedListener);
+        mAppOpsManager.startWatchingMode(OP_ACTIVATE_PLATFORM_VPN, null /* packageName */,
+                mOpChangedListener);
     }
 
     @Override
@@ -235,6 +250,8 @@ public class VpnSettings extends RestrictedDashboardFragment implements
 
         // Stop monitoring
         mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+        getContext().unregisterReceiver(mPackageReceiver);
+        mAppOpsManager.stopWatchingMode(mOpChangedListener);
 
         synchronized (this) {
             mUpdater.removeCallbacksAndMessages(null);
@@ -256,7 +273,7 @@ public class VpnSettings extends RestrictedDashboardFragment implements
         final Context context = activity.getApplicationContext();
 
         // Run heavy RPCs before switching to UI thread
-        final List<VpnProfile> vpnProfiles = loadVpnProfiles();
+        final List<VpnProfile> vpnProfiles = mVpnProfileCache.load();
         final List<AppVpnInfo> vpnApps = getVpnApps(context, /* includeProfiles */ true,
                 mFeatureProvider);
 
@@ -271,13 +288,30 @@ public class VpnSettings extends RestrictedDashboardFragment implements
                 .legacyVpns(vpnProfiles, connectedLegacyVpns, lockdownVpnKey)
                 .appVpns(vpnApps, connectedAppVpns, alwaysOnAppVpnInfos));
 
+        // Keep following a legacy VPN until it settles, nothing else notifies its progress
+        if (mConnectedLegacyVpn != null
+                && (mConnectedLegacyVpn.state == LegacyVpnInfo.STATE_INITIALIZING
+                || mConnectedLegacyVpn.state == LegacyVpnInfo.STATE_CONNECTING)) {
+            synchronized (this) {
+                if (mUpdater != null && !mUpdater.hasMessages(RESCAN_MESSAGE)) {
+                    mUpdater.sendEmptyMessageDelayed(RESCAN_MESSAGE, RESCAN_INTERVAL_MS);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Refreshes the list in the background. Pending refreshes are merged into this one, so bursts
+     * of changes only reload the VPNs once.
+     */
+    void rescan() {
         synchronized (this) {
             if (mUpdater != null) {
                 mUpdater.removeMessages(RESCAN_MESSAGE);
-                mUpdater.sendEmptyMessageDelayed(RESCAN_MESSAGE, RESCAN_INTERVAL_MS);
+                mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
             }
         }
-        return true;
     }
 
     @VisibleForTesting
@@ -512,19 +546,25 @@ public class VpnSettings extends RestrictedDashboardFragment implements
     private NetworkCallback mNetworkCallback = new NetworkCallback() {
         @Override
         public void onAvailable(Network network) {
-            if (mUpdater != null) {
-                mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
-            }
+            rescan();
         }
 
         @Override
         public void onLost(Network network) {
-            if (mUpdater != null) {
-                mUpdater.sendEmptyMessage(RESCAN_MESSAGE);
-            }
+            rescan();
+        }
+    };
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            rescan();
         }
     };
 
+    private final AppOpsManager.OnOpChangedListener mOpChangedListener =
+            (op, packageName) -> rescan();
+
     @VisibleForTesting @UiThread
     public LegacyVpnPreference findOrCreatePreference(VpnProfile profile, boolean update) {
         LegacyVpnPreference pref = mLegacyVpnPreferences.get(profile.key);
@@ -683,19 +723,6 @@ public class VpnSettings extends RestrictedDashboardFragment implements
                 && TextUtils.equals(packageName, featureProvider.getAdvancedVpnPackageName());
     }
 
-    private static List<VpnProfile> loadVpnProfiles() {
-        final ArrayList<VpnProfile> result = Lists.newArrayList();
-
-        for (String key : LegacyVpnProfileStore.list(Credentials.VPN)) {
-            final VpnProfile profile = VpnProfile.decode(key,
-                    LegacyVpnProfileStore.get(Credentials.VPN + key));
-            if (profile != null) {
-                result.add(profile);
-            }
-        }
-        return result;
-    }
-
     @VisibleForTesting
     void init(PreferenceScreen preferenceScreen, AdvancedVpnFeatureProvider featureProvider) {
         mPreferenceScreen = preferenceScreen;
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.tests.perf;
+
+import static android.app.admin.DevicePolicyManager.PASSWORD_COMPLEXITY_HIGH;
+
+import static com.android.internal.widget.LockPatternUtils.CREDENTIAL_TYPE_NONE;
+
+import android.app.Instrumentation;
+import android.app.admin.PasswordMetrics;
+import android.os.Bundle;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.internal.widget.LockscreenCredential;
+import com.android.settings.password.IncrementalPasswordMetrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Measures the policy check run for each character typed into a long passphrase, done from
+ * scratch on a new credential and incrementally.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PasswordValidationPerfTest {
+    private static final int PASSPHRASE_LENGTH = 256;
+    private static final int TEST_TIME = 10;
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ"
+            + " 0123456789 !@#$%^&*()";
+
+    private Bundle mBundle;
+    private Instrumentation mInstrumentation;
+    private PasswordMetrics mMinMetrics;
+
+    @Before
+    public void setUp() {
+        mBundle = new Bundle();
+        mInstrumentation = InstrumentationRegistry.getInstrumentation();
+        mMinMetrics = new PasswordMetrics(CREDENTIAL_TYPE_NONE);
+    }
+
+    @After
+    public void tearDown() {
+        mInstrumentation.sendStatus(0, mBundle);
+    }
+
+    @Test
+    public void typePassphrase_fullValidation() {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < TEST_TIME; i++) {
+            final Editable text = new SpannableStringBuilder();
+            final long start = System.nanoTime();
+            for (int j = 0; j < PASSPHRASE_LENGTH; j++) {
+                text.append(ALPHABET.charAt(j % ALPHABET.length()));
+                try (LockscreenCredential credential =
+                        LockscreenCredential.createPassword(text)) {
+                    PasswordMetrics.validateCredential(mMinMetrics, PASSWORD_COMPLEXITY_HIGH,
+                            credential);
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        putResult("full", best);
+    }
+
+    @Test
+    public void typePassphrase_incrementalValidation() {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < TEST_TIME; i++) {
+            final IncrementalPasswordMetrics metrics = new IncrementalPasswordMetrics();
+            final Editable text = new SpannableStringBuilder();
+            text.setSpan(metrics, 0, 0, Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+            final long start = System.nanoTime();
+            for (int j = 0; j < PASSPHRASE_LENGTH; j++) {
+                text.append(ALPHABET.charAt(j % ALPHABET.length()));
+                if (!metrics.hasInvalidChars(text)) {
+                    PasswordMetrics.validatePasswordMetrics(mMinMetrics,
+                            PASSWORD_COMPLEXITY_HIGH, metrics.getMetrics(text, false /* isPin */));
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        putResult("incremental", best);
+    }
+
+    private void putResult(String name, long nanos) {
+        mBundle.putString(String.format("PasswordValidationPerfTest_%s_%s", name, "best_us"),
+                String.valueOf(nanos / 1000));
+        mBundle.putString(String.format("PasswordValidationPerfTest_%s_%s", name, "per_key_us"),
+                String.valueOf(nanos / 1000 / PASSPHRASE_LENGTH));
+    }
+}
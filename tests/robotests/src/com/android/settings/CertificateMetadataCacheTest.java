@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class CertificateMetadataCacheTest {
+
+    private static final byte[] CERT_1 = {1, 2, 3};
+    private static final byte[] CERT_2 = {4, 5, 6};
+
+    private int mParseCount;
+
+    private final CertificateMetadataCache mCache = new CertificateMetadataCache() {
+        @Override
+        Metadata parse(byte[] encodedCertificate, String fingerprint) {
+            mParseCount++;
+            return new Metadata("primary", "secondary", fingerprint);
+        }
+    };
+
+    @Test
+    public void get_sameAliasAndCertificate_parsesOnce() {
+        final CertificateMetadataCache.Metadata first = mCache.get("alias", CERT_1);
+        final CertificateMetadataCache.Metadata second = mCache.get("alias", CERT_1.clone());
+
+        assertThat(second).isSameInstanceAs(first);
+        assertThat(mParseCount).isEqualTo(1);
+    }
+
+    @Test
+    public void get_certificateChangedUnderAlias_parsesAgain() {
+        mCache.get("alias", CERT_1);
+
+        final CertificateMetadataCache.Metadata metadata = mCache.get("alias", CERT_2);
+
+        assertThat(mParseCount).isEqualTo(2);
+        assertThat(metadata.fingerprint).isNotEqualTo(mCache.get("alias", CERT_1).fingerprint);
+    }
+
+    @Test
+    public void get_fingerprint_isSha256Hex() {
+        final CertificateMetadataCache.Metadata metadata = mCache.get("alias", CERT_1);
+
+        assertThat(metadata.fingerprint).matches("[0-9A-F]{64}");
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accessibility;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.accessibilityservice.AccessibilityShortcutInfo;
+import android.content.ComponentName;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageManager;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Set;
+
+/** Test for {@link AccessibilityComponentCache}. */
+@RunWith(RobolectricTestRunner.class)
+public class AccessibilityComponentCacheTest {
+
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final ComponentName COMPONENT_NAME =
+            new ComponentName(PACKAGE_NAME, PACKAGE_NAME + ".test_a11y_activity");
+    private static final String DEFAULT_LABEL = "default label";
+
+    @Rule
+    public final MockitoRule mocks = MockitoJUnit.rule();
+    @Mock
+    private AccessibilityShortcutInfo mShortcutInfo;
+    @Mock
+    private ActivityInfo mActivityInfo;
+    @Mock
+    private PackageManager mPackageManager;
+
+    private final AccessibilityComponentCache mCache = new AccessibilityComponentCache();
+
+    @Before
+    public void setUp() {
+        when(mShortcutInfo.getActivityInfo()).thenReturn(mActivityInfo);
+        when(mShortcutInfo.getComponentName()).thenReturn(COMPONENT_NAME);
+        when(mActivityInfo.loadLabel(any())).thenReturn(DEFAULT_LABEL);
+    }
+
+    @Test
+    public void getLabel_calledTwice_loadsOnce() {
+        mCache.getLabel(mShortcutInfo, mPackageManager);
+        final CharSequence label = mCache.getLabel(mShortcutInfo, mPackageManager);
+
+        assertThat(label.toString()).isEqualTo(DEFAULT_LABEL);
+        verify(mActivityInfo, times(1)).loadLabel(any());
+    }
+
+    @Test
+    public void invalidate_samePackage_loadsAgain() {
+        mCache.getLabel(mShortcutInfo, mPackageManager);
+
+        mCache.invalidate(PACKAGE_NAME);
+        mCache.getLabel(mShortcutInfo, mPackageManager);
+
+        verify(mActivityInfo, times(2)).loadLabel(any());
+    }
+
+    @Test
+    public void invalidate_otherPackage_keepsLabel() {
+        mCache.getLabel(mShortcutInfo, mPackageManager);
+
+        mCache.invalidate("com.android.other");
+        mCache.getLabel(mShortcutInfo, mPackageManager);
+
+        verify(mActivityInfo, times(1)).loadLabel(any());
+    }
+
+    @Test
+    public void preload_shouldCacheLabel() {
+        mCache.preload(List.of(), List.of(mShortcutInfo), Set.of(PACKAGE_NAME), mPackageManager);
+        mCache.getLabel(mShortcutInfo, mPackageManager);
+
+        verify(mActivityInfo, times(1)).loadLabel(any());
+    }
+
+    @Test
+    public void preload_invalidatedWhileLoading_shouldNotCacheLabel() {
+        when(mActivityInfo.loadLabel(any())).thenAnswer(invocation -> {
+            mCache.invalidate(PACKAGE_NAME);
+            return DEFAULT_LABEL;
+        }).thenReturn(DEFAULT_LABEL);
+
+        mCache.preload(List.of(), List.of(mShortcutInfo), Set.of(PACKAGE_NAME), mPackageManager);
+        mCache.getLabel(mShortcutInfo, mPackageManager);
+
+        verify(mActivityInfo, times(2)).loadLabel(any());
+    }
+
+    @Test
+    public void preload_otherPackage_loadsNothing() {
+        mCache.preload(List.of(), List.of(mShortcutInfo), Set.of("com.android.other"),
+                mPackageManager);
+
+        verify(mActivityInfo, never()).loadLabel(any());
+    }
+}
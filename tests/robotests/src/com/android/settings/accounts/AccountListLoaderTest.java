@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accounts;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.accounts.Account;
+import android.accounts.AuthenticatorDescription;
+import android.content.Context;
+import android.os.UserHandle;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settingslib.accounts.AuthenticatorHelper;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AccountListLoaderTest {
+
+    private static final UserHandle USER = UserHandle.of(0);
+
+    @Rule
+    public final MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private AuthenticatorHelper mAuthenticatorHelper;
+
+    private Context mContext;
+    private AccountListLoader mLoader;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mLoader = spy(new AccountListLoader(mContext, null /* authorities */));
+        when(mAuthenticatorHelper.getEnabledAccountTypes())
+                .thenReturn(new String[] {"com.type1", "com.type2"});
+        when(mAuthenticatorHelper.getAccountTypeDescription(any())).thenAnswer(
+                invocation -> new AuthenticatorDescription(invocation.getArgument(0),
+                        "com.android.settings", 1 /* labelId */, 0, 0, 0));
+        doAnswer(invocation -> "com.type1".equals(
+                ((AuthenticatorDescription) invocation.getArgument(0)).type) ? "B" : "A")
+                .when(mLoader).loadLabel(any(), any());
+        doReturn(null).when(mLoader).loadIcon(any(), any());
+        doReturn(1L).when(mLoader).getPackageUpdateTime(anyString(), any());
+        doReturn(new Account[] {new Account("b", "com.type1"), new Account("a", "com.type1")})
+                .when(mLoader).getAccounts("com.type1", USER);
+        doReturn(new Account[] {new Account("c", "com.type2")})
+                .when(mLoader).getAccounts("com.type2", USER);
+    }
+
+    @Test
+    public void load_sortsByLabelThenName() {
+        final AccountListLoader.AccountListDiff diff = load(Collections.emptyList());
+
+        final List<String> names = new ArrayList<>();
+        for (AccountListLoader.AccountEntry entry : diff.accounts) {
+            names.add(entry.account.name);
+        }
+        assertThat(names).containsExactly("c", "a", "b").inOrder();
+        assertThat(diff.removedKeys).isEmpty();
+    }
+
+    @Test
+    public void load_shownAccountGone_reportsItRemoved() {
+        final String goneKey = AccountTypePreference.buildKey(new Account("d", "com.type1"));
+        final String shownKey = AccountTypePreference.buildKey(new Account("a", "com.type1"));
+
+        final AccountListLoader.AccountListDiff diff = load(List.of(goneKey, shownKey));
+
+        assertThat(diff.removedKeys).containsExactly(goneKey);
+    }
+
+    @Test
+    public void load_twice_looksUpTypeOnce() {
+        load(Collections.emptyList());
+        load(Collections.emptyList());
+
+        verify(mLoader, times(1)).loadLabel(typeDescription("com.type1"), USER);
+        verify(mLoader, times(1)).loadIcon(typeDescription("com.type1"), USER);
+    }
+
+    @Test
+    public void load_afterInvalidate_looksUpTypeAgain() {
+        load(Collections.emptyList());
+        mLoader.invalidate(USER.getIdentifier());
+        load(Collections.emptyList());
+
+        verify(mLoader, times(2)).loadLabel(typeDescription("com.type1"), USER);
+    }
+
+    @Test
+    public void load_packageUpdated_looksUpTypeAgain() {
+        load(Collections.emptyList());
+        doReturn(2L).when(mLoader).getPackageUpdateTime(anyString(), any());
+        load(Collections.emptyList());
+
+        verify(mLoader, times(2)).loadLabel(typeDescription("com.type1"), USER);
+    }
+
+    @Test
+    public void load_doesNotUseHelper() {
+        final List<AccountListLoader.AccountTypeSnapshot> types =
+                AccountListLoader.snapshot(mAuthenticatorHelper);
+
+        mLoader.load(types, USER, Collections.emptyList());
+
+        verify(mAuthenticatorHelper, never()).getLabelForType(any(), any());
+        verify(mAuthenticatorHelper, never()).getDrawableForType(any(), any());
+    }
+
+    private AccountListLoader.AccountListDiff load(List<String> shownKeys) {
+        return mLoader.load(AccountListLoader.snapshot(mAuthenticatorHelper), USER, shownKeys);
+    }
+
+    private static AuthenticatorDescription typeDescription(String accountType) {
+        return argThat(description -> description != null
+                && accountType.equals(description.type));
+    }
+}
@@ -101,6 +101,7 @@ public class AccountPreferenceControllerTest {
         when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(new Account[0]);
         mController = new AccountPreferenceController(mContext, mFragment, null, mAccountHelper,
                 ProfileSelectFragment.ProfileType.ALL);
+        mController.setExecutors(Runnable::run, Runnable::run);
     }
 
     @After
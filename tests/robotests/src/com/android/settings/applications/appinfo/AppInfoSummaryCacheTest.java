@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.appinfo;
+
+import static com.android.settings.applications.appinfo.AppInfoSummaryCache.FIELD_NOTIFICATIONS;
+import static com.android.settings.applications.appinfo.AppInfoSummaryCache.FIELD_STORAGE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.applications.appinfo.db.AppInfoSummaryDao;
+import com.android.settings.applications.appinfo.db.AppInfoSummaryEntity;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppInfoSummaryCacheTest {
+
+    private static final String PACKAGE_NAME = "com.example.app";
+    private static final int USER_ID = 0;
+    private static final long NOW = 1_000_000_000L;
+
+    @Rule
+    public final MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private AppInfoSummaryDao mDao;
+
+    private Context mContext;
+    private AppInfoSummaryCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mCache = spy(new AppInfoSummaryCache(mDao, Runnable::run));
+        doReturn(NOW).when(mCache).now();
+    }
+
+    @Test
+    public void putSummary_savesAndReturnsSummary() {
+        mCache.putSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB");
+
+        assertThat(mCache.getSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE).toString())
+                .isEqualTo("12 MB");
+        verify(mDao).insert(any(AppInfoSummaryEntity.class));
+    }
+
+    @Test
+    public void putSummary_sameRecentSummary_savesOnce() {
+        mCache.putSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB");
+        mCache.putSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB");
+
+        verify(mDao, times(1)).insert(any(AppInfoSummaryEntity.class));
+    }
+
+    @Test
+    public void getSummary_expired_returnsNull() {
+        mCache.putSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB");
+
+        doReturn(NOW + AppInfoSummaryCache.getMaxAgeMillis(FIELD_STORAGE)).when(mCache).now();
+
+        assertThat(mCache.getSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE)).isNull();
+    }
+
+    @Test
+    public void prefetch_loadsSavedSummariesOfCurrentLocale() {
+        final String locale = Locale.getDefault().toLanguageTag();
+        when(mDao.getAll(PACKAGE_NAME, USER_ID)).thenReturn(List.of(
+                new AppInfoSummaryEntity(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB", locale,
+                        NOW),
+                new AppInfoSummaryEntity(PACKAGE_NAME, USER_ID, FIELD_NOTIFICATIONS, "Aus",
+                        "de-DE", NOW)));
+
+        mCache.prefetch(PACKAGE_NAME, USER_ID);
+
+        assertThat(mCache.getSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE).toString())
+                .isEqualTo("12 MB");
+        assertThat(mCache.getSummary(PACKAGE_NAME, USER_ID, FIELD_NOTIFICATIONS)).isNull();
+    }
+
+    @Test
+    public void prefetch_alreadyInMemory_doesNotQuery() {
+        mCache.putSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB");
+
+        mCache.prefetch(PACKAGE_NAME, USER_ID);
+
+        verify(mDao, never()).getAll(PACKAGE_NAME, USER_ID);
+    }
+
+    @Test
+    public void onReceive_packageChanged_dropsSummaries() {
+        mCache.putSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB");
+
+        mCache.mReceiver.onReceive(mContext, new Intent(Intent.ACTION_PACKAGE_REPLACED,
+                Uri.fromParts("package", PACKAGE_NAME, null /* fragment */)));
+
+        assertThat(mCache.getSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE)).isNull();
+        verify(mDao).delete(PACKAGE_NAME);
+    }
+
+    @Test
+    public void onReceive_localeChanged_dropsEverything() {
+        mCache.putSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE, "12 MB");
+
+        mCache.mReceiver.onReceive(mContext, new Intent(Intent.ACTION_LOCALE_CHANGED));
+
+        assertThat(mCache.getSummary(PACKAGE_NAME, USER_ID, FIELD_STORAGE)).isNull();
+        verify(mDao).clearAll();
+    }
+}
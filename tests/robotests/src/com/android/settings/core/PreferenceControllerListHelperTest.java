@@ -68,6 +68,49 @@ public class PreferenceControllerListHelperTest {
         assertThat(controllers.get(0)).isInstanceOf(FakePreferenceController.class);
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getHandles_shouldNotInstantiateControllers() {
+        final List<PreferenceControllerHandle> handles =
+                PreferenceControllerListHelper.getPreferenceControllerHandlesFromXml(mContext,
+                        R.xml.location_settings);
+
+        assertThat(handles).hasSize(1);
+        assertThat(handles.get(0).getControllerName())
+                .isEqualTo(FakePreferenceController.class.getName());
+        assertThat(handles.get(0).getPreferenceKey()).isEqualTo("key");
+        assertThat(handles.get(0).hasKnownPreferenceKey()).isTrue();
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getFilteredControllers_hasDuplicationFromFilter_shouldReturnEmpty() {
+        final List<AbstractPreferenceController> filter = new ArrayList<>();
+        filter.add(new BasePreferenceController(mContext, "key") {
+            @Override
+            public int getAvailabilityStatus() {
+                return AVAILABLE;
+            }
+        });
+
+        final List<BasePreferenceController> controllers =
+                PreferenceControllerListHelper.getFilteredPreferenceControllersFromXml(mContext,
+                        R.xml.location_settings, filter);
+
+        assertThat(controllers).isEmpty();
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void getFilteredControllers_noFilter_shouldReturnAll() {
+        final List<BasePreferenceController> controllers =
+                PreferenceControllerListHelper.getFilteredPreferenceControllersFromXml(mContext,
+                        R.xml.location_settings, null /* filter */);
+
+        assertThat(controllers).hasSize(1);
+        assertThat(controllers.get(0)).isInstanceOf(FakePreferenceController.class);
+    }
+
     @Test
     public void filterControllers_noFilter_shouldReturnSameList() {
         final List<BasePreferenceController> controllers = new ArrayList<>();
@@ -103,6 +146,25 @@ public class PreferenceControllerListHelperTest {
         assertThat(result).containsExactlyElementsIn(controllers);
     }
 
+    @Test
+    public void materialize_contextConstructorThrows_usesKeyedConstructor() {
+        final PreferenceControllerHandle handle = new PreferenceControllerHandle(
+                FallbackPreferenceController.class.getName(), "key", false /* isForWork */);
+
+        final BasePreferenceController controller = handle.materialize(mContext);
+
+        assertThat(controller).isInstanceOf(FallbackPreferenceController.class);
+        assertThat(controller.getPreferenceKey()).isEqualTo("key");
+    }
+
+    @Test
+    public void hasKnownPreferenceKey_controllerOverridesKey_shouldReturnFalse() {
+        final PreferenceControllerHandle handle = new PreferenceControllerHandle(
+                OwnKeyPreferenceController.class.getName(), "key", false /* isForWork */);
+
+        assertThat(handle.hasKnownPreferenceKey()).isFalse();
+    }
+
     @Test
     public void filterControllers_hasDuplicationFromFilter_shouldReturnSameList() {
         final List<BasePreferenceController> controllers = new ArrayList<>();
@@ -123,4 +185,36 @@ public class PreferenceControllerListHelperTest {
                 .filterControllers(controllers, filter);
         assertThat(result).isEmpty();
     }
+
+    public static class FallbackPreferenceController extends BasePreferenceController {
+        public FallbackPreferenceController(Context context) {
+            super(context, "key");
+            throw new IllegalStateException("needs the key from xml");
+        }
+
+        public FallbackPreferenceController(Context context, String key) {
+            super(context, key);
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return AVAILABLE;
+        }
+    }
+
+    public static class OwnKeyPreferenceController extends BasePreferenceController {
+        public OwnKeyPreferenceController(Context context, String key) {
+            super(context, key);
+        }
+
+        @Override
+        public String getPreferenceKey() {
+            return "own_key";
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return AVAILABLE;
+        }
+    }
 }
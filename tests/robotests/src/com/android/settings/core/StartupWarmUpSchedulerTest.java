@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupWarmUpSchedulerTest {
+
+    private final List<String> mRunOrder = new ArrayList<>();
+    private final List<Runnable> mQueued = new ArrayList<>();
+    private final Executor mExecutor = mQueued::add;
+    private StartupWarmUpScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mScheduler = new StartupWarmUpScheduler(mExecutor);
+    }
+
+    @Test
+    public void dispatch_shouldRunDependenciesFirst() {
+        mScheduler.addTask("b", StartupWarmUpScheduler.PRIORITY_HIGH, record("b"), "a")
+                .addTask("a", StartupWarmUpScheduler.PRIORITY_LOW, record("a"));
+
+        mScheduler.dispatch();
+        runQueued();
+
+        assertThat(mRunOrder).containsExactly("a", "b").inOrder();
+        assertThat(mScheduler.getTimingsMillis()).containsKey("b");
+    }
+
+    @Test
+    public void dispatch_shouldStartHigherPriorityFirst() {
+        mScheduler.addTask("low", StartupWarmUpScheduler.PRIORITY_LOW, record("low"))
+                .addTask("high", StartupWarmUpScheduler.PRIORITY_HIGH, record("high"));
+
+        mScheduler.dispatch();
+        runQueued();
+
+        assertThat(mRunOrder).containsExactly("high", "low").inOrder();
+    }
+
+    @Test
+    public void cancel_shouldSkipPendingTasks() {
+        mScheduler.addTask("a", StartupWarmUpScheduler.PRIORITY_NORMAL, record("a"))
+                .addTask("b", StartupWarmUpScheduler.PRIORITY_NORMAL, record("b"), "a");
+
+        mScheduler.dispatch();
+        mScheduler.cancel();
+        runQueued();
+
+        assertThat(mRunOrder).containsExactly("a");
+        assertThat(mScheduler.getTimingsMillis()).doesNotContainKey("b");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addTask_afterStart_shouldThrow() {
+        mScheduler.start();
+
+        mScheduler.addTask("a", StartupWarmUpScheduler.PRIORITY_NORMAL, record("a"));
+    }
+
+    private Runnable record(String name) {
+        return () -> mRunOrder.add(name);
+    }
+
+    private void runQueued() {
+        while (!mQueued.isEmpty()) {
+            mQueued.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.settingslib.core.instrumentation.LogWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class BatchedLogWriterTest {
+
+    @Mock
+    private LogWriter mDelegate;
+
+    private BatchedLogWriter mWriter;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mWriter = new BatchedLogWriter(mDelegate, new Handler(Looper.getMainLooper()));
+    }
+
+    @Test
+    public void clicked_shouldNotWriteOnCallerThread() {
+        mWriter.clicked(1, "key");
+
+        verify(mDelegate, never()).clicked(anyInt(), anyString());
+        assertThat(mWriter.getPendingEventCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void clicked_afterFlushDelay_shouldWriteInOrder() {
+        mWriter.clicked(1, "key1");
+        mWriter.changed(2, "key2", 3);
+
+        ShadowLooper.idleMainLooper(BatchedLogWriter.FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+
+        final InOrder inOrder = inOrder(mDelegate);
+        inOrder.verify(mDelegate).clicked(1, "key1");
+        inOrder.verify(mDelegate).changed(2, "key2", 3);
+        assertThat(mWriter.getPendingEventCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void action_reachBatchSize_shouldFlushWithoutDelay() {
+        for (int i = 0; i < BatchedLogWriter.FLUSH_BATCH_SIZE; i++) {
+            mWriter.action(0, 1, 2, "key", i);
+        }
+
+        ShadowLooper.idleMainLooper();
+
+        verify(mDelegate, times(BatchedLogWriter.FLUSH_BATCH_SIZE))
+                .action(anyInt(), anyInt(), anyInt(), anyString(), anyInt());
+    }
+
+    @Test
+    public void action_bufferFull_shouldDropAndCountEvents() {
+        for (int i = 0; i < BatchedLogWriter.BUFFER_CAPACITY + 5; i++) {
+            mWriter.action(0, 1, 2, "key", i);
+        }
+
+        assertThat(mWriter.getDroppedEventCount()).isEqualTo(5);
+
+        mWriter.flush();
+
+        verify(mDelegate, times(BatchedLogWriter.BUFFER_CAPACITY))
+                .action(anyInt(), anyInt(), anyInt(), anyString(), anyInt());
+    }
+
+    @Test
+    public void getEventTimeMillis_duringFlush_shouldReturnEnqueueTime() {
+        final long[] eventTime = new long[1];
+        final LogWriter recorder = new StatsLogWriter() {
+            @Override
+            public void clicked(int sourceCategory, String key) {
+                eventTime[0] = BatchedLogWriter.getEventTimeMillis();
+            }
+        };
+        final BatchedLogWriter writer =
+                new BatchedLogWriter(recorder, new Handler(Looper.getMainLooper()));
+        final long before = System.currentTimeMillis();
+
+        writer.clicked(1, "key");
+        ShadowLooper.idleMainLooper(BatchedLogWriter.FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+
+        assertThat(eventTime[0]).isAtLeast(before);
+        assertThat(eventTime[0]).isAtMost(before + BatchedLogWriter.FLUSH_DELAY_MS);
+    }
+}
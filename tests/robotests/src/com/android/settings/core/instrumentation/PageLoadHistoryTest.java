@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class PageLoadHistoryTest {
+
+    private static final String SCREEN = "TestScreen";
+    private static final String PHASE = "XML_INFLATION";
+    private static final long ONE_MS = 1_000_000L;
+
+    private PageLoadHistory mHistory;
+
+    @Before
+    public void setUp() {
+        mHistory = new PageLoadHistory();
+    }
+
+    @Test
+    public void getPercentileMillis_noSamples_returnMinusOne() {
+        assertThat(mHistory.getPercentileMillis(SCREEN, PHASE, 50)).isEqualTo(-1);
+    }
+
+    @Test
+    public void getPercentileMillis_shouldReturnNearestRank() {
+        for (int i = 1; i <= 10; i++) {
+            mHistory.record(SCREEN, PHASE, i * ONE_MS);
+        }
+
+        assertThat(mHistory.getPercentileMillis(SCREEN, PHASE, 50)).isEqualTo(5);
+        assertThat(mHistory.getPercentileMillis(SCREEN, PHASE, 90)).isEqualTo(9);
+        assertThat(mHistory.getPercentileMillis(SCREEN, PHASE, 100)).isEqualTo(10);
+    }
+
+    @Test
+    public void record_moreThanWindow_shouldDropOldestSamples() {
+        mHistory.record(SCREEN, PHASE, 1000 * ONE_MS);
+        for (int i = 0; i < PageLoadHistory.WINDOW_SIZE; i++) {
+            mHistory.record(SCREEN, PHASE, ONE_MS);
+        }
+
+        assertThat(mHistory.getPercentileMillis(SCREEN, PHASE, 100)).isEqualTo(1);
+    }
+
+    @Test
+    public void toJson_shouldGroupByScreen() throws Exception {
+        mHistory.record(SCREEN, PHASE, ONE_MS);
+
+        final JSONObject samples = mHistory.toJson().getJSONObject(SCREEN).getJSONObject(PHASE);
+
+        assertThat(samples.getInt("count")).isEqualTo(1);
+        assertThat(samples.getDouble("p50")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core.instrumentation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settings.core.BasePreferenceController;
+import com.android.settings.core.instrumentation.PageLoadTracer.Phase;
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+public class PageLoadTracerTest {
+
+    private static final String SCREEN = "com.android.settings.TestScreen";
+
+    private Context mContext;
+    private PageLoadHistory mHistory;
+    private PageLoadTracer mTracer;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mHistory = new PageLoadHistory();
+        mTracer = new PageLoadTracer(SCREEN, mHistory);
+    }
+
+    @Test
+    public void endController_shouldRecordUnderClassName() {
+        final AbstractPreferenceController controller = new TestController(mContext);
+
+        final long token = mTracer.beginController(controller);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(5));
+        mTracer.endController(controller, token);
+
+        assertThat(mHistory.getPercentileMillis(SCREEN, TestController.class.getName(), 50))
+                .isEqualTo(5);
+    }
+
+    @Test
+    public void endController_anonymousController_shouldRecordUnderDistinctName() {
+        final AbstractPreferenceController controller = new TestController(mContext) {};
+
+        mTracer.endController(controller, mTracer.beginController(controller));
+
+        final String name = controller.getClass().getName();
+        assertThat(name).isNotEmpty();
+        assertThat(mHistory.getPercentileMillis(SCREEN, name, 50)).isAtLeast(0);
+        assertThat(mHistory.getPercentileMillis(SCREEN, TestController.class.getName(), 50))
+                .isEqualTo(-1);
+    }
+
+    @Test
+    public void endController_nested_shouldPairWithItsOwnBegin() {
+        final AbstractPreferenceController outer = new TestController(mContext);
+        final AbstractPreferenceController inner = new TestController(mContext) {};
+
+        final long outerToken = mTracer.beginController(outer);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(2));
+        final long innerToken = mTracer.beginController(inner);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(3));
+        mTracer.endController(inner, innerToken);
+        mTracer.endController(outer, outerToken);
+
+        assertThat(mHistory.getPercentileMillis(SCREEN, inner.getClass().getName(), 50))
+                .isEqualTo(3);
+        assertThat(mHistory.getPercentileMillis(SCREEN, outer.getClass().getName(), 50))
+                .isEqualTo(5);
+    }
+
+    @Test
+    public void endController_afterFinish_shouldNotRecord() {
+        final AbstractPreferenceController controller = new TestController(mContext);
+
+        final long token = mTracer.beginController(controller);
+        mTracer.finish();
+        mTracer.endController(controller, token);
+
+        assertThat(mHistory.getPercentileMillis(SCREEN, TestController.class.getName(), 50))
+                .isEqualTo(-1);
+    }
+
+    @Test
+    public void beginController_afterFinish_shouldReturnNoToken() {
+        final AbstractPreferenceController controller = new TestController(mContext);
+        mTracer.finish();
+
+        final long token = mTracer.beginController(controller);
+        mTracer.endController(controller, token);
+
+        assertThat(token).isEqualTo(0L);
+        assertThat(mHistory.getPercentileMillis(SCREEN, TestController.class.getName(), 50))
+                .isEqualTo(-1);
+    }
+
+    @Test
+    public void finish_shouldRecordPhaseDurations() {
+        mTracer.beginPhase(Phase.XML_INFLATION);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(4));
+        mTracer.endPhase(Phase.XML_INFLATION);
+        mTracer.finish();
+
+        assertThat(mHistory.getPercentileMillis(SCREEN, Phase.XML_INFLATION.name(), 50))
+                .isEqualTo(4);
+        assertThat(mHistory.getPercentileMillis(SCREEN, Phase.TILE_BINDING.name(), 50))
+                .isEqualTo(0);
+        assertThat(mTracer.isTracing()).isFalse();
+    }
+
+    @Test
+    public void endPhase_withoutBegin_shouldNotRecord() {
+        mTracer.endPhase(Phase.TILE_BINDING);
+        mTracer.finish();
+
+        assertThat(mHistory.getPercentileMillis(SCREEN, Phase.TILE_BINDING.name(), 50))
+                .isEqualTo(0);
+    }
+
+    private static class TestController extends BasePreferenceController {
+        TestController(Context context) {
+            super(context, "key");
+        }
+
+        @Override
+        public int getAvailabilityStatus() {
+            return AVAILABLE;
+        }
+    }
+}
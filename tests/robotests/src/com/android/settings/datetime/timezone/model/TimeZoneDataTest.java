@@ -35,6 +35,8 @@ import org.robolectric.RobolectricTestRunner;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
 
 @RunWith(RobolectricTestRunner.class)
 public class TimeZoneDataTest {
@@ -68,6 +70,24 @@ public class TimeZoneDataTest {
         assertThat(timeZoneData.getRegionIds()).containsExactly("US", "GB");
     }
 
+    @Test
+    public void getRegionIndex_sortsByDisplayNameAndKeepsIndexOfLocale() {
+        when(mCountryZonesFinder.lookupAllCountryIsoCodes())
+                .thenReturn(Arrays.asList("US", "DE", "GB"));
+        TimeZoneData timeZoneData = new TimeZoneData(mCountryZonesFinder);
+
+        RegionIndex regionIndex = timeZoneData.getRegionIndex(Locale.US);
+
+        List<String> regionIds = new ArrayList<>();
+        for (RegionIndex.Region region : regionIndex.getRegions()) {
+            regionIds.add(region.getRegionId());
+        }
+        assertThat(regionIds).containsExactly("DE", "GB", "US").inOrder();
+        assertThat(regionIndex.getRegions().get(0).getName()).isEqualTo("Germany");
+        assertThat(timeZoneData.getRegionIndex(Locale.US)).isSameInstanceAs(regionIndex);
+        assertThat(timeZoneData.getRegionIndex(Locale.GERMANY)).isNotSameInstanceAs(regionIndex);
+    }
+
     @Test
     public void testLookupCountryCodesForZoneId() {
         TimeZoneData timeZoneData = new TimeZoneData(mCountryZonesFinder);
@@ -17,8 +17,10 @@ package com.android.settings.fuelgauge.batteryusage;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
@@ -81,4 +83,18 @@ public class BatteryUsageStatsLoaderTest {
         assertThat(queryFlags & BatteryUsageStatsQuery.FLAG_BATTERY_USAGE_STATS_INCLUDE_HISTORY)
                 .isNotEqualTo(0);
     }
+
+    @Test
+    public void onDiscardResult_afterCanceled_releasesOnce() throws Exception {
+        BatteryUsageStatsLoader loader =
+                new BatteryUsageStatsLoader(mContext, /* includeBatteryHistory */ true);
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenReturn(mBatteryUsageStats);
+        final BatteryUsageStats stats = loader.loadInBackground();
+
+        loader.onCanceled(stats);
+        loader.onDiscardResult(stats);
+
+        verify(mBatteryUsageStats).close();
+    }
 }
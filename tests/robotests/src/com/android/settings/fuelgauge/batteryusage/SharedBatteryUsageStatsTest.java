@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+public class SharedBatteryUsageStatsTest {
+    private Context mContext;
+    @Mock private BatteryStatsManager mBatteryStatsManager;
+    @Mock private BatteryUsageStats mBatteryUsageStats;
+    @Mock private BatteryUsageStats mNewBatteryUsageStats;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mContext).when(mContext).getApplicationContext();
+        doReturn(mBatteryStatsManager)
+                .when(mContext)
+                .getSystemService(Context.BATTERY_STATS_SERVICE);
+        when(mBatteryStatsManager.getBatteryUsageStats(any(BatteryUsageStatsQuery.class)))
+                .thenReturn(mBatteryUsageStats, mNewBatteryUsageStats);
+    }
+
+    @Test
+    public void acquire_recentStats_sharesThem() throws Exception {
+        final BatteryUsageStats stats = SharedBatteryUsageStats.acquire(mContext, false);
+        SharedBatteryUsageStats.release(stats);
+
+        assertThat(SharedBatteryUsageStats.acquire(mContext, false)).isSameInstanceAs(stats);
+        verify(mBatteryStatsManager).getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+        verify(mBatteryUsageStats, never()).close();
+    }
+
+    @Test
+    public void acquire_withHistory_doesNotShareStatsWithoutHistory() {
+        SharedBatteryUsageStats.acquire(mContext, false);
+
+        assertThat(SharedBatteryUsageStats.acquire(mContext, true))
+                .isSameInstanceAs(mNewBatteryUsageStats);
+        verify(mBatteryStatsManager, times(2))
+                .getBatteryUsageStats(any(BatteryUsageStatsQuery.class));
+    }
+
+    @Test
+    public void acquire_withHistory_neverSharesThem() throws Exception {
+        final BatteryUsageStats stats = SharedBatteryUsageStats.acquire(mContext, true);
+
+        assertThat(SharedBatteryUsageStats.acquire(mContext, true))
+                .isSameInstanceAs(mNewBatteryUsageStats);
+        SharedBatteryUsageStats.release(stats);
+        verify(mBatteryUsageStats).close();
+    }
+
+    @Test
+    public void acquire_oldStats_closesThemOnceReleased() throws Exception {
+        final BatteryUsageStats stats = SharedBatteryUsageStats.acquire(mContext, false);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(SharedBatteryUsageStats.MAX_AGE_MILLIS));
+
+        assertThat(SharedBatteryUsageStats.acquire(mContext, false))
+                .isSameInstanceAs(mNewBatteryUsageStats);
+        verify(mBatteryUsageStats, never()).close();
+
+        SharedBatteryUsageStats.release(stats);
+        verify(mBatteryUsageStats).close();
+    }
+}
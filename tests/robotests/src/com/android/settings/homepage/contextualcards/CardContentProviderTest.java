@@ -110,6 +110,51 @@ public class CardContentProviderTest {
         assertThat(queryDismissedTimestamp()).isEqualTo(0L);
     }
 
+    @Test
+    public void bulkInsert_sameCards_writesNothing() {
+        mProvider.bulkInsert(mUri, generateTwoRows());
+
+        assertThat(mProvider.bulkInsert(mUri, generateTwoRows())).isEqualTo(0);
+        assertThat(getProviderRowCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void bulkInsert_oneCardChanged_writesOnlyThatCard() {
+        mProvider.bulkInsert(mUri, generateTwoRows());
+        final ContentValues[] rows = generateTwoRows();
+        rows[0].put(CardDatabaseHelper.CardColumns.SCORE, 0.5);
+
+        assertThat(mProvider.bulkInsert(mUri, rows)).isEqualTo(1);
+    }
+
+    @Test
+    public void bulkInsert_cardMissing_deletesIt() {
+        mProvider.bulkInsert(mUri, generateTwoRows());
+
+        mProvider.bulkInsert(mUri, new ContentValues[]{generateOneRow()});
+
+        assertThat(getProviderRowCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void buildUpsertSql_keepDismissalTimestamp_keepsExistingTimestamp() {
+        final String sql = CardContentProvider.buildUpsertSql(CardDatabaseHelper.CARD_TABLE,
+                new String[]{CardDatabaseHelper.CardColumns.NAME},
+                true /* keepDismissalTimestamp */);
+
+        assertThat(sql).contains("dismissed_timestamp = COALESCE("
+                + "cards.dismissed_timestamp, excluded.dismissed_timestamp)");
+    }
+
+    @Test
+    public void buildUpsertSql_notKeepDismissalTimestamp_takesNewTimestamp() {
+        final String sql = CardContentProvider.buildUpsertSql(CardDatabaseHelper.CARD_TABLE,
+                new String[]{CardDatabaseHelper.CardColumns.NAME},
+                false /* keepDismissalTimestamp */);
+
+        assertThat(sql).contains("dismissed_timestamp = excluded.dismissed_timestamp");
+    }
+
     @Test
     @Ignore
     public void cardData_query() {
@@ -255,6 +300,12 @@ public class CardContentProviderTest {
         return count;
     }
 
+    private int getProviderRowCount() {
+        try (Cursor cr = mProvider.query(mUri, null, null, null, null)) {
+            return cr.getCount();
+        }
+    }
+
     private long queryDismissedTimestamp() {
         final String[] columns = {CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP};
         final String selection = CardDatabaseHelper.CardColumns.NAME + "=?";
@@ -21,7 +21,7 @@ import static com.google.common.truth.Truth.assertThat;
 import android.content.ContentProvider;
 import android.content.ContentValues;
 import android.database.Cursor;
-import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.provider.UserDictionary;
 
@@ -33,10 +33,13 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.shadows.ShadowContentResolver;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @RunWith(RobolectricTestRunner.class)
 public class UserDictionaryCursorLoaderTest {
 
-    private ContentProvider mContentProvider;
+    private FakeProvider mContentProvider;
     private UserDictionaryCursorLoader mLoader;
 
     @Before
@@ -54,8 +57,87 @@ public class UserDictionaryCursorLoaderTest {
         assertThat(cursor.getCount()).isEqualTo(4);
     }
 
+    @Test
+    public void testLoad_shouldIterateDistinctRows() {
+        final Cursor cursor = mLoader.loadInBackground();
+
+        final List<Integer> ids = new ArrayList<>();
+        for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+            ids.add(cursor.getInt(0));
+        }
+        assertThat(ids).containsExactly(1, 2, 3, 5).inOrder();
+    }
+
+    @Test
+    public void testLoad_sameWordDifferentCase_shouldKeepBoth() {
+        mContentProvider.addRow(6, "Word5", null);
+
+        final Cursor cursor = mLoader.loadInBackground();
+
+        assertThat(cursor.getCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testLoad_emptyAndMissingShortcut_shouldKeepBoth() {
+        mContentProvider.addRow(6, "word5", "");
+
+        final Cursor cursor = mLoader.loadInBackground();
+
+        assertThat(cursor.getCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void testLoad_shouldNotQueryProviderTable() {
+        mLoader.loadInBackground();
+
+        assertThat(mContentProvider.mSelection).doesNotContain("words");
+    }
+
+    @Test
+    public void testLoad_withPrefix_shouldOnlyLoadMatchingWords() {
+        mLoader = new UserDictionaryCursorLoader(RuntimeEnvironment.application, "" /* locale */,
+                "WORD3");
+
+        final Cursor cursor = mLoader.loadInBackground();
+
+        assertThat(cursor.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLoad_withPrefix_shouldQueryEscapedPrefix() {
+        mLoader = new UserDictionaryCursorLoader(RuntimeEnvironment.application, "" /* locale */,
+                "50%_");
+
+        mLoader.loadInBackground();
+
+        assertThat(mContentProvider.mSelectionArgs).asList().containsExactly("50\\%\\_%");
+    }
+
     public static class FakeProvider extends ContentProvider {
 
+        // Runs the queries on a table shaped like the one of the provider.
+        private final SQLiteDatabase mDatabase = SQLiteDatabase.create(null /* factory */);
+        String mSelection;
+        String[] mSelectionArgs;
+
+        FakeProvider() {
+            mDatabase.execSQL("CREATE TABLE words (_id INTEGER PRIMARY KEY, word TEXT,"
+                    + " shortcut TEXT, locale TEXT)");
+            addRow(1, "word1", "shortcut1");
+            addRow(2, "word2", "shortcut2");
+            addRow(3, "word3", "shortcut3");
+            addRow(4, "word3", "shortcut3");    // dupe of 3
+            addRow(5, "word5", null);           // no shortcut
+        }
+
+        void addRow(int id, String word, String shortcut) {
+            final ContentValues values = new ContentValues();
+            values.put(UserDictionary.Words._ID, id);
+            values.put(UserDictionary.Words.WORD, word);
+            values.put(UserDictionary.Words.SHORTCUT, shortcut);
+            mDatabase.insert("words", null /* nullColumnHack */, values);
+        }
+
         @Override
         public boolean onCreate() {
             return false;
@@ -64,14 +146,10 @@ public class UserDictionaryCursorLoaderTest {
         @Override
         public Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs,
                 String sortOrder) {
-            final MatrixCursor cursor = new MatrixCursor(
-                    UserDictionaryCursorLoader.QUERY_PROJECTION);
-            cursor.addRow(new Object[]{1, "word1", "shortcut1"});
-            cursor.addRow(new Object[]{2, "word2", "shortcut2"});
-            cursor.addRow(new Object[]{3, "word3", "shortcut3"});
-            cursor.addRow(new Object[]{4, "word3", "shortcut3"});   // dupe of 3
-            cursor.addRow(new Object[]{5, "word5", null});          // no shortcut
-            return cursor;
+            mSelection = selection;
+            mSelectionArgs = selectionArgs;
+            return mDatabase.query("words", projection, selection, selectionArgs,
+                    null /* groupBy */, null /* having */, sortOrder);
         }
 
         @Override
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Process;
+import android.os.UserHandle;
+
+import com.android.settingslib.location.InjectedSetting;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class InjectedLocationSettingsRegistryTest {
+
+    private static final String PACKAGE_A = "com.android.a";
+    private static final String PACKAGE_B = "com.android.b";
+    private static final String PACKAGE_C = "com.android.c";
+    private static final UserHandle USER = UserHandle.of(0);
+    private static final UserHandle OTHER_USER = UserHandle.of(10);
+
+    private final List<String> mInjectingPackages = new ArrayList<>(
+            List.of(PACKAGE_A, PACKAGE_B));
+    private final List<UserHandle> mLoadedUsers = new ArrayList<>();
+
+    private final InjectedLocationSettingsRegistry mRegistry =
+            new InjectedLocationSettingsRegistry(RuntimeEnvironment.application) {
+                @Override
+                List<InjectedSetting> loadSettings(UserHandle userHandle) {
+                    mLoadedUsers.add(userHandle);
+                    final List<InjectedSetting> settings = new ArrayList<>();
+                    for (String packageName : mInjectingPackages) {
+                        settings.add(new InjectedSetting.Builder()
+                                .setPackageName(packageName)
+                                .setClassName(packageName + ".InjectorService")
+                                .setTitle("title")
+                                .setSettingsActivity("activity")
+                                .setUserHandle(userHandle)
+                                .build());
+                    }
+                    return settings;
+                }
+
+                @Override
+                boolean injectsSettings(String packageName, UserHandle userHandle) {
+                    return mInjectingPackages.contains(packageName);
+                }
+            };
+
+    @Test
+    public void getSettings_calledTwice_loadsOnce() {
+        mRegistry.getSettings(USER);
+        final List<InjectedSetting> settings = mRegistry.getSettings(USER);
+
+        assertThat(settings).hasSize(2);
+        assertThat(mLoadedUsers).containsExactly(USER);
+    }
+
+    @Test
+    public void injectingPackageChanged_onlyLoadsItsUserAgain() {
+        mRegistry.getSettings(USER);
+        mRegistry.getSettings(OTHER_USER);
+        mLoadedUsers.clear();
+
+        mRegistry.mReceiver.onReceive(RuntimeEnvironment.application,
+                packageIntent(Intent.ACTION_PACKAGE_CHANGED, PACKAGE_B, USER));
+        mRegistry.getSettings(USER);
+        mRegistry.getSettings(OTHER_USER);
+
+        assertThat(mLoadedUsers).containsExactly(USER);
+    }
+
+    @Test
+    public void otherPackageChanged_doesNotLoadAgain() {
+        mRegistry.getSettings(USER);
+        mLoadedUsers.clear();
+
+        mRegistry.mReceiver.onReceive(RuntimeEnvironment.application,
+                packageIntent(Intent.ACTION_PACKAGE_REPLACED, PACKAGE_C, USER));
+        mRegistry.getSettings(USER);
+
+        assertThat(mLoadedUsers).isEmpty();
+    }
+
+    @Test
+    public void packageStartedInjecting_loadsAgain() {
+        mRegistry.getSettings(USER);
+
+        mInjectingPackages.add(PACKAGE_C);
+        mRegistry.mReceiver.onReceive(RuntimeEnvironment.application,
+                packageIntent(Intent.ACTION_PACKAGE_ADDED, PACKAGE_C, USER));
+
+        assertThat(mRegistry.getSettings(USER)).hasSize(3);
+    }
+
+    @Test
+    public void localeChanged_loadsEverythingAgain() {
+        mRegistry.getSettings(USER);
+        mLoadedUsers.clear();
+
+        mRegistry.mReceiver.onReceive(RuntimeEnvironment.application,
+                new Intent(Intent.ACTION_LOCALE_CHANGED));
+        mRegistry.getSettings(USER);
+
+        assertThat(mLoadedUsers).containsExactly(USER);
+    }
+
+    @Test
+    public void prefetch_loaded_runsRightAway() {
+        mRegistry.getSettings(USER);
+        final boolean[] prefetched = new boolean[1];
+
+        mRegistry.prefetch(List.of(USER), () -> prefetched[0] = true);
+
+        assertThat(prefetched[0]).isTrue();
+    }
+
+    private static Intent packageIntent(String action, String packageName,
+            UserHandle userHandle) {
+        return new Intent(action, Uri.fromParts("package", packageName, null /* fragment */))
+                .putExtra(Intent.EXTRA_UID,
+                        userHandle.getUid(Process.FIRST_APPLICATION_UID));
+    }
+}
@@ -20,7 +20,10 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,6 +53,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -99,6 +103,10 @@ public class LocationInjectedServicesPreferenceControllerTest {
         when(mCategoryPrimary.getKey()).thenReturn(key);
         when(mContext.getSystemService(Context.DEVICE_POLICY_SERVICE))
                 .thenReturn(mDevicePolicyManager);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(mSettingsInjector).prefetch(any(Runnable.class));
     }
 
     @Test
@@ -163,6 +171,18 @@ public class LocationInjectedServicesPreferenceControllerTest {
                 any(Context.class), eq(UserHandle.USER_CURRENT));
     }
 
+    @Test
+    public void displayPreference_prefetchedAfterDestroy_shouldNotInjectSettings() {
+        final ArgumentCaptor<Runnable> onPrefetched = ArgumentCaptor.forClass(Runnable.class);
+        doNothing().when(mSettingsInjector).prefetch(onPrefetched.capture());
+
+        mController.displayPreference(mScreen);
+        mController.onDestroy();
+        onPrefetched.getValue().run();
+
+        verify(mSettingsInjector, never()).getInjectedSettings(any(Context.class), anyInt());
+    }
+
     @Test
     public void onLocationModeChanged_shouldRequestReloadInjectedSettigns() {
         mController.onLocationModeChanged(Settings.Secure.LOCATION_MODE_BATTERY_SAVING, false);
@@ -76,7 +76,8 @@ public class RecentLocationAccessPreferenceControllerTest {
         mContext = spy(RuntimeEnvironment.application);
         mController = spy(
                 new RecentLocationAccessPreferenceController(mContext, PREFERENCE_KEY,
-                        mRecentLocationApps));
+                        new RecentLocationAccessRepository(mRecentLocationApps, Runnable::run,
+                                Runnable::run)));
         mController.init(mDashboardFragment);
         final String key = mController.getPreferenceKey();
         mAppEntitiesHeaderView = LayoutInflater.from(mContext).inflate(
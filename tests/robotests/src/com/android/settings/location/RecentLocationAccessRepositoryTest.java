@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.os.UserHandle;
+
+import com.android.settingslib.applications.RecentAppOpsAccess;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class RecentLocationAccessRepositoryTest {
+
+    private static final RecentAppOpsAccess.Access ACCESS =
+            new RecentAppOpsAccess.Access("app", UserHandle.CURRENT, null, "app", "", 0);
+    private static final RecentAppOpsAccess.Access NEW_ACCESS =
+            new RecentAppOpsAccess.Access("app", UserHandle.CURRENT, null, "app", "", 1);
+
+    @Mock
+    private RecentAppOpsAccess mRecentAppOpsAccess;
+    @Mock
+    private RecentLocationAccessRepository.Callback mCallback;
+
+    private long mNow;
+    private final List<Runnable> mBackgroundTasks = new ArrayList<>();
+    private RecentLocationAccessRepository mRepository;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mRecentAppOpsAccess.getAppListSorted(false))
+                .thenReturn(List.of(ACCESS), List.of(NEW_ACCESS));
+        when(mRecentAppOpsAccess.getAppListSorted(true)).thenReturn(List.of());
+        mRepository = new RecentLocationAccessRepository(mRecentAppOpsAccess,
+                mBackgroundTasks::add, Runnable::run) {
+            @Override
+            long now() {
+                return mNow;
+            }
+        };
+    }
+
+    @Test
+    public void getAppListSorted_notLoaded_deliversOnceLoaded() {
+        mRepository.getAppListSorted(false, mCallback);
+        verify(mCallback, never()).onRecentAccessesLoaded(any());
+
+        runBackgroundTasks();
+
+        verify(mCallback).onRecentAccessesLoaded(List.of(ACCESS));
+    }
+
+    @Test
+    public void getAppListSorted_withinTtl_deliversRightAwayAndQueriesOnce() {
+        mRepository.prefetch(false);
+        runBackgroundTasks();
+        mNow += RecentLocationAccessRepository.TTL_MILLIS - 1;
+
+        mRepository.getAppListSorted(false, mCallback);
+
+        verify(mCallback).onRecentAccessesLoaded(List.of(ACCESS));
+        assertThat(mBackgroundTasks).isEmpty();
+        verify(mRecentAppOpsAccess, times(1)).getAppListSorted(false);
+    }
+
+    @Test
+    public void getAppListSorted_afterTtl_deliversOldThenNew() {
+        mRepository.prefetch(false);
+        runBackgroundTasks();
+        mNow += RecentLocationAccessRepository.TTL_MILLIS;
+
+        mRepository.getAppListSorted(false, mCallback);
+        verify(mCallback).onRecentAccessesLoaded(List.of(ACCESS));
+
+        runBackgroundTasks();
+        verify(mCallback).onRecentAccessesLoaded(List.of(NEW_ACCESS));
+        verify(mRecentAppOpsAccess, times(2)).getAppListSorted(false);
+    }
+
+    @Test
+    public void getAppListSorted_whileLoading_queriesOnce() {
+        mRepository.prefetch(false);
+        mRepository.getAppListSorted(false, mCallback);
+
+        runBackgroundTasks();
+
+        verify(mCallback).onRecentAccessesLoaded(List.of(ACCESS));
+        verify(mRecentAppOpsAccess, times(1)).getAppListSorted(false);
+    }
+
+    @Test
+    public void getAppListSorted_showSystem_keptApart() {
+        mRepository.getAppListSorted(true, mCallback);
+        runBackgroundTasks();
+
+        verify(mCallback).onRecentAccessesLoaded(List.of());
+        verify(mRecentAppOpsAccess, never()).getAppListSorted(false);
+    }
+
+    private void runBackgroundTasks() {
+        final List<Runnable> tasks = new ArrayList<>(mBackgroundTasks);
+        mBackgroundTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+}
@@ -240,6 +240,55 @@ public class PanelSlicesAdapterTest {
         assertThat(intArgumentCaptor.getValue()).isEqualTo(R.layout.panel_slice_row);
     }
 
+    @Test
+    public void onBindViewHolder_progressiveAndNotLoaded_reservesPlaceholder() {
+        final LiveData<Slice> liveData = mock(LiveData.class);
+        mData.put(VOLUME_NOTIFICATION_URI, liveData);
+        doReturn(true).when(mPanelFragment).isProgressiveLoadingEnabled();
+        final PanelSlicesAdapter adapter = new PanelSlicesAdapter(mPanelFragment, mData, 0);
+        final SliceRowViewHolder viewHolder =
+                adapter.onCreateViewHolder(new FrameLayout(mContext), 0 /* view type */);
+
+        adapter.onBindViewHolder(viewHolder, 0);
+
+        assertThat(viewHolder.itemView.getMinimumHeight()).isEqualTo(
+                mContext.getResources().getDimensionPixelSize(
+                        R.dimen.panel_slice_placeholder_height));
+        assertThat(viewHolder.sliceView.getVisibility()).isEqualTo(View.INVISIBLE);
+    }
+
+    @Test
+    public void onBindViewHolder_progressiveAndLoaded_releasesPlaceholder() {
+        final LiveData<Slice> liveData = mock(LiveData.class);
+        mData.put(VOLUME_NOTIFICATION_URI, liveData);
+        doReturn(true).when(mPanelFragment).isProgressiveLoadingEnabled();
+        final PanelSlicesAdapter adapter = new PanelSlicesAdapter(mPanelFragment, mData, 0);
+        final SliceRowViewHolder viewHolder =
+                adapter.onCreateViewHolder(new FrameLayout(mContext), 0 /* view type */);
+        adapter.onBindViewHolder(viewHolder, 0);
+
+        when(liveData.getValue()).thenReturn(new Slice());
+        adapter.onBindViewHolder(viewHolder, 0);
+
+        assertThat(viewHolder.itemView.getMinimumHeight()).isEqualTo(0);
+    }
+
+    @Test
+    public void removeSlice_letsNextSliceIn() {
+        for (int i = 0; i < MAX_NUM_OF_SLICES + 1; i++) {
+            addTestLiveData(Uri.parse("uri" + i));
+        }
+        final LiveData<Slice> first = mData.get(Uri.parse("uri0"));
+        final LiveData<Slice> last = mData.get(Uri.parse("uri" + MAX_NUM_OF_SLICES));
+        final PanelSlicesAdapter adapter = new PanelSlicesAdapter(mPanelFragment, mData, 0);
+
+        adapter.removeSlice(first);
+
+        assertThat(adapter.getItemCount()).isEqualTo(MAX_NUM_OF_SLICES);
+        assertThat(adapter.getData()).doesNotContain(first);
+        assertThat(adapter.getData()).contains(last);
+    }
+
     @Implements(LayoutInflater.class)
     public static class ShadowLayoutInflater {
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.password;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.admin.PasswordMetrics;
+import android.text.Editable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class IncrementalPasswordMetricsTest {
+
+    private final IncrementalPasswordMetrics mMetrics = new IncrementalPasswordMetrics();
+    private final Editable mText = new SpannableStringBuilder();
+
+    @Before
+    public void setUp() {
+        // Attached the way TextView attaches its text watchers.
+        mText.setSpan(mMetrics, 0, 0, Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+    }
+
+    @Test
+    public void getMetrics_afterEdits_matchesFullComputation() {
+        mText.append("Password1!");
+        mText.delete(2, 5);
+        mText.insert(0, "abcd");
+        mText.replace(3, 6, "XYZ#");
+
+        assertThat(mMetrics.getMetrics(mText, false /* isPin */)).isEqualTo(
+                PasswordMetrics.computeForPasswordOrPin(toBytes(mText), false /* isPin */));
+    }
+
+    @Test
+    public void getMetrics_pin_matchesFullComputation() {
+        mText.append("13579");
+        mText.delete(4, 5);
+        mText.append("0");
+
+        assertThat(mMetrics.getMetrics(mText, true /* isPin */)).isEqualTo(
+                PasswordMetrics.computeForPasswordOrPin(toBytes(mText), true /* isPin */));
+    }
+
+    @Test
+    public void getMetrics_textSetBeforeTracking_countsWholeText() {
+        final IncrementalPasswordMetrics metrics = new IncrementalPasswordMetrics();
+
+        assertThat(metrics.getMetrics("abc123", false /* isPin */)).isEqualTo(
+                PasswordMetrics.computeForPasswordOrPin(toBytes("abc123"), false /* isPin */));
+    }
+
+    @Test
+    public void hasInvalidChars_invalidCharRemoved_returnsFalse() {
+        mText.append("passéword");
+        assertThat(mMetrics.hasInvalidChars(mText)).isTrue();
+
+        mText.delete(4, 5);
+        assertThat(mMetrics.hasInvalidChars(mText)).isFalse();
+    }
+
+    private static byte[] toBytes(CharSequence text) {
+        final byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+}
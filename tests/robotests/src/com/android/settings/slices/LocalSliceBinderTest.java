@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.provider.Settings;
+import android.provider.SettingsSlicesContract;
+
+import androidx.slice.Slice;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.android.settings.testutils.FakeFeatureFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocalSliceBinderTest {
+
+    private Context mContext;
+    private FakeFeatureFactory mFeatureFactory;
+
+    @Before
+    public void setUp() {
+        mContext = ApplicationProvider.getApplicationContext();
+        mFeatureFactory = FakeFeatureFactory.setupForTest();
+    }
+
+    @Test
+    public void isLocalUri_settingsAuthorities_returnsTrue() {
+        assertThat(LocalSliceBinder.isLocalUri(CustomSliceRegistry.WIFI_SLICE_URI)).isTrue();
+        assertThat(LocalSliceBinder.isLocalUri(new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(SettingsSlicesContract.AUTHORITY)
+                .appendPath(SettingsSlicesContract.PATH_SETTING_ACTION)
+                .appendPath("key")
+                .build())).isTrue();
+    }
+
+    @Test
+    public void isLocalUri_otherAuthority_returnsFalse() {
+        assertThat(LocalSliceBinder.isLocalUri(
+                Uri.parse("content://com.example.slices/action/key"))).isFalse();
+    }
+
+    @Test
+    public void buildLocalSlice_customSliceable_buildsFromSliceable() {
+        final Slice slice = new Slice();
+        final CustomSliceable sliceable = mock(CustomSliceable.class);
+        when(sliceable.getSlice()).thenReturn(slice);
+        when(mFeatureFactory.slicesFeatureProvider.getSliceableFromUri(any(),
+                eq(CustomSliceRegistry.WIFI_SLICE_URI))).thenReturn(sliceable);
+
+        assertThat(LocalSliceBinder.buildLocalSlice(mContext, CustomSliceRegistry.WIFI_SLICE_URI))
+                .isSameInstanceAs(slice);
+        verify(sliceable).getSlice();
+    }
+
+    @Test
+    public void buildLocalSlice_blockedKey_returnsRefused() {
+        final Uri uri = CustomSliceRegistry.WIFI_SLICE_URI;
+        Settings.Global.putString(mContext.getContentResolver(), Settings.Global.BLOCKED_SLICES,
+                uri.getLastPathSegment());
+
+        assertThat(LocalSliceBinder.buildLocalSlice(mContext, uri))
+                .isSameInstanceAs(SettingsSliceProvider.REFUSED_SLICE);
+        verifyNoInteractions(mFeatureFactory.slicesFeatureProvider);
+    }
+
+    @Test
+    public void buildLocalSlice_noPathData_returnsNull() {
+        assertThat(LocalSliceBinder.buildLocalSlice(mContext, new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(SettingsSliceProvider.SLICE_AUTHORITY)
+                .appendPath("key")
+                .build())).isNull();
+    }
+}
@@ -33,6 +33,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -46,7 +47,6 @@ import android.net.Uri;
 import android.os.StrictMode;
 import android.provider.Settings;
 import android.provider.SettingsSlicesContract;
-import android.util.ArraySet;
 import android.view.accessibility.AccessibilityManager;
 
 import androidx.slice.Slice;
@@ -80,6 +80,7 @@ import org.robolectric.annotation.Resetter;
 import org.robolectric.shadow.api.Shadow;
 import org.robolectric.shadows.ShadowAccessibilityManager;
 import org.robolectric.shadows.ShadowBinder;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.shadows.ShadowPackageManager;
 
 import java.util.ArrayList;
@@ -89,7 +90,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * TODO Investigate using ShadowContentResolver.registerProviderInternal(String, ContentProvider)
@@ -166,6 +166,7 @@ public class SettingsSliceProviderTest {
 
     @After
     public void cleanUp() {
+        SlicePermissionGrants.reset();
         ShadowThreadUtils.reset();
         ShadowTheme.reset();
         DatabaseTestUtils.clearDb(mContext);
@@ -255,9 +256,8 @@ public class SettingsSliceProviderTest {
     @Test
     public void onBindSlice_requestsBlockedSlice_returnsNull() {
         final String blockedKey = "blocked_key";
-        final Set<String> blockedSet = new ArraySet<>();
-        blockedSet.add(blockedKey);
-        doReturn(blockedSet).when(mProvider).getBlockedKeys();
+        Settings.Global.putString(mContext.getContentResolver(), Settings.Global.BLOCKED_SLICES,
+                blockedKey);
         final Uri blockedUri = new Uri.Builder()
                 .scheme(ContentResolver.SCHEME_CONTENT)
                 .authority(SettingsSliceProvider.SLICE_AUTHORITY)
@@ -650,6 +650,59 @@ public class SettingsSliceProviderTest {
                 .grantSlicePermission("com.android.settings.slice_allowlist_package", uris.get(0));
     }
 
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void grantAllowlistedPackagePermissions_alreadyGranted_shouldNotGrantAgain() {
+        final List<Uri> uris = new ArrayList<>();
+        uris.add(Uri.parse("content://settings/slice"));
+        SettingsSliceProvider.grantAllowlistedPackagePermissions(mContext, uris);
+
+        uris.add(Uri.parse("content://settings/slice2"));
+        SettingsSliceProvider.grantAllowlistedPackagePermissions(mContext, uris);
+
+        verify(mManager).grantSlicePermission(
+                "com.android.settings.slice_allowlist_package", uris.get(0));
+        verify(mManager).grantSlicePermission(
+                "com.android.settings.slice_allowlist_package", uris.get(1));
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void grantAllowlistedPackagePermissions_dataCleared_shouldGrantAgain() {
+        final List<Uri> uris = new ArrayList<>();
+        uris.add(Uri.parse("content://settings/slice"));
+        SettingsSliceProvider.grantAllowlistedPackagePermissions(mContext, uris);
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_PACKAGE_DATA_CLEARED,
+                Uri.fromParts("package", "com.android.settings.slice_allowlist_package", null)));
+        ShadowLooper.idleMainLooper();
+        SettingsSliceProvider.grantAllowlistedPackagePermissions(mContext, uris);
+
+        verify(mManager, times(2)).grantSlicePermission(
+                "com.android.settings.slice_allowlist_package", uris.get(0));
+    }
+
+    @Test
+    @Config(qualifiers = "mcc999")
+    public void grantAllowlistedPackagePermissions_publicAuthority_shouldGrantEachUri() {
+        final Uri prefix = new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(SettingsSlicesContract.AUTHORITY)
+                .appendPath(SettingsSlicesContract.PATH_SETTING_ACTION)
+                .build();
+        final List<Uri> uris = new ArrayList<>();
+        uris.add(prefix.buildUpon().appendPath("key1").build());
+        uris.add(prefix.buildUpon().appendPath("key2").build());
+
+        SettingsSliceProvider.grantAllowlistedPackagePermissions(mContext, uris);
+
+        verify(mManager).grantSlicePermission(
+                "com.android.settings.slice_allowlist_package", uris.get(0));
+        verify(mManager).grantSlicePermission(
+                "com.android.settings.slice_allowlist_package", uris.get(1));
+        verify(mManager, never()).grantSlicePermission(anyString(), eq(prefix));
+    }
+
     @Test
     @Config(qualifiers = "mcc999")
     public void isPrivateSlicesNeeded_incorrectUri_returnFalse() {
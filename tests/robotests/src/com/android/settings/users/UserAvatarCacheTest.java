@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.UserInfo;
+import android.graphics.Bitmap;
+import android.os.Looper;
+import android.os.UserManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserAvatarCacheTest {
+
+    private static final int USER_ID = 10;
+
+    private Context mContext;
+    private UserManager mUserManager;
+    private UserInfo mUser;
+    private final List<Runnable> mBackgroundTasks = new ArrayList<>();
+    private UserAvatarCache mCache;
+
+    @Before
+    public void setUp() throws IOException {
+        mContext = RuntimeEnvironment.application;
+        mUserManager = mock(UserManager.class);
+        when(mUserManager.getUserIcon(USER_ID))
+                .thenReturn(Bitmap.createBitmap(1000, 1000, Bitmap.Config.ARGB_8888));
+        final File icon = new File(mContext.getFilesDir(), "photo.png");
+        icon.createNewFile();
+        icon.setLastModified(System.currentTimeMillis() - 60_000);
+        mUser = new UserInfo(USER_ID, "user", icon.getPath(), 0 /* flags */);
+        mCache = new UserAvatarCache(mBackgroundTasks::add, Runnable::run);
+    }
+
+    @Test
+    public void get_notLoaded_returnNull() {
+        assertThat(mCache.get(USER_ID)).isNull();
+    }
+
+    @Test
+    public void invalidate_shouldDropCachedAvatar() {
+        mCache.put(USER_ID, Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+        mCache.invalidate(mContext, USER_ID);
+
+        assertThat(mCache.get(USER_ID)).isNull();
+    }
+
+    @Test
+    public void loadAsync_shouldCacheAvatar() {
+        final int[] loaded = new int[1];
+
+        mCache.loadAsync(mContext, mUserManager, List.of(mUser), () -> loaded[0]++);
+        runBackgroundTasks();
+
+        assertThat(mCache.get(USER_ID)).isNotNull();
+        assertThat(loaded[0]).isEqualTo(1);
+    }
+
+    @Test
+    public void loadAsync_userAlreadyLoading_shouldRunEveryCallbackOnce() {
+        final int[] loaded = new int[2];
+
+        mCache.loadAsync(mContext, mUserManager, List.of(mUser), () -> loaded[0]++);
+        mCache.loadAsync(mContext, mUserManager, List.of(mUser), () -> loaded[1]++);
+        runBackgroundTasks();
+
+        assertThat(loaded).asList().containsExactly(1, 1);
+        verify(mUserManager).getUserIcon(USER_ID);
+    }
+
+    @Test
+    public void loadAsync_invalidatedWhileLoading_shouldNotCacheAvatar() {
+        mCache.loadAsync(mContext, mUserManager, List.of(mUser), () -> {});
+
+        mCache.invalidate(mContext, USER_ID);
+        runBackgroundTasks();
+
+        assertThat(mCache.get(USER_ID)).isNull();
+    }
+
+    @Test
+    public void loadAsync_thumbnailNewerThanPhoto_shouldNotLoadPhotoAgain() {
+        mCache.loadAsync(mContext, mUserManager, List.of(mUser), () -> {});
+        runBackgroundTasks();
+
+        final UserAvatarCache otherCache = new UserAvatarCache(Runnable::run, Runnable::run);
+        otherCache.loadAsync(mContext, mUserManager, List.of(mUser), () -> {});
+
+        assertThat(otherCache.get(USER_ID)).isNotNull();
+        verify(mUserManager, times(1)).getUserIcon(USER_ID);
+    }
+
+    @Test
+    public void userInfoChanged_shouldDropCachedAvatar() {
+        mCache.loadAsync(mContext, mUserManager, List.of(mUser), () -> {});
+        runBackgroundTasks();
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_USER_INFO_CHANGED)
+                .putExtra(Intent.EXTRA_USER_HANDLE, USER_ID));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertThat(mCache.get(USER_ID)).isNull();
+    }
+
+    private void runBackgroundTasks() {
+        while (!mBackgroundTasks.isEmpty()) {
+            mBackgroundTasks.remove(0).run();
+        }
+    }
+}
@@ -194,6 +194,7 @@ public class UserSettingsTest {
         mFragment.mGuestCategory = mock(PreferenceCategory.class);
         mFragment.mGuestResetPreference = mock(Preference.class);
         mFragment.mGuestExitPreference = mock(Preference.class);
+        mFragment.mAvatarCache = new UserAvatarCache(Runnable::run, Runnable::run);
     }
 
     @After
@@ -700,7 +701,7 @@ public class UserSettingsTest {
         UserInfo currentUser = getAdminUser(true);
         currentUser.iconPath = "/data/system/users/0/photo.png";
         givenUsers(currentUser);
-        mFragment.mUserIcons.put(ACTIVE_USER_ID,
+        mFragment.mAvatarCache.put(ACTIVE_USER_ID,
                 Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888));
 
         mFragment.updateUserList();
@@ -716,8 +717,8 @@ public class UserSettingsTest {
         UserInfo currentUser = getAdminUser(true);
         currentUser.iconPath = "/data/system/users/0/photo.png";
         givenUsers(currentUser);
-        // create a non-empty sparsearray
-        mFragment.mUserIcons.put(5, Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888));
+        // create a non-empty cache
+        mFragment.mAvatarCache.put(5, Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888));
         Bitmap userIcon = Bitmap.createBitmap(100, 200, Bitmap.Config.ARGB_8888);
         doReturn(userIcon).when(mUserManager).getUserIcon(ACTIVE_USER_ID);
 
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.spa.app.storage
+
+import android.content.pm.ApplicationInfo
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.atomic.AtomicInteger
+import kotlinx.coroutines.flow.last
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class AppStorageSizeRepositoryTest {
+    private val calculateCount = AtomicInteger()
+    private var now = 0L
+    private var onCalculate: () -> Unit = {}
+
+    private val repository = AppStorageSizeRepository(
+        calculateSize = { app ->
+            calculateCount.incrementAndGet()
+            onCalculate()
+            SIZES[app.packageName]
+        },
+        elapsedRealtime = { now },
+    )
+
+    @Test
+    fun sizesFlow_firstEmissionHasUnknownSizesAsZero() = runTest {
+        val emissions = repository.sizesFlow(listOf(APP1, APP2)).toList()
+
+        assertThat(emissions.first().toList()).containsExactly(0L, 0L).inOrder()
+        assertThat(emissions.last().toList()).containsExactly(1L, 2L).inOrder()
+    }
+
+    @Test
+    fun sizesFlow_secondTime_usesRememberedSizes() = runTest {
+        repository.sizesFlow(listOf(APP1, APP2)).last()
+
+        val emissions = repository.sizesFlow(listOf(APP1, APP2)).toList()
+
+        assertThat(emissions).hasSize(1)
+        assertThat(emissions.single().toList()).containsExactly(1L, 2L).inOrder()
+        assertThat(calculateCount.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun invalidate_recomputesOnlyThatPackage() = runTest {
+        repository.sizesFlow(listOf(APP1, APP2)).last()
+
+        repository.invalidate(APP1.packageName, 0)
+        repository.sizesFlow(listOf(APP1, APP2)).last()
+
+        assertThat(calculateCount.get()).isEqualTo(3)
+    }
+
+    @Test
+    fun invalidate_whileComputing_sizeIsNotRemembered() = runTest {
+        onCalculate = { repository.invalidate(APP1.packageName, 0) }
+        repository.sizesFlow(listOf(APP1)).last()
+        onCalculate = {}
+
+        repository.sizesFlow(listOf(APP1)).last()
+
+        assertThat(calculateCount.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun sizesFlow_sizeTooOld_recomputes() = runTest {
+        repository.sizesFlow(listOf(APP1)).last()
+        now += AppStorageSizeRepository.MAX_AGE_MILLIS
+
+        val emissions = repository.sizesFlow(listOf(APP1)).toList()
+
+        assertThat(emissions.first().toList()).containsExactly(0L)
+        assertThat(calculateCount.get()).isEqualTo(2)
+    }
+
+    @Test
+    fun sizesFlow_sizeNotAvailable_isNotRemembered() = runTest {
+        repository.sizesFlow(listOf(APP3)).last()
+        repository.sizesFlow(listOf(APP3)).last()
+
+        assertThat(calculateCount.get()).isEqualTo(2)
+    }
+
+    private companion object {
+        val APP1 = ApplicationInfo().apply { packageName = "app1" }
+        val APP2 = ApplicationInfo().apply { packageName = "app2" }
+        val APP3 = ApplicationInfo().apply { packageName = "app3" }
+        val SIZES = mapOf("app1" to 1L, "app2" to 2L)
+    }
+}
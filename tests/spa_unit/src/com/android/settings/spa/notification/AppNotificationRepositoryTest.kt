@@ -71,7 +71,7 @@ class AppNotificationRepositoryTest {
         repository = AppNotificationRepository(
             context,
             packageManagers,
-            usageStatsManager,
+            NotificationUsageEventsRepository(context, usageStatsManager),
             notificationManager,
         )
     }
@@ -113,6 +113,7 @@ class AppNotificationRepositoryTest {
         val events = (1..sentCount).map {
             UsageEvents.Event().apply {
                 mEventType = UsageEvents.Event.NOTIFICATION_INTERRUPTION
+                mPackage = app.packageName
             }
         }
         whenever(
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.spa.notification
+
+import android.app.usage.IUsageStatsManager
+import android.app.usage.UsageEvents
+import android.content.Context
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.google.common.truth.Truth.assertThat
+import java.util.concurrent.CompletableFuture
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.any
+import org.mockito.kotlin.eq
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.mockito.kotlin.whenever
+
+@RunWith(AndroidJUnit4::class)
+class NotificationUsageEventsRepositoryTest {
+    private val context: Context = ApplicationProvider.getApplicationContext()
+
+    private val usageStatsManager = mock<IUsageStatsManager>()
+
+    private var now = 0L
+
+    private val repository =
+        NotificationUsageEventsRepository(context, usageStatsManager) { now }
+
+    @Before
+    fun setUp() {
+        whenever(usageStatsManager.queryEventsForUser(any(), any(), eq(USER_ID), any()))
+            .thenAnswer {
+                UsageEvents(listOf(event(PACKAGE_NAME, 2), event(PACKAGE_NAME, 5)), arrayOf())
+            }
+        whenever(
+            usageStatsManager.queryEventsForPackageForUser(
+                any(), any(), eq(USER_ID), eq(PACKAGE_NAME), any()
+            )
+        ).thenAnswer { UsageEvents(listOf(event(PACKAGE_NAME, 7)), arrayOf()) }
+    }
+
+    @Test
+    fun getSentStates_aggregatesPerPackage() {
+        val sentStates = repository.getSentStates(USER_ID)
+
+        assertThat(sentStates).containsExactly(
+            PACKAGE_NAME, NotificationSentState(lastSent = 5, sentCount = 2),
+        )
+    }
+
+    @Test
+    fun getSentState_notScanned_onlyQueriesPackage() {
+        val sentState = repository.getSentState(USER_ID, PACKAGE_NAME)
+
+        assertThat(sentState).isEqualTo(NotificationSentState(lastSent = 7, sentCount = 1))
+        verify(usageStatsManager, never()).queryEventsForUser(any(), any(), any(), any())
+    }
+
+    @Test
+    fun getSentState_recentlyScanned_usesScan() {
+        repository.getSentStates(USER_ID)
+
+        val sentState = repository.getSentState(USER_ID, PACKAGE_NAME)
+
+        assertThat(sentState).isEqualTo(NotificationSentState(lastSent = 5, sentCount = 2))
+        verify(usageStatsManager, never())
+            .queryEventsForPackageForUser(any(), any(), any(), any(), any())
+    }
+
+    @Test
+    fun getSentStates_withinRefreshWindow_scansOnce() {
+        repository.getSentStates(USER_ID)
+        now += NotificationUsageEventsRepository.REFRESH_WINDOW_MILLIS - 1
+        repository.getSentStates(USER_ID)
+
+        verify(usageStatsManager, times(1)).queryEventsForUser(any(), any(), eq(USER_ID), any())
+    }
+
+    @Test
+    fun getSentStates_afterRefreshWindow_scansAgain() {
+        repository.getSentStates(USER_ID)
+        now += NotificationUsageEventsRepository.REFRESH_WINDOW_MILLIS
+        repository.getSentStates(USER_ID)
+
+        verify(usageStatsManager, times(2)).queryEventsForUser(any(), any(), eq(USER_ID), any())
+    }
+
+    @Test
+    fun getSentState_whileScanning_waitsForScan() {
+        var concurrent: CompletableFuture<NotificationSentState?>? = null
+        whenever(usageStatsManager.queryEventsForUser(any(), any(), eq(USER_ID), any()))
+            .thenAnswer {
+                // Asked for one app while its user is being scanned.
+                concurrent = CompletableFuture.supplyAsync {
+                    repository.getSentState(USER_ID, PACKAGE_NAME)
+                }
+                Thread.sleep(100)
+                UsageEvents(listOf(event(PACKAGE_NAME, 2)), arrayOf())
+            }
+
+        repository.getSentStates(USER_ID)
+
+        assertThat(concurrent!!.get()).isEqualTo(NotificationSentState(lastSent = 2, sentCount = 1))
+        verify(usageStatsManager, never())
+            .queryEventsForPackageForUser(any(), any(), any(), any(), any())
+    }
+
+    private fun event(packageName: String, timeStamp: Long) = UsageEvents.Event().apply {
+        mEventType = UsageEvents.Event.NOTIFICATION_INTERRUPTION
+        mPackage = packageName
+        mTimeStamp = timeStamp
+    }
+
+    private companion object {
+        const val USER_ID = 0
+        const val PACKAGE_NAME = "package.name"
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.deviceinfo.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.pm.UserInfo;
+import android.os.UserManager;
+import android.util.SparseArray;
+
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+@SmallTest
+public class StorageStatsRepositoryTest {
+    private static final int PRIMARY_USER_ID = 0;
+    private static final int SECONDARY_USER_ID = 10;
+
+    @Mock
+    private UserManager mUserManager;
+    @Mock
+    private StorageResultCalculator mCalculator;
+    @Mock
+    private StorageStatsRepository.Callback mCallback;
+
+    private StorageStatsRepository mRepository;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        final List<UserInfo> users = new ArrayList<>();
+        users.add(createUser(SECONDARY_USER_ID));
+        users.add(createUser(PRIMARY_USER_ID));
+        when(mUserManager.getUsers()).thenReturn(users);
+        mRepository = new StorageStatsRepository(mUserManager, mCalculator, Runnable::run,
+                Runnable::run);
+    }
+
+    @Test
+    public void refresh_firstTime_publishesEveryUserOnceComplete() {
+        mRepository.addCallback(mCallback);
+
+        mRepository.refresh();
+
+        final ArgumentCaptor<SparseArray<StorageAsyncLoader.StorageResult>> captor =
+                ArgumentCaptor.forClass(SparseArray.class);
+        verify(mCallback).onStorageResultChanged(captor.capture());
+        assertThat(captor.getValue().size()).isEqualTo(2);
+        verify(mCalculator).loadAppsAndGamesSize(eq(PRIMARY_USER_ID), any(), anySet(), anySet());
+        verify(mCalculator).loadFilesSize(eq(SECONDARY_USER_ID), any());
+    }
+
+    @Test
+    public void refresh_upToDate_doesNotComputeAgain() {
+        mRepository.refresh();
+
+        mRepository.refresh();
+
+        verify(mCalculator).loadAppsAndGamesSize(eq(PRIMARY_USER_ID), any(), anySet(), anySet());
+        verify(mCalculator).loadFilesSize(eq(PRIMARY_USER_ID), any());
+    }
+
+    @Test
+    public void invalidate_files_onlyComputesFilesOfUser() {
+        mRepository.addCallback(mCallback);
+        mRepository.refresh();
+
+        mRepository.invalidate(SECONDARY_USER_ID, StorageStatsRepository.CATEGORY_FILES);
+
+        verify(mCalculator, times(2)).loadFilesSize(eq(SECONDARY_USER_ID), any());
+        verify(mCalculator).loadFilesSize(eq(PRIMARY_USER_ID), any());
+        verify(mCalculator).loadAppsAndGamesSize(eq(SECONDARY_USER_ID), any(), anySet(),
+                anySet());
+        verify(mCallback, times(2)).onStorageResultChanged(any());
+    }
+
+    @Test
+    public void invalidate_noCallback_doesNotCompute() {
+        mRepository.refresh();
+
+        mRepository.invalidate(PRIMARY_USER_ID, StorageStatsRepository.CATEGORY_APPS);
+
+        verify(mCalculator).loadAppsAndGamesSize(eq(PRIMARY_USER_ID), any(), anySet(), anySet());
+    }
+
+    @Test
+    public void addCallback_loaded_deliversRightAway() {
+        mRepository.refresh();
+
+        mRepository.addCallback(mCallback);
+
+        verify(mCallback).onStorageResultChanged(any());
+    }
+
+    @Test
+    public void addCallback_notLoaded_deliversNothing() {
+        mRepository.addCallback(mCallback);
+
+        verify(mCallback, never()).onStorageResultChanged(any());
+    }
+
+    private static UserInfo createUser(int userId) {
+        final UserInfo info = new UserInfo();
+        info.id = userId;
+        return info;
+    }
+}
@@ -51,6 +51,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -92,7 +93,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 new String[] {LockScreenSafetySource.SAFETY_SOURCE_ID})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
 
         verify(mSafetyCenterManagerWrapper, never())
                 .setSafetySourceData(any(), any(), any(), any());
@@ -108,7 +109,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 new String[] {LockScreenSafetySource.SAFETY_SOURCE_ID})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
 
         verify(mSafetyCenterManagerWrapper, never())
                 .setSafetySourceData(any(), any(), any(), any());
@@ -122,7 +123,7 @@ public class SafetySourceBroadcastReceiverTest {
                         .setAction(ACTION_REFRESH_SAFETY_SOURCES)
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
 
         verify(mSafetyCenterManagerWrapper, never())
                 .setSafetySourceData(any(), any(), any(), any());
@@ -137,7 +138,7 @@ public class SafetySourceBroadcastReceiverTest {
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCE_IDS, new String[] {})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
 
         verify(mSafetyCenterManagerWrapper, never())
                 .setSafetySourceData(any(), any(), any(), any());
@@ -153,7 +154,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 EXTRA_REFRESH_SAFETY_SOURCE_IDS,
                                 new String[] {LockScreenSafetySource.SAFETY_SOURCE_ID});
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
 
         verify(mSafetyCenterManagerWrapper, never())
                 .setSafetySourceData(any(), any(), any(), any());
@@ -170,7 +171,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 new String[] {LockScreenSafetySource.SAFETY_SOURCE_ID})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
         ArgumentCaptor<SafetyEvent> captor = ArgumentCaptor.forClass(SafetyEvent.class);
         verify(mSafetyCenterManagerWrapper, times(1))
                 .setSafetySourceData(any(), any(), any(), captor.capture());
@@ -193,7 +194,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 new String[] {LockScreenSafetySource.SAFETY_SOURCE_ID})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
         verify(mSafetyCenterManagerWrapper, times(1))
                 .setSafetySourceData(any(), captor.capture(), any(), any());
@@ -212,7 +213,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 new String[] {BiometricsSafetySource.SAFETY_SOURCE_ID})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
         verify(mSafetyCenterManagerWrapper, times(1))
                 .setSafetySourceData(any(), captor.capture(), any(), any());
@@ -235,7 +236,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 new String[] {PrivateSpaceSafetySource.SAFETY_SOURCE_ID})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
         verify(mSafetyCenterManagerWrapper, times(1))
                 .setSafetySourceData(any(), captor.capture(), any(), any());
@@ -257,7 +258,7 @@ public class SafetySourceBroadcastReceiverTest {
                                 new String[] {PrivateSpaceSafetySource.SAFETY_SOURCE_ID})
                         .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
         ArgumentCaptor<SafetySourceData> captor = ArgumentCaptor.forClass(SafetySourceData.class);
         verify(mSafetyCenterManagerWrapper, times(1))
                 .setSafetySourceData(any(), any(), captor.capture(), any());
@@ -265,12 +266,54 @@ public class SafetySourceBroadcastReceiverTest {
         assertThat(captor.getValue()).isEqualTo(null);
     }
 
+    @Test
+    public void onReceive_onRefresh_sameBroadcastIdInFlight_refreshesOnce() {
+        when(mSafetyCenterManagerWrapper.isEnabled(mApplicationContext)).thenReturn(true);
+        Intent intent =
+                new Intent()
+                        .setAction(ACTION_REFRESH_SAFETY_SOURCES)
+                        .putExtra(
+                                EXTRA_REFRESH_SAFETY_SOURCE_IDS,
+                                new String[] {LockScreenSafetySource.SAFETY_SOURCE_ID})
+                        .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
+        final List<Runnable> pending = new ArrayList<>();
+        final SafetySourceBroadcastReceiver receiver =
+                new SafetySourceBroadcastReceiver(pending::add);
+
+        receiver.onReceive(mApplicationContext, intent);
+        receiver.onReceive(mApplicationContext, intent);
+        pending.forEach(Runnable::run);
+
+        verify(mSafetyCenterManagerWrapper, times(1))
+                .setSafetySourceData(any(), any(), any(), any());
+    }
+
+    @Test
+    public void onReceive_onRefresh_sameBroadcastIdAfterDone_refreshesAgain() {
+        when(mSafetyCenterManagerWrapper.isEnabled(mApplicationContext)).thenReturn(true);
+        Intent intent =
+                new Intent()
+                        .setAction(ACTION_REFRESH_SAFETY_SOURCES)
+                        .putExtra(
+                                EXTRA_REFRESH_SAFETY_SOURCE_IDS,
+                                new String[] {LockScreenSafetySource.SAFETY_SOURCE_ID})
+                        .putExtra(EXTRA_REFRESH_SAFETY_SOURCES_BROADCAST_ID, REFRESH_BROADCAST_ID);
+        final SafetySourceBroadcastReceiver receiver =
+                new SafetySourceBroadcastReceiver(Runnable::run);
+
+        receiver.onReceive(mApplicationContext, intent);
+        receiver.onReceive(mApplicationContext, intent);
+
+        verify(mSafetyCenterManagerWrapper, times(2))
+                .setSafetySourceData(any(), any(), any(), any());
+    }
+
     @Test
     public void onReceive_onBootCompleted_setsBootCompleteEvent() {
         when(mSafetyCenterManagerWrapper.isEnabled(mApplicationContext)).thenReturn(true);
         Intent intent = new Intent().setAction(Intent.ACTION_BOOT_COMPLETED);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
         ArgumentCaptor<SafetyEvent> captor = ArgumentCaptor.forClass(SafetyEvent.class);
         verify(mSafetyCenterManagerWrapper, times(3))
                 .setSafetySourceData(any(), any(), any(), captor.capture());
@@ -285,7 +328,7 @@ public class SafetySourceBroadcastReceiverTest {
         when(mSafetyCenterManagerWrapper.isEnabled(mApplicationContext)).thenReturn(true);
         Intent intent = new Intent().setAction(Intent.ACTION_BOOT_COMPLETED);
 
-        new SafetySourceBroadcastReceiver().onReceive(mApplicationContext, intent);
+        new SafetySourceBroadcastReceiver(Runnable::run).onReceive(mApplicationContext, intent);
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
         verify(mSafetyCenterManagerWrapper, times(3))
                 .setSafetySourceData(any(), captor.capture(), any(), any());
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.vpn2;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.android.internal.net.VpnProfile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RunWith(AndroidJUnit4.class)
+public class VpnProfileCacheTest {
+    private static final String KEY_1 = "key1";
+    private static final String KEY_2 = "key2";
+
+    private final Map<String, byte[]> mStore = new TreeMap<>();
+    private VpnProfileCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new VpnProfileCache();
+        mStore.put(KEY_1, profile(KEY_1, "server1").encode());
+        mStore.put(KEY_2, profile(KEY_2, "server2").encode());
+    }
+
+    @Test
+    public void load_unchangedProfiles_returnsSameInstances() {
+        final List<VpnProfile> first = load();
+        final List<VpnProfile> second = load();
+
+        assertThat(second).hasSize(2);
+        assertThat(second.get(0)).isSameInstanceAs(first.get(0));
+        assertThat(second.get(1)).isSameInstanceAs(first.get(1));
+    }
+
+    @Test
+    public void load_editedProfile_decodesItAgain() {
+        final List<VpnProfile> first = load();
+        mStore.put(KEY_2, profile(KEY_2, "server3").encode());
+
+        final List<VpnProfile> second = load();
+
+        assertThat(second.get(0)).isSameInstanceAs(first.get(0));
+        assertThat(second.get(1)).isNotSameInstanceAs(first.get(1));
+        assertThat(second.get(1).server).isEqualTo("server3");
+    }
+
+    @Test
+    public void load_removedProfile_isDropped() {
+        load();
+        mStore.remove(KEY_1);
+
+        final List<VpnProfile> profiles = load();
+
+        assertThat(profiles).hasSize(1);
+        assertThat(profiles.get(0).key).isEqualTo(KEY_2);
+    }
+
+    private List<VpnProfile> load() {
+        return mCache.load(mStore.keySet().toArray(new String[0]), mStore::get);
+    }
+
+    private static VpnProfile profile(String key, String server) {
+        final VpnProfile profile = new VpnProfile(key);
+        profile.name = key;
+        profile.server = server;
+        return profile;
+    }
+}